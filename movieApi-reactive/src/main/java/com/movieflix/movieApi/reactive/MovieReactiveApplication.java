@@ -0,0 +1,15 @@
+package com.movieflix.movieApi.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class MovieReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(MovieReactiveApplication.class, args);
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.movieflix.movieApi.reactive.config;
+
+import com.movieflix.movieApi.exceptions.MovieNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(MovieNotFoundException.class)
+    public ProblemDetail handleMovieNotFoundException(MovieNotFoundException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package com.movieflix.movieApi.reactive.config;
+
+import com.movieflix.movieApi.reactive.service.ReactiveJwtVerifier;
+import com.movieflix.movieApi.reactive.service.ReactiveTokenRevocationService;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// the read API accepts the same access tokens as the servlet module, checked without a user lookup
+@Component
+public class JwtAuthWebFilter implements WebFilter {
+
+    private final ReactiveJwtVerifier jwtVerifier;
+    private final ReactiveTokenRevocationService tokenRevocationService;
+
+    public JwtAuthWebFilter(ReactiveJwtVerifier jwtVerifier, ReactiveTokenRevocationService tokenRevocationService) {
+        this.jwtVerifier = jwtVerifier;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+            return reject(exchange);
+        }
+
+        // verifying checks the signature and expiry, a logged out token is refused by its jti, errors from the rest of the chain are not ours to map
+        return jwtVerifier.verify(authHeader.substring(7))
+                .map(claims -> claims.getSubject() != null && !tokenRevocationService.isRevoked(claims.getId()))
+                .onErrorResume(e -> e instanceof JwtException || e instanceof IllegalArgumentException, e -> Mono.just(false))
+                .flatMap(valid -> valid ? chain.filter(exchange) : reject(exchange));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,47 @@
+package com.movieflix.movieApi.reactive.contollers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@RestController
+@RequestMapping("/file/")
+public class ReactiveFileController {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Value("${project.poster}")
+    private String path;
+
+    @GetMapping("/{fileName}")
+    public ResponseEntity<Flux<DataBuffer>> serveFileHandler(@PathVariable String fileName) {
+        Path posterDir = Paths.get(path).toAbsolutePath().normalize();
+        Path poster = posterDir.resolve(fileName).normalize();
+        if(!poster.startsWith(posterDir)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file name: " + fileName);
+        }
+
+        // read through an AsynchronousFileChannel, each buffer is released once written to the socket
+        Flux<DataBuffer> body = DataBufferUtils.read(poster, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE)
+                .onErrorMap(NoSuchFileException.class,
+                        e -> new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found: " + fileName));
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.IMAGE_PNG)
+                             .body(body);
+    }
+}
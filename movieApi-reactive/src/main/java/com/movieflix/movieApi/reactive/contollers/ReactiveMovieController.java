@@ -0,0 +1,50 @@
+package com.movieflix.movieApi.reactive.contollers;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.reactive.service.ReactiveMovieService;
+import com.movieflix.movieApi.utils.AppConstants;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/movie")
+public class ReactiveMovieController {
+
+    private final ReactiveMovieService movieService;
+
+    public ReactiveMovieController(ReactiveMovieService movieService) {
+        this.movieService = movieService;
+    }
+
+    @GetMapping("/{movieId}")
+    public Mono<MovieDto> getMovieHandler(@PathVariable Integer movieId){
+        return movieService.getMovie(movieId);
+    }
+
+    // streamed as newline delimited JSON so the client's demand drives how fast rows are read
+    @GetMapping(value = "/allMovies", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieDto> getMoviesHandler(){
+        return movieService.getAllMovies();
+    }
+
+    @GetMapping("/allMoviesPaginated")
+    public Mono<MoviePageResponse> getMoviesWithPaginationHandler(
+            @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize
+    ){
+        return movieService.getAllMoviesWithPaginationAndSorting(pageNumber, pageSize, AppConstants.SORT_BY, AppConstants.SORT_DIR);
+    }
+
+    @GetMapping("/allMoviesPaginatedAndSorted")
+    public Mono<MoviePageResponse> getMoviesWithPaginationAndSortingHandler(
+            @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(defaultValue = AppConstants.SORT_BY, required = false) String sortBy,
+            @RequestParam(defaultValue = AppConstants.SORT_DIR, required = false) String dir
+    ){
+        return movieService.getAllMoviesWithPaginationAndSorting(pageNumber, pageSize, sortBy, dir);
+    }
+}
@@ -0,0 +1,5 @@
+package com.movieflix.movieApi.reactive.entities;
+
+// one cast member of a movie, read from 'movie_person' joined to 'person'
+public record CastRow(Integer movieId, String name) {
+}
@@ -0,0 +1,10 @@
+package com.movieflix.movieApi.reactive.entities;
+
+// read-only view of the 'movie' table written by the servlet module's Movie entity
+public record MovieRow(Integer movieId,
+                       String title,
+                       String director,
+                       String studio,
+                       Integer releaseYear,
+                       String poster) {
+}
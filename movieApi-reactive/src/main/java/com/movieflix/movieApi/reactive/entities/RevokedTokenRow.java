@@ -0,0 +1,9 @@
+package com.movieflix.movieApi.reactive.entities;
+
+import java.time.Instant;
+
+// an access token revoked before its expiry, written to 'revoked_token' by the servlet module
+public record RevokedTokenRow(String tokenId,
+                              Instant expirationTime,
+                              Instant revokedAt) {
+}
@@ -0,0 +1,9 @@
+package com.movieflix.movieApi.reactive.entities;
+
+import java.time.Instant;
+
+// the public half of a key in 'signing_key', which the servlet module writes and rotates
+public record SigningKeyRow(String kid,
+                            byte[] publicKey,
+                            Instant expiresAt) {
+}
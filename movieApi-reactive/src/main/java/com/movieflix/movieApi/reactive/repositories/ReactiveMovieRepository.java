@@ -0,0 +1,80 @@
+package com.movieflix.movieApi.reactive.repositories;
+
+import com.movieflix.movieApi.reactive.entities.CastRow;
+import com.movieflix.movieApi.reactive.entities.MovieRow;
+import io.r2dbc.spi.Readable;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+@Repository
+public class ReactiveMovieRepository {
+
+    private static final String MOVIE_COLUMNS = "select movie_id, title, director, studio, release_year, poster from movie";
+
+    // the properties a page can be sorted by and their columns, nothing else reaches the order by clause
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "movieId", "movie_id",
+            "title", "title",
+            "director", "director",
+            "studio", "studio",
+            "releaseYear", "release_year",
+            "poster", "poster");
+
+    private final ReactiveQueries queries;
+
+    public ReactiveMovieRepository(ReactiveQueries queries) {
+        this.queries = queries;
+    }
+
+    public static boolean isSortable(String property) {
+        return SORT_COLUMNS.containsKey(property);
+    }
+
+    public Mono<MovieRow> findById(Integer movieId) {
+        return queries.query(MOVIE_COLUMNS + " where movie_id = ?", ReactiveMovieRepository::toMovieRow, movieId)
+                .next();
+    }
+
+    public Flux<MovieRow> findAllOrderByMovieId() {
+        return queries.query(MOVIE_COLUMNS + " order by movie_id", ReactiveMovieRepository::toMovieRow);
+    }
+
+    // the movie id breaks ties so that rows do not move between pages
+    public Flux<MovieRow> findPage(String sortBy, boolean ascending, int pageNumber, int pageSize) {
+        String direction = ascending ? "asc" : "desc";
+        String orderBy = SORT_COLUMNS.get(sortBy) + " " + direction
+                + (sortBy.equals("movieId") ? "" : ", movie_id " + direction);
+
+        return queries.query(MOVIE_COLUMNS + " order by " + orderBy + " limit ? offset ?",
+                ReactiveMovieRepository::toMovieRow, pageSize, (long) pageNumber * pageSize);
+    }
+
+    public Mono<Long> count() {
+        return queries.query("select count(*) from movie", row -> row.get(0, Long.class)).single();
+    }
+
+    public Flux<String> findCastByMovieId(Integer movieId) {
+        return queries.query("select p.name from movie_person mp join person p on p.person_id = mp.person_id where mp.movie_id = ?",
+                row -> row.get(0, String.class), movieId);
+    }
+
+    public Flux<CastRow> findCastByMovieIds(Collection<Integer> movieIds) {
+        return queries.query("select mp.movie_id, p.name from movie_person mp join person p on p.person_id = mp.person_id"
+                        + " where mp.movie_id in (" + ReactiveQueries.markers(movieIds) + ")",
+                row -> new CastRow(row.get(0, Integer.class), row.get(1, String.class)), movieIds.toArray());
+    }
+
+    private static MovieRow toMovieRow(Readable row) {
+        return new MovieRow(
+                row.get("movie_id", Integer.class),
+                row.get("title", String.class),
+                row.get("director", String.class),
+                row.get("studio", String.class),
+                row.get("release_year", Integer.class),
+                row.get("poster", String.class));
+    }
+}
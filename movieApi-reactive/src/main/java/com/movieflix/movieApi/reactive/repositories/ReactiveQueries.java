@@ -0,0 +1,47 @@
+package com.movieflix.movieApi.reactive.repositories;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs read-only statements over the R2DBC connection factory Spring Boot configures from
+ * {@code spring.r2dbc}. Each query borrows a connection that is closed once its rows are
+ * drained, the subscriber cancels or the statement fails.
+ * <p>
+ * Rows are emitted as the subscriber requests them, so a slow client holds the query back
+ * rather than having its rows buffered.
+ */
+@Component
+public class ReactiveQueries {
+
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveQueries(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public <T> Flux<T> query(String sql, Function<Readable, T> mapper, Object... parameters) {
+        return Flux.usingWhen(connectionFactory.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < parameters.length; i++) {
+                        statement.bind(i, parameters[i]);
+                    }
+                    return Flux.from(statement.execute()).concatMap(result -> result.map(mapper));
+                },
+                Connection::close);
+    }
+
+    // R2DBC has no collection binding, an in list gets one marker per value
+    public static String markers(Collection<?> values) {
+        return values.stream().map(value -> "?").collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,33 @@
+package com.movieflix.movieApi.reactive.repositories;
+
+import com.movieflix.movieApi.reactive.entities.RevokedTokenRow;
+import io.r2dbc.spi.Readable;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+@Repository
+public class ReactiveRevokedTokenRepository {
+
+    private static final String COLUMNS = "select token_id, expiration_time, revoked_at from revoked_token";
+
+    private final ReactiveQueries queries;
+
+    public ReactiveRevokedTokenRepository(ReactiveQueries queries) {
+        this.queries = queries;
+    }
+
+    public Flux<RevokedTokenRow> findByExpirationTimeAfter(Instant expirationTime) {
+        return queries.query(COLUMNS + " where expiration_time > ?", ReactiveRevokedTokenRepository::toRow, expirationTime);
+    }
+
+    public Flux<RevokedTokenRow> findByRevokedAtAfter(Instant revokedAt) {
+        return queries.query(COLUMNS + " where revoked_at > ?", ReactiveRevokedTokenRepository::toRow, revokedAt);
+    }
+
+    private static RevokedTokenRow toRow(Readable row) {
+        return new RevokedTokenRow(row.get("token_id", String.class), row.get("expiration_time", Instant.class),
+                row.get("revoked_at", Instant.class));
+    }
+}
@@ -0,0 +1,24 @@
+package com.movieflix.movieApi.reactive.repositories;
+
+import com.movieflix.movieApi.reactive.entities.SigningKeyRow;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+@Repository
+public class ReactiveSigningKeyRepository {
+
+    private final ReactiveQueries queries;
+
+    public ReactiveSigningKeyRepository(ReactiveQueries queries) {
+        this.queries = queries;
+    }
+
+    public Flux<SigningKeyRow> findByExpiresAtAfter(Instant expiresAt) {
+        return queries.query("select kid, public_key, expires_at from signing_key where expires_at > ?",
+                row -> new SigningKeyRow(row.get("kid", String.class), row.get("public_key", byte[].class),
+                        row.get("expires_at", Instant.class)),
+                expiresAt);
+    }
+}
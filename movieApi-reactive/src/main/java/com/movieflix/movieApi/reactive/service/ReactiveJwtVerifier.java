@@ -0,0 +1,126 @@
+package com.movieflix.movieApi.reactive.service;
+
+import com.movieflix.movieApi.reactive.entities.SigningKeyRow;
+import com.movieflix.movieApi.reactive.repositories.ReactiveSigningKeyRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies access tokens against the public keys in {@code signing_key}. The servlet module signs
+ * and rotates the keys, this module only reads them and never sees a private key.
+ * <p>
+ * The keys are reloaded every {@code check-interval}, a successor is published well before it
+ * signs. A token with an unknown kid triggers one early reload, at most once a second, before it
+ * is refused.
+ */
+@Slf4j
+@Service
+public class ReactiveJwtVerifier {
+
+    private static final long MIN_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReactiveSigningKeyRepository signingKeyRepository;
+
+    // thread safe, picks the verification key by the token's kid header
+    private final JwtParser parser;
+
+    private volatile Map<String, PublicKey> publicKeys = Map.of();
+    private final AtomicLong lastLoad = new AtomicLong(System.nanoTime() - MIN_RELOAD_NANOS);
+
+    public ReactiveJwtVerifier(ReactiveSigningKeyRepository signingKeyRepository) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = publicKeys.get(header.getKeyId());
+                        if(key == null){
+                            throw new UnknownKeyException("The token was signed with an unknown key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    // verifies the signature and expiry, errors with a JwtException when either fails
+    public Mono<Claims> verify(String token) {
+        return Mono.fromCallable(() -> parse(token))
+                .onErrorResume(UnknownKeyException.class, e -> reloadEarly().then(Mono.fromCallable(() -> parse(token))));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${project.jwt.check-interval:PT1M}", fixedDelayString = "${project.jwt.check-interval:PT1M}")
+    public void reload() {
+        lastLoad.set(System.nanoTime());
+        load().subscribe();
+    }
+
+    private Mono<Void> reloadEarly() {
+        long last = lastLoad.get();
+        long now = System.nanoTime();
+        if(now - last < MIN_RELOAD_NANOS || !lastLoad.compareAndSet(last, now)){
+            return Mono.empty();
+        }
+        return load();
+    }
+
+    private Mono<Void> load() {
+        return signingKeyRepository.findByExpiresAtAfter(Instant.now())
+                .collectList()
+                .doOnNext(rows -> {
+                    // keys already parsed are carried over, only new kids are parsed
+                    Map<String, PublicKey> previous = publicKeys;
+                    Map<String, PublicKey> loaded = new HashMap<>();
+                    for (SigningKeyRow row : rows) {
+                        PublicKey key = previous.get(row.kid());
+                        loaded.put(row.kid(), key != null ? key : parsePublic(row.publicKey()));
+                    }
+                    publicKeys = Map.copyOf(loaded);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Loading signing keys failed: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static PublicKey parsePublic(byte[] encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot parse a stored public key", e);
+        }
+    }
+
+    private static class UnknownKeyException extends SignatureException {
+        UnknownKeyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.movieflix.movieApi.reactive.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.exceptions.MovieNotFoundException;
+import com.movieflix.movieApi.reactive.entities.CastRow;
+import com.movieflix.movieApi.reactive.entities.MovieRow;
+import com.movieflix.movieApi.reactive.repositories.ReactiveMovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ReactiveMovieService {
+
+    // rows are pulled from the database in batches of this size while a stream is being consumed
+    private static final int STREAM_BATCH_SIZE = 64;
+
+    private final ReactiveMovieRepository movieRepository;
+
+    public ReactiveMovieService(ReactiveMovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    @Value("${base.url}")
+    private String baseUrl;
+
+    public Mono<MovieDto> getMovie(Integer movieId) {
+        //1. Fetch the movie row, fail if it does not exist
+        Mono<MovieRow> movie = movieRepository.findById(movieId)
+                .switchIfEmpty(Mono.error(() -> new MovieNotFoundException("Movie not found with ID:" + movieId)));
+
+        //2. Fetch its cast and map both to MovieDto
+        return movie.zipWith(movieRepository.findCastByMovieId(movieId).collect(HashSet<String>::new, Set::add),
+                this::toMovieDto);
+    }
+
+    public Flux<MovieDto> getAllMovies() {
+        // concatMap requests the next batch only when the subscriber has drained the previous one
+        return movieRepository.findAllOrderByMovieId()
+                .buffer(STREAM_BATCH_SIZE)
+                .concatMap(this::withCast);
+    }
+
+    public Mono<MoviePageResponse> getAllMoviesWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir) {
+        if(pageNumber < 0 || pageSize < 1){
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page number must not be negative and page size must be positive"));
+        }
+        if(!ReactiveMovieRepository.isSortable(sortBy)){
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Movies cannot be sorted by " + sortBy));
+        }
+
+        Mono<List<MovieDto>> movieDtos = movieRepository.findPage(sortBy, dir.equalsIgnoreCase("asc"), pageNumber, pageSize)
+                .collectList()
+                .flatMapMany(this::withCast)
+                .collectList();
+
+        return Mono.zip(movieDtos, movieRepository.count())
+                .map(page -> {
+                    long totalElements = page.getT2();
+                    int totalPages = (int) Math.ceil((double) totalElements / pageSize);
+                    return new MoviePageResponse(page.getT1(), pageNumber, pageSize, totalElements, totalPages,
+                            pageNumber + 1 >= totalPages);
+                });
+    }
+
+    // one cast query per batch of movies instead of one per movie
+    private Flux<MovieDto> withCast(List<MovieRow> movies) {
+        if(movies.isEmpty()){
+            return Flux.empty();
+        }
+        List<Integer> movieIds = movies.stream().map(MovieRow::movieId).toList();
+
+        return movieRepository.findCastByMovieIds(movieIds)
+                .collectMultimap(CastRow::movieId, CastRow::name)
+                .flatMapMany(cast -> Flux.fromIterable(movies).map(movie -> toMovieDto(movie, cast)));
+    }
+
+    private MovieDto toMovieDto(MovieRow movie, Map<Integer, Collection<String>> cast) {
+        return toMovieDto(movie, new HashSet<>(cast.getOrDefault(movie.movieId(), Set.of())));
+    }
+
+    private MovieDto toMovieDto(MovieRow movie, Set<String> movieCast) {
+        String posterUrl = baseUrl + "/file/" + movie.poster();
+
+        return new MovieDto(
+                movie.movieId(),
+                movie.title(),
+                movie.director(),
+                movie.studio(),
+                movieCast,
+                movie.releaseYear(),
+                movie.poster(),
+                posterUrl,
+                null
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package com.movieflix.movieApi.reactive.service;
+
+import com.movieflix.movieApi.reactive.repositories.ReactiveRevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only view of the access tokens the servlet module revoked before their expiry.
+ * <p>
+ * Loads the unexpired rows of {@code revoked_token} once ready and then polls for rows revoked
+ * since its last poll, with the same overlap as the servlet module so late commits and clock
+ * skew are covered. A logout therefore reaches this module within one poll interval.
+ */
+@Slf4j
+@Service
+public class ReactiveTokenRevocationService {
+
+    private final ReactiveRevokedTokenRepository revokedTokenRepository;
+    private final Duration pollOverlap;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    // a slow poll is not overlapped by the next one
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private volatile Instant lastPoll;
+
+    public ReactiveTokenRevocationService(ReactiveRevokedTokenRepository revokedTokenRepository,
+                                          @Value("${project.revocation.poll-overlap:PT10S}") Duration pollOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.pollOverlap = pollOverlap;
+    }
+
+    // tokens issued before jti claims existed carry no id and cannot be revoked
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${project.revocation.poll-interval:PT1S}")
+    public void poll() {
+        if(!polling.compareAndSet(false, true)){
+            return;
+        }
+        Instant now = Instant.now();
+        Instant since = lastPoll;
+
+        //1. The first poll loads every revocation that has not expired yet, later polls only the recent ones
+        (since == null
+                ? revokedTokenRepository.findByExpirationTimeAfter(now)
+                : revokedTokenRepository.findByRevokedAtAfter(since.minus(pollOverlap)))
+                .doOnNext(row -> revoked.put(row.tokenId(), row.expirationTime()))
+                .count()
+                .doOnNext(loaded -> {
+                    if(since == null){
+                        log.info("Loaded {} revoked access tokens", loaded);
+                    }
+                    lastPoll = now;
+                })
+                .doOnError(e -> log.warn("Polling revoked access tokens failed: {}", e.getMessage()))
+                .doFinally(signal -> polling.set(false))
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    // expired tokens are refused on their exp claim alone, so their entries can go
+    @Scheduled(fixedDelayString = "${project.revocation.rebuild-interval:PT10M}")
+    public void prune() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(expirationTime -> expirationTime.isBefore(now));
+    }
+}
@@ -0,0 +1,80 @@
+package com.movieflix.movieApi.reactive;
+
+import com.movieflix.movieApi.reactive.entities.RevokedTokenRow;
+import com.movieflix.movieApi.reactive.entities.SigningKeyRow;
+import com.movieflix.movieApi.reactive.repositories.ReactiveRevokedTokenRepository;
+import com.movieflix.movieApi.reactive.repositories.ReactiveSigningKeyRepository;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import reactor.core.publisher.Flux;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// stands in for the tables the servlet module writes, the key pair signs tokens the way the servlet module does
+@TestConfiguration
+public class ReactiveTestConfiguration {
+
+	public static final String REVOKED_TOKEN_ID = UUID.randomUUID().toString();
+
+	private static final String KID = UUID.randomUUID().toString();
+	private static final KeyPair KEY_PAIR = generateKeyPair();
+
+	public static String accessToken() {
+		return accessToken(UUID.randomUUID().toString());
+	}
+
+	public static String accessToken(String tokenId) {
+		return Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, KID)
+				.setSubject("viewer@movieflix.com")
+				.setId(tokenId)
+				.setIssuedAt(new Date())
+				.setExpiration(Date.from(Instant.now().plus(Duration.ofMinutes(15))))
+				.signWith(KEY_PAIR.getPrivate(), SignatureAlgorithm.ES256)
+				.compact();
+	}
+
+	@Bean
+	@Primary
+	ReactiveSigningKeyRepository testSigningKeyRepository() {
+		ReactiveSigningKeyRepository repository = mock(ReactiveSigningKeyRepository.class);
+		when(repository.findByExpiresAtAfter(any())).thenReturn(Flux.just(
+				new SigningKeyRow(KID, KEY_PAIR.getPublic().getEncoded(), Instant.now().plus(Duration.ofDays(1)))));
+		return repository;
+	}
+
+	@Bean
+	@Primary
+	ReactiveRevokedTokenRepository testRevokedTokenRepository() {
+		ReactiveRevokedTokenRepository repository = mock(ReactiveRevokedTokenRepository.class);
+		Instant expirationTime = Instant.now().plus(Duration.ofMinutes(15));
+		when(repository.findByExpirationTimeAfter(any())).thenReturn(Flux.just(
+				new RevokedTokenRow(REVOKED_TOKEN_ID, expirationTime, Instant.now())));
+		when(repository.findByRevokedAtAfter(any())).thenReturn(Flux.empty());
+		return repository;
+	}
+
+	private static KeyPair generateKeyPair() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+			generator.initialize(new ECGenParameterSpec("secp256r1"));
+			return generator.generateKeyPair();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
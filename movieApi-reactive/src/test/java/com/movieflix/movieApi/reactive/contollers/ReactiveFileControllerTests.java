@@ -0,0 +1,79 @@
+package com.movieflix.movieApi.reactive.contollers;
+
+import com.movieflix.movieApi.reactive.ReactiveTestConfiguration;
+import com.movieflix.movieApi.reactive.repositories.ReactiveMovieRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(ReactiveTestConfiguration.class)
+class ReactiveFileControllerTests {
+
+	private static final Path POSTERS = createPosterDirectory();
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@MockBean
+	private ReactiveMovieRepository movieRepository;
+
+	@DynamicPropertySource
+	static void posterDirectory(DynamicPropertyRegistry registry) {
+		registry.add("project.poster", POSTERS::toString);
+	}
+
+	@Test
+	void streamsAPosterLargerThanOneBuffer() throws IOException {
+		// several read buffers long, so the body is assembled from more than one DataBuffer
+		byte[] poster = new byte[100_000];
+		new Random(42).nextBytes(poster);
+		Files.write(POSTERS.resolve("large.png"), poster);
+
+		webTestClient.get().uri("/file/large.png")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.IMAGE_PNG)
+				.expectBody(byte[].class).isEqualTo(poster);
+	}
+
+	@Test
+	void missingPosterIsNotFound() {
+		webTestClient.get().uri("/file/missing.png")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void pathsOutsideThePosterDirectoryAreRefused() throws IOException {
+		Files.writeString(POSTERS.resolveSibling("secret.png"), "secret");
+
+		webTestClient.get().uri("/file/{fileName}", "../secret.png")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	private static Path createPosterDirectory() {
+		try {
+			return Files.createDirectory(Files.createTempDirectory("reactive-posters").resolve("posters"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.movieflix.movieApi.reactive.contollers;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.reactive.ReactiveTestConfiguration;
+import com.movieflix.movieApi.reactive.entities.CastRow;
+import com.movieflix.movieApi.reactive.entities.MovieRow;
+import com.movieflix.movieApi.reactive.repositories.ReactiveMovieRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(ReactiveTestConfiguration.class)
+class ReactiveMovieControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@MockBean
+	private ReactiveMovieRepository movieRepository;
+
+	@Test
+	void getMovieReturnsTheMovieWithItsCast() {
+		when(movieRepository.findById(1)).thenReturn(Mono.just(movieRow(1)));
+		when(movieRepository.findCastByMovieId(1)).thenReturn(Flux.just("Cillian Murphy", "Emily Blunt"));
+
+		webTestClient.get().uri("/api/v1/movie/1")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.title").isEqualTo("Movie 1")
+				.jsonPath("$.movieCast.length()").isEqualTo(2)
+				.jsonPath("$.posterUrl").isEqualTo("http://localhost:8080/file/movie-1.png");
+	}
+
+	@Test
+	void unknownMovieIsNotFound() {
+		when(movieRepository.findById(404)).thenReturn(Mono.empty());
+		when(movieRepository.findCastByMovieId(404)).thenReturn(Flux.empty());
+
+		webTestClient.get().uri("/api/v1/movie/404")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.detail").isEqualTo("Movie not found with ID:404");
+	}
+
+	@Test
+	void requestsWithoutAValidTokenAreRefused() {
+		webTestClient.get().uri("/api/v1/movie/1")
+				.exchange()
+				.expectStatus().isForbidden();
+
+		webTestClient.get().uri("/api/v1/movie/1")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken().replace('.', '!'))
+				.exchange()
+				.expectStatus().isForbidden();
+
+		webTestClient.get().uri("/api/v1/movie/1")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken(ReactiveTestConfiguration.REVOKED_TOKEN_ID))
+				.exchange()
+				.expectStatus().isForbidden();
+	}
+
+	@Test
+	void allMoviesStreamsAsNdjsonAndStopsReadingWhenTheClientCancels() throws InterruptedException {
+		// an endless table, the stream only ends because the client stops asking
+		AtomicLong emitted = new AtomicLong();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		when(movieRepository.findAllOrderByMovieId()).thenReturn(Flux.<MovieRow, Integer>generate(() -> 1, (id, sink) -> {
+					sink.next(movieRow(id));
+					return id + 1;
+				})
+				.doOnNext(row -> emitted.incrementAndGet())
+				.doOnCancel(() -> cancelled.set(true)));
+		when(movieRepository.findCastByMovieIds(anyCollection())).thenReturn(Flux.just(new CastRow(1, "Cillian Murphy")));
+
+		List<MovieDto> movies = webTestClient.get().uri("/api/v1/movie/allMovies")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.returnResult(MovieDto.class)
+				.getResponseBody()
+				.take(100)
+				.collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertThat(movies).extracting(MovieDto::getMovieId).startsWith(1, 2, 3).hasSize(100);
+		assertThat(movies.get(0).getMovieCast()).containsExactly("Cillian Murphy");
+
+		for (int i = 0; i < 100 && !cancelled.get(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat(cancelled).isTrue();
+		long emittedAtCancel = emitted.get();
+		Thread.sleep(200);
+		assertThat(emitted.get()).isEqualTo(emittedAtCancel);
+	}
+
+	@Test
+	void paginatedListingReadsOnePageAndTheCount() {
+		when(movieRepository.findPage(eq("title"), eq(false), anyInt(), anyInt())).thenReturn(Flux.just(movieRow(7), movieRow(6)));
+		when(movieRepository.count()).thenReturn(Mono.just(5L));
+		when(movieRepository.findCastByMovieIds(anyCollection())).thenReturn(Flux.empty());
+
+		webTestClient.get().uri("/api/v1/movie/allMoviesPaginatedAndSorted?pageNumber=1&pageSize=2&sortBy=title&dir=desc")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.movieDtos[0].movieId").isEqualTo(7)
+				.jsonPath("$.totalElements").isEqualTo(5)
+				.jsonPath("$.totalPages").isEqualTo(3)
+				.jsonPath("$.isLast").isEqualTo(false);
+
+		webTestClient.get().uri("/api/v1/movie/allMoviesPaginatedAndSorted?sortBy=password")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + ReactiveTestConfiguration.accessToken())
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	private static MovieRow movieRow(int id) {
+		return new MovieRow(id, "Movie " + id, "Director", "Studio", 2000, "movie-" + id + ".png");
+	}
+}
@@ -0,0 +1,63 @@
+package com.movieflix.movieApi.reactive.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.reactive.entities.CastRow;
+import com.movieflix.movieApi.reactive.entities.MovieRow;
+import com.movieflix.movieApi.reactive.repositories.ReactiveMovieRepository;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveMovieServiceTests {
+
+	private static final int STREAM_BATCH_SIZE = 64;
+
+	@Test
+	void streamingAllMoviesReadsRowsOnlyAsTheSubscriberAsks() {
+		ReactiveMovieRepository movieRepository = mock(ReactiveMovieRepository.class);
+		AtomicLong requested = new AtomicLong();
+		when(movieRepository.findAllOrderByMovieId()).thenReturn(Flux.range(1, 10_000)
+				.map(id -> new MovieRow(id, "Movie " + id, "Director", "Studio", 2000, "movie-" + id + ".png"))
+				.doOnRequest(requested::addAndGet));
+		when(movieRepository.findCastByMovieIds(anyCollection())).thenReturn(Flux.just(new CastRow(1, "Cillian Murphy")));
+
+		ReactiveMovieService movieService = new ReactiveMovieService(movieRepository);
+		ReflectionTestUtils.setField(movieService, "baseUrl", "http://localhost:8080");
+
+		List<MovieDto> received = new ArrayList<>();
+		BaseSubscriber<MovieDto> subscriber = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				request(1);
+			}
+
+			@Override
+			protected void hookOnNext(MovieDto movie) {
+				received.add(movie);
+			}
+		};
+		movieService.getAllMovies().subscribe(subscriber);
+
+		// only the batch being emitted has been read
+		assertThat(received).hasSize(1);
+		assertThat(requested.get()).isEqualTo(STREAM_BATCH_SIZE);
+
+		subscriber.request(STREAM_BATCH_SIZE * 3);
+		assertThat(received).hasSize(1 + STREAM_BATCH_SIZE * 3);
+		assertThat(requested.get()).isLessThanOrEqualTo(4 * STREAM_BATCH_SIZE);
+		assertThat(received.get(0).getMovieCast()).containsExactly("Cillian Murphy");
+
+		subscriber.dispose();
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Drives the same read endpoints of the servlet API and the reactive read API at a fixed number
+ * of concurrent clients and reports throughput and latency percentiles for each. Both
+ * applications must be running against the same MySQL database with some movies in it.
+ *
+ *   ./mvnw spring-boot:run                                   (servlet API on 8080)
+ *   (cd movieApi-reactive && ../mvnw spring-boot:run)        (reactive API on 8081)
+ *   java scripts/ReadApiBenchmark.java <access token> [concurrency] [seconds]
+ *
+ * The access token comes from /api/v1/auth/login and is accepted by both. SERVLET_URL,
+ * REACTIVE_URL and MOVIE_ID override the defaults below. Requests shed by the servlet API's
+ * concurrency limit are counted as failures rather than timed.
+ */
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ReadApiBenchmark {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private record Result(long[] nanos, int count, int failures) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: java scripts/ReadApiBenchmark.java <access token> [concurrency] [seconds]");
+            System.exit(2);
+        }
+        String token = args[0];
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        String movieId = System.getenv().getOrDefault("MOVIE_ID", "1");
+
+        List<String> paths = List.of("/api/v1/movie/" + movieId, "/api/v1/movie/allMoviesPaginated?pageNumber=0&pageSize=20");
+        String[][] targets = {
+                {"servlet", System.getenv().getOrDefault("SERVLET_URL", "http://localhost:8080")},
+                {"reactive", System.getenv().getOrDefault("REACTIVE_URL", "http://localhost:8081")}
+        };
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        System.out.printf("%d concurrent clients, %d s per run%n", concurrency, duration.toSeconds());
+        for (String path : paths) {
+            for (String[] target : targets) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(target[1] + path))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                run(client, request, concurrency, WARM_UP);
+                Result result = run(client, request, concurrency, duration);
+                report(target[0], path, result, duration);
+            }
+        }
+    }
+
+    // every client sends its next request as soon as the previous one has been answered
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] nanos = new long[1024];
+                    int count = 0;
+                    int failures = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures++;
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            failures++;
+                            continue;
+                        }
+                        if (count == nanos.length) {
+                            nanos = Arrays.copyOf(nanos, count * 2);
+                        }
+                        nanos[count++] = System.nanoTime() - start;
+                    }
+                    return new Result(nanos, count, failures);
+                }));
+            }
+        }
+
+        int count = 0;
+        int failures = 0;
+        for (Future<Result> future : clients) {
+            count += future.get().count();
+            failures += future.get().failures();
+        }
+        long[] nanos = new long[count];
+        int offset = 0;
+        for (Future<Result> future : clients) {
+            Result result = future.get();
+            System.arraycopy(result.nanos(), 0, nanos, offset, result.count());
+            offset += result.count();
+        }
+        Arrays.sort(nanos);
+        return new Result(nanos, count, failures);
+    }
+
+    private static void report(String target, String path, Result result, Duration duration) {
+        System.out.printf("%-8s %-55s %8.0f req/s  p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms  failed %d%n",
+                target, path, result.count() / (double) duration.toSeconds(),
+                percentile(result, 0.50), percentile(result, 0.99), percentile(result, 1.0), result.failures());
+    }
+
+    private static double percentile(Result result, double fraction) {
+        if (result.count() == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(result.count() - 1, Math.ceil(fraction * result.count()) - 1);
+        return result.nanos()[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Reports time to first successful request (200 from /actuator/health) for the default
+# and fast-startup launches. Needs the MySQL database from application.yml to be running.
+#
+#   ./mvnw -Pfast-startup package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+TARGET=$(cd "$(dirname "$0")/../target" && pwd)
+NAME=movieApi-0.0.1-SNAPSHOT
+
+default_mode() {
+  "$JAVA" -jar "$TARGET/$NAME-exec.jar"
+}
+
+fast_mode() {
+  "$JAVA" -XX:SharedArchiveFile="$TARGET/$NAME.jsa" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=prod -jar "$TARGET/$NAME.jar"
+}
+
+# prints the milliseconds from launch until the health endpoint first answers 200
+measure() {
+  local start pid status
+  start=$(date +%s%N)
+  (cd "$TARGET" && "$1" > /dev/null 2>&1) &
+  pid=$!
+  until status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health") && [ "$status" = 200 ]; do
+    kill -0 "$pid" 2> /dev/null || { echo "$1 exited before becoming ready" >&2; return 1; }
+    sleep 0.05
+  done
+  echo $(( ($(date +%s%N) - start) / 1000000 ))
+  pkill -P "$pid" || true
+  wait "$pid" 2> /dev/null || true
+}
+
+for mode in default_mode fast_mode; do
+  results=()
+  for _ in $(seq "$RUNS"); do
+    results+=("$(measure "$mode")")
+  done
+  sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+  echo "${mode%_mode}: median ${sorted[$(( RUNS / 2 ))]} ms over $RUNS runs (${results[*]})"
+done
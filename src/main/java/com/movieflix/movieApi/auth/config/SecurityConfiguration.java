@@ -25,8 +25,10 @@ public class SecurityConfiguration {
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
-            .authorizeHttpRequests(auth -> auth.requestMatchers("/api/v1/auth/**", "/forgotPassword/**")
+            .authorizeHttpRequests(auth -> auth.requestMatchers("/api/v1/auth/**", "/forgotPassword/**", "/.well-known/jwks.json", "/actuator/health")
                                                .permitAll()
+                                               .requestMatchers("/actuator/slowqueries")
+                                               .hasAuthority("ADMIN")
                                                .anyRequest()
                                                .authenticated())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
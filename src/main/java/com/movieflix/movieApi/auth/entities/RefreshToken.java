@@ -1,7 +1,6 @@
 package com.movieflix.movieApi.auth.entities;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -9,7 +8,13 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
+// one device's session, its current refresh token is only kept as a SHA-256 digest
 @Entity
+@Table(indexes = {
+        @Index(columnList = "tokenHash", unique = true),
+        @Index(columnList = "familyId", unique = true),
+        @Index(columnList = "expirationTime")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,14 +25,17 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer tokenId;
 
-    @Column(nullable = false, length = 500)
-    @NotBlank(message = "Please enter a refresh token value!")
-    private String refreshToken;
+    // every token the session rotates through starts with this id
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false, length = 32)
+    private byte[] tokenHash;
 
     @Column(nullable = false)
     private Instant expirationTime;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     private User user;
 
 }
@@ -0,0 +1,42 @@
+package com.movieflix.movieApi.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// the digest of a refresh token its session has rotated past, presenting it again means it was copied
+@Entity
+@Table(indexes = @Index(columnList = "expirationTime"))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class RetiredRefreshToken implements Persistable<byte[]> {
+
+    @Id
+    @Column(length = 32)
+    private byte[] tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    // the session's expiry when the token was retired, a replay after it cannot revoke anything
+    @Column(nullable = false)
+    private Instant expirationTime;
+
+    @Override
+    public byte[] getId() {
+        return tokenHash;
+    }
+
+    // rows are only ever inserted, so saving must not look for an existing one first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.movieflix.movieApi.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// an access token revoked before its expiry, the row can go once expirationTime has passed
+@Entity
+@Table(indexes = {@Index(columnList = "expirationTime"), @Index(columnList = "revokedAt")})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class RevokedToken implements Persistable<String> {
+
+    // the token's jti claim
+    @Id
+    @Column(length = 36)
+    private String tokenId;
+
+    @Column(nullable = false)
+    private Instant expirationTime;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+
+    @Override
+    public String getId() {
+        return tokenId;
+    }
+
+    // rows are only ever inserted, so saving must not look for an existing one first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
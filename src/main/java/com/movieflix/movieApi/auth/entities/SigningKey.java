@@ -0,0 +1,56 @@
+package com.movieflix.movieApi.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// an ES256 key pair, signs from activatesAt, is replaced at retiresAt and verifies until expiresAt
+@Entity
+@Table(indexes = @Index(columnList = "expiresAt"))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class SigningKey implements Persistable<String> {
+
+    // the JWT header's kid
+    @Id
+    @Column(length = 36)
+    private String kid;
+
+    // X.509 SubjectPublicKeyInfo
+    @Column(nullable = false, length = 512)
+    private byte[] publicKey;
+
+    // PKCS#8
+    @Column(nullable = false, length = 512)
+    private byte[] privateKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant activatesAt;
+
+    @Column(nullable = false)
+    private Instant retiresAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Override
+    public String getId() {
+        return kid;
+    }
+
+    // keys are never changed once written, only inserted and later deleted
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
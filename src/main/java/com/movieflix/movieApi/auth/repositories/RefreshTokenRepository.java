@@ -1,11 +1,34 @@
 package com.movieflix.movieApi.auth.repositories;
 
 import com.movieflix.movieApi.auth.entities.RefreshToken;
+import com.movieflix.movieApi.auth.utils.RefreshTokenSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
 
-    Optional<RefreshToken> findByRefreshToken(String refreshToken);
+    @Query("select new com.movieflix.movieApi.auth.utils.RefreshTokenSession(r.tokenId, r.familyId, r.expirationTime, u.email) " +
+           "from RefreshToken r join r.user u where r.tokenHash = ?1")
+    Optional<RefreshTokenSession> findSessionByTokenHash(byte[] tokenHash);
+
+    // replaces the digest only if no concurrent refresh replaced it first
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken r set r.tokenHash = ?3, r.expirationTime = ?4 where r.tokenId = ?1 and r.tokenHash = ?2")
+    int rotate(Integer tokenId, byte[] currentHash, byte[] nextHash, Instant expirationTime);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.familyId = ?1")
+    int deleteByFamilyId(String familyId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.expirationTime < ?1")
+    int deleteExpiredBefore(Instant expirationTime);
 }
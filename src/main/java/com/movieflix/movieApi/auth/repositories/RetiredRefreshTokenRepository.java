@@ -0,0 +1,21 @@
+package com.movieflix.movieApi.auth.repositories;
+
+import com.movieflix.movieApi.auth.entities.RetiredRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RetiredRefreshTokenRepository extends JpaRepository<RetiredRefreshToken, byte[]> {
+
+    @Query("select r.familyId from RetiredRefreshToken r where r.tokenHash = ?1")
+    Optional<String> findFamilyIdByTokenHash(byte[] tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RetiredRefreshToken r where r.expirationTime < ?1")
+    int deleteExpiredBefore(Instant expirationTime);
+}
@@ -0,0 +1,28 @@
+package com.movieflix.movieApi.auth.repositories;
+
+import com.movieflix.movieApi.auth.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // its own transaction, so a duplicate key fails this insert alone and not the caller's transaction
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends RevokedToken> S saveAndFlush(S entity);
+
+    List<RevokedToken> findByExpirationTimeAfter(Instant expirationTime);
+
+    List<RevokedToken> findByRevokedAtAfter(Instant revokedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken t where t.expirationTime < ?1")
+    int deleteExpiredBefore(Instant expirationTime);
+}
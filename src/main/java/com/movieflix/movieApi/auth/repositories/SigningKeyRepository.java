@@ -0,0 +1,20 @@
+package com.movieflix.movieApi.auth.repositories;
+
+import com.movieflix.movieApi.auth.entities.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findByExpiresAtAfter(Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SigningKey k where k.expiresAt < ?1")
+    int deleteExpiredBefore(Instant now);
+}
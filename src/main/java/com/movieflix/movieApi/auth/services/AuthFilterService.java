@@ -1,6 +1,7 @@
 package com.movieflix.movieApi.auth.services;
 
 import com.movieflix.movieApi.auth.services.JwtService;
+import io.jsonwebtoken.Claims;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,13 +20,19 @@ import java.io.IOException;
 @Service
 public class AuthFilterService extends OncePerRequestFilter {
 
+    // request attribute naming the authenticated user, read by the access log after the security context is cleared
+    public static final String AUTHENTICATED_USER = AuthFilterService.class.getName() + ".user";
+
     private final JwtService jwtService;
 
     private final UserDetailsService userDetailsService;
 
-    public AuthFilterService(JwtService jwtService, UserDetailsService userDetailsService) {
+    private final TokenRevocationService tokenRevocationService;
+
+    public AuthFilterService(JwtService jwtService, UserDetailsService userDetailsService, TokenRevocationService tokenRevocationService) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -45,12 +52,15 @@ public class AuthFilterService extends OncePerRequestFilter {
         //extract JWT
         jwt = authHeader.substring(7);
 
-        //extract username from JWT
-        username = jwtService.extractUsername(jwt);
+        //verify the signature once, then read username and jti from the claims
+        Claims claims = jwtService.extractAllClaims(jwt);
+        username = claims.getSubject();
 
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null){
+        //a revoked token is checked in memory before the user is loaded, and is treated like no token at all
+        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !tokenRevocationService.isRevoked(claims.getId())){
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if(jwtService.isTokenValid(jwt, userDetails)){
+            if(jwtService.isTokenValid(claims, userDetails)){
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -62,6 +72,7 @@ public class AuthFilterService extends OncePerRequestFilter {
                 );
 
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                request.setAttribute(AUTHENTICATED_USER, userDetails.getUsername());
             }
         }
 
@@ -6,12 +6,18 @@ import com.movieflix.movieApi.auth.repositories.UserRepository;
 import com.movieflix.movieApi.auth.utils.AuthResponse;
 import com.movieflix.movieApi.auth.utils.LoginRequest;
 import com.movieflix.movieApi.auth.utils.RegisterRequest;
+import com.movieflix.movieApi.exceptions.InvalidTokenException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -22,8 +28,10 @@ public class AuthService {
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
 
 
+    @Transactional
     public AuthResponse register(RegisterRequest registerRequest)  {
         var user = User.builder()
                 .name(registerRequest.getName())
@@ -34,28 +42,50 @@ public class AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
-        var accessToken = jwtService.generateToken(savedUser);
-        var refreshToken = refreshTokenService.createRefreshToken(savedUser.getEmail());
+        var refreshToken = refreshTokenService.createRefreshToken(savedUser);
+        var accessToken = jwtService.generateToken(Map.of(JwtService.SESSION_ID, refreshToken.familyId()), savedUser);
 
         return AuthResponse.builder()
                            .accessToken(accessToken)
-                           .refreshToken(refreshToken.getRefreshToken())
+                           .refreshToken(refreshToken.refreshToken())
                            .build();
     }
 
+    @Transactional
     public AuthResponse login(LoginRequest loginRequest){
-        authenticationManager.authenticate(
+        // the principal is the User already loaded by the UserDetailsService, so reuse it
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
         );
 
-        var user = userRepository.findByEmail(loginRequest.getEmail())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found!"));
-        var accessToken = jwtService.generateToken(user);
-        var refreshToken = refreshTokenService.createRefreshToken(loginRequest.getEmail());
+        var user = (User) authentication.getPrincipal();
+        var refreshToken = refreshTokenService.createRefreshToken(user);
+        var accessToken = jwtService.generateToken(Map.of(JwtService.SESSION_ID, refreshToken.familyId()), user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getRefreshToken())
+                .refreshToken(refreshToken.refreshToken())
                 .build();
     }
+
+    @Transactional
+    public void logout(String accessToken) {
+        //1. Only a token this server signed and that has not expired yet needs revoking
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(accessToken);
+        } catch (JwtException e) {
+            throw new InvalidTokenException("The access token is invalid or has already expired.");
+        }
+        if(claims.getId() == null){
+            throw new InvalidTokenException("The access token has no id and cannot be revoked.");
+        }
+
+        //2. Refuse the access token until it expires, and end the device session behind it
+        tokenRevocationService.revoke(claims.getId(), claims.getExpiration().toInstant());
+        String sessionId = claims.get(JwtService.SESSION_ID, String.class);
+        if(sessionId != null){
+            refreshTokenService.revokeFamily(sessionId);
+        }
+    }
 }
@@ -0,0 +1,254 @@
+package com.movieflix.movieApi.auth.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieflix.movieApi.auth.entities.SigningKey;
+import com.movieflix.movieApi.auth.repositories.SigningKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ES256 keys that sign and verify access tokens, shared by every node through {@code signing_key}.
+ * <p>
+ * Each key signs for {@code rotation-interval}. Its successor is written {@code publish-ahead} before
+ * it takes over, so verifiers that cache the JWK set already know the new kid by the time tokens
+ * carry it. A replaced key stays in the set for {@code verify-overlap} so the tokens it signed
+ * keep verifying until they expire. Several keys are therefore live at once and tokens name theirs
+ * in the {@code kid} header.
+ * <p>
+ * The keys are loaded into an immutable snapshot. It holds the parsed signing key, the public keys
+ * by kid and the serialised JWK set. Parsed keys are carried over between reloads, so reloading
+ * re-parses only new keys. A token with an unknown kid triggers one early reload, at most once a
+ * second, for a key another node wrote since the last scheduled check.
+ */
+@Slf4j
+@Service
+public class JwtKeyRing {
+
+    private static final long MIN_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration verifyOverlap;
+
+    private volatile Ring ring;
+    private volatile long lastLoad = System.nanoTime() - MIN_RELOAD_NANOS;
+
+    public JwtKeyRing(SigningKeyRepository signingKeyRepository, ObjectMapper objectMapper,
+                      @Value("${project.jwt.rotation-interval:P1D}") Duration rotationInterval,
+                      @Value("${project.jwt.publish-ahead:PT10M}") Duration publishAhead,
+                      @Value("${project.jwt.verify-overlap:PT1H}") Duration verifyOverlap) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.objectMapper = objectMapper;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.verifyOverlap = verifyOverlap;
+    }
+
+    public record Signer(String kid, PrivateKey key) {
+    }
+
+    private record Ring(Signer signer, Map<String, PublicKey> publicKeys, byte[] jwks, String eTag) {
+    }
+
+    public Signer signer() {
+        return current().signer();
+    }
+
+    // null when the kid is not one of ours, even after a reload
+    public PublicKey publicKey(String kid) {
+        PublicKey key = current().publicKeys().get(kid);
+        if(key == null && kid != null && System.nanoTime() - lastLoad >= MIN_RELOAD_NANOS){
+            reload(Instant.now());
+            key = current().publicKeys().get(kid);
+        }
+        return key;
+    }
+
+    // the JWK set of every key that may still verify a token, serialised once per reload
+    public byte[] jwks() {
+        return current().jwks();
+    }
+
+    public String jwksETag() {
+        return current().eTag();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${project.jwt.check-interval:PT1M}", fixedDelayString = "${project.jwt.check-interval:PT1M}")
+    public void rotate() {
+        rotate(Instant.now());
+    }
+
+    synchronized void rotate(Instant now) {
+        try {
+            //1. The keys every node signs and verifies with
+            List<SigningKey> keys = new ArrayList<>(signingKeyRepository.findByExpiresAtAfter(now));
+
+            //2. Publish a successor once no key is left to sign past the publish-ahead window
+            if(keys.stream().noneMatch(key -> key.getRetiresAt().isAfter(now.plus(publishAhead)))){
+                SigningKey successor = generate(now, keys.isEmpty() ? now : now.plus(publishAhead));
+                signingKeyRepository.save(successor);
+                keys.add(successor);
+                log.info("Published signing key {}, it signs from {}", successor.getKid(), successor.getActivatesAt());
+            }
+
+            //3. Keys past their overlap can no longer verify anything
+            signingKeyRepository.deleteExpiredBefore(now);
+            ring = build(keys, now);
+            lastLoad = System.nanoTime();
+        } catch (DataAccessException e) {
+            log.warn("Rotating signing keys failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void reload(Instant now) {
+        if(System.nanoTime() - lastLoad < MIN_RELOAD_NANOS){
+            return;
+        }
+        lastLoad = System.nanoTime();
+        try {
+            List<SigningKey> keys = signingKeyRepository.findByExpiresAtAfter(now);
+            if(!keys.isEmpty()){
+                ring = build(keys, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Reloading signing keys failed: {}", e.getMessage());
+        }
+    }
+
+    private Ring current() {
+        Ring current = ring;
+        if(current == null){
+            // a request raced the ready event
+            rotate(Instant.now());
+            current = ring;
+            if(current == null){
+                throw new IllegalStateException("No signing key is available");
+            }
+        }
+        return current;
+    }
+
+    private Ring build(List<SigningKey> keys, Instant now) {
+        Ring previous = ring;
+        keys = keys.stream().sorted(Comparator.comparing(SigningKey::getActivatesAt)).toList();
+
+        //1. The most recently activated key signs, if the successor is not active yet its predecessor carries on
+        SigningKey signing = keys.stream()
+                .filter(key -> !key.getActivatesAt().isAfter(now))
+                .reduce((first, second) -> second)
+                .orElse(keys.get(0));
+        Signer signer = previous != null && previous.signer().kid().equals(signing.getKid())
+                ? previous.signer()
+                : new Signer(signing.getKid(), parsePrivate(signing.getPrivateKey()));
+
+        //2. Public keys by kid, parsed only the first time they are seen
+        Map<String, PublicKey> publicKeys = new HashMap<>();
+        List<Map<String, String>> jwks = new ArrayList<>(keys.size());
+        for (SigningKey key : keys) {
+            PublicKey publicKey = previous == null ? null : previous.publicKeys().get(key.getKid());
+            if(publicKey == null){
+                publicKey = parsePublic(key.getPublicKey());
+            }
+            publicKeys.put(key.getKid(), publicKey);
+            jwks.add(jwk(key.getKid(), (ECPublicKey) publicKey));
+        }
+
+        //3. The JWK set is served as these bytes until the next reload
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("keys", jwks));
+            return new Ring(signer, Map.copyOf(publicKeys), body, DigestUtils.md5DigestAsHex(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialise the JWK set", e);
+        }
+    }
+
+    private SigningKey generate(Instant now, Instant activatesAt) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            Instant retiresAt = activatesAt.plus(rotationInterval);
+            return SigningKey.builder()
+                    .kid(UUID.randomUUID().toString())
+                    .publicKey(pair.getPublic().getEncoded())
+                    .privateKey(pair.getPrivate().getEncoded())
+                    .createdAt(now)
+                    .activatesAt(activatesAt)
+                    .retiresAt(retiresAt)
+                    .expiresAt(retiresAt.plus(verifyOverlap))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a P-256 key pair", e);
+        }
+    }
+
+    // RFC 7518 section 6.2, coordinates are unsigned big-endian and padded to the field size
+    private static Map<String, String> jwk(String kid, ECPublicKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    private static PublicKey parsePublic(byte[] encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot parse a stored public key", e);
+        }
+    }
+
+    private static PrivateKey parsePrivate(byte[] encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot parse a stored private key", e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.movieflix.movieApi.auth.services;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -12,38 +14,54 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    private static final String SECRET_KEY = "BF7FD11ACE545745B7BA1AF98B6F156D127BC7BB544BAB6A4FD74E4FC7";
+    // claim naming the refresh token session an access token was issued for
+    public static final String SESSION_ID = "sid";
+
+    private final JwtKeyRing keyRing;
+
+    // thread safe, picks the verification key by the token's kid header
+    private final JwtParser parser;
+
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.publicKey(header.getKeyId());
+                        if(key == null){
+                            throw new SignatureException("The token was signed with an unknown key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     // extract username from JWT
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // extract the token's unique id (jti), under which it is revoked
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    // extract information from JWT
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    // decode and get the key
-    private Key getSignInKey() {
-        // decode SECRET_KEY
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // extract information from JWT, verifying its signature once
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
 
@@ -51,34 +69,43 @@ public class JwtService {
         return generateToken(new HashMap<>(), userDetails);
     }
 
-    // generate token using Jwt utility class and return token as String
     public String generateToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails
     ) {
+        return generateToken(extraClaims, userDetails.getUsername());
+    }
+
+    // generate token using Jwt utility class and return token as String
+    public String generateToken(
+            Map<String, Object> extraClaims,
+            String username
+    ) {
+        JwtKeyRing.Signer signer = keyRing.signer();
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signer.kid())
                 .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
+                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 25 * 1000))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signer.key(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
     // if token is valid by checking if token is expired for current user
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    // if token is expired
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // same check on claims that were already parsed
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     // get expiration date from token
-    private Date extractExpiration(String token) {
+    public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 }
\ No newline at end of file
@@ -1,59 +1,148 @@
 package com.movieflix.movieApi.auth.services;
 
 import com.movieflix.movieApi.auth.entities.RefreshToken;
+import com.movieflix.movieApi.auth.entities.RetiredRefreshToken;
 import com.movieflix.movieApi.auth.entities.User;
 import com.movieflix.movieApi.auth.repositories.RefreshTokenRepository;
+import com.movieflix.movieApi.auth.repositories.RetiredRefreshTokenRepository;
 import com.movieflix.movieApi.auth.repositories.UserRepository;
+import com.movieflix.movieApi.auth.utils.RefreshTokenSession;
+import com.movieflix.movieApi.exceptions.InvalidTokenException;
 import com.movieflix.movieApi.exceptions.RefreshTokenExpiredException;
-import com.movieflix.movieApi.exceptions.RefreshTokenNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Refresh tokens, one session per device, rotated on every use.
+ * <p>
+ * A token is {@code <familyId>.<32 random bytes>} and only its SHA-256 digest is stored, under a
+ * unique index, so a refresh is one point lookup and one conditional update. Every refresh hands
+ * out a new token and keeps the digest of the one presented in {@code retired_refresh_token}.
+ * Presenting a retired token means it was copied and already used by someone, so the whole session
+ * is revoked and both holders have to log in again. A token that matches no digest at all is only
+ * refused, the family id in it is no secret and must not be enough to end a session.
+ */
+@Slf4j
 @Service
 public class RefreshTokenService {
 
+    private static final long REFRESH_TOKEN_VALIDITY_MILLIS = 30 * 1000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RetiredRefreshTokenRepository retiredRefreshTokenRepository;
 
-    public RefreshTokenService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository) {
+    public RefreshTokenService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository,
+                               RetiredRefreshTokenRepository retiredRefreshTokenRepository) {
         this.userRepository = userRepository;
         this.refreshTokenRepository = refreshTokenRepository;
+        this.retiredRefreshTokenRepository = retiredRefreshTokenRepository;
     }
 
+    // the token itself is only ever held by the client, this is the one moment the server sees it in full
+    public record IssuedRefreshToken(String refreshToken, String familyId, String username) {
+    }
 
-    public RefreshToken createRefreshToken(String username) {
+    public IssuedRefreshToken createRefreshToken(String username) {
        User user =  userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not found with email: " + username));
 
-       RefreshToken refreshToken = user.getRefreshToken();
+       return createRefreshToken(user);
+    }
 
-       if(refreshToken == null){
-           long refreshTokenValidity = 30*1000;
-           refreshToken = RefreshToken.builder()
-                          .refreshToken(UUID.randomUUID().toString())
-                          .expirationTime(Instant.now().plusMillis(refreshTokenValidity))
-                          .user(user)
-                          .build();
+    // starts a new session, a user logged in on several devices has one each
+    public IssuedRefreshToken createRefreshToken(User user) {
+        String familyId = UUID.randomUUID().toString();
+        String refreshToken = newToken(familyId);
+        refreshTokenRepository.save(RefreshToken.builder()
+                                                .familyId(familyId)
+                                                .tokenHash(digest(refreshToken))
+                                                .expirationTime(Instant.now().plusMillis(REFRESH_TOKEN_VALIDITY_MILLIS))
+                                                .user(user)
+                                                .build());
+        return new IssuedRefreshToken(refreshToken, familyId, user.getUsername());
+    }
+
+    public IssuedRefreshToken rotateRefreshToken(String refreshToken) throws RefreshTokenExpiredException {
+        //1. One lookup on the unique digest index, reading the user's email along
+        byte[] hash = digest(refreshToken);
+        Optional<RefreshTokenSession> found = refreshTokenRepository.findSessionByTokenHash(hash);
+        if(found.isEmpty()){
+            retiredRefreshTokenRepository.findFamilyIdByTokenHash(hash).ifPresent(this::revokeReused);
+            throw new InvalidTokenException("Refresh Token not found!");
+        }
+
+        RefreshTokenSession session = found.get();
+        if(session.expirationTime().compareTo(Instant.now()) < 0){
+            refreshTokenRepository.deleteByFamilyId(session.familyId());
+            throw new RefreshTokenExpiredException("Refresh token expired!");
+        }
 
-           refreshTokenRepository.save(refreshToken);
-       }
+        //2. Swap in the next token, losing the race to a concurrent refresh with the same token is a reuse too
+        String next = newToken(session.familyId());
+        Instant expirationTime = Instant.now().plusMillis(REFRESH_TOKEN_VALIDITY_MILLIS);
+        if(refreshTokenRepository.rotate(session.tokenId(), hash, digest(next), expirationTime) == 0){
+            revokeReused(session.familyId());
+        }
 
-       return refreshToken;
+        //3. Remember the presented token, it is the only proof a later replay can be told from a guess
+        retiredRefreshTokenRepository.save(RetiredRefreshToken.builder()
+                                                              .tokenHash(hash)
+                                                              .familyId(session.familyId())
+                                                              .expirationTime(expirationTime)
+                                                              .build());
+        return new IssuedRefreshToken(next, session.familyId(), session.email());
     }
 
-    public RefreshToken verifyRefreshToken(String refreshToken) throws RefreshTokenNotFoundException, RefreshTokenExpiredException {
-        RefreshToken token = refreshTokenRepository.findByRefreshToken(refreshToken)
-                                                   .orElseThrow(() -> new RefreshTokenNotFoundException("Refresh Token not found!"));
+    // ends one device's session
+    public void revokeFamily(String familyId) {
+        refreshTokenRepository.deleteByFamilyId(familyId);
+    }
 
-        if(token.getExpirationTime().compareTo(Instant.now()) < 0){
-            refreshTokenRepository.delete(token);
-            throw new RefreshTokenExpiredException("Refresh token expired!");
+    @Scheduled(fixedDelayString = "${project.refresh-token.prune-interval:PT10M}")
+    public void pruneExpired() {
+        try {
+            Instant now = Instant.now();
+            int pruned = refreshTokenRepository.deleteExpiredBefore(now) + retiredRefreshTokenRepository.deleteExpiredBefore(now);
+            if(pruned > 0){
+                log.debug("Pruned {} expired refresh tokens", pruned);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Pruning expired refresh tokens failed: {}", e.getMessage());
         }
+    }
 
-        return token;
+    private void revokeReused(String familyId) {
+        refreshTokenRepository.deleteByFamilyId(familyId);
+        log.warn("Refresh token of session {} was used twice, the session is revoked", familyId);
+        throw new InvalidTokenException("The refresh token was already used, its session has been revoked.");
     }
 
+    private static String newToken(String familyId) {
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        return familyId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+    }
+
+    private static byte[] digest(String refreshToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(String.valueOf(refreshToken).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
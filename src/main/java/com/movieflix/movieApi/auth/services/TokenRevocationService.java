@@ -0,0 +1,136 @@
+package com.movieflix.movieApi.auth.services;
+
+import com.movieflix.movieApi.auth.entities.RevokedToken;
+import com.movieflix.movieApi.auth.repositories.RevokedTokenRepository;
+import com.movieflix.movieApi.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of access tokens revoked before their expiry.
+ * <p>
+ * Every request checks its token's jti against a Bloom filter first. A miss, which is almost
+ * every request, proves the token was never revoked, at the cost of one hash and a few bit
+ * reads. Only a hit consults the exact in-memory set. Revocations are written to
+ * {@code revoked_token}. Each node loads the unexpired rows at startup and then polls for rows
+ * revoked since its last poll, with an overlap that covers late commits and clock skew. The
+ * scheduled rebuild drops expired entries from the set and the table and rebuilds the filter,
+ * which also happens early if more entries arrive than the filter was sized for.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private final Duration pollOverlap;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    // swapping the filter and adding to it are serialised, so an add cannot land in a filter being replaced
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+    private volatile int filterCapacity;
+
+    // guarded by this
+    private Instant lastPoll;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${project.revocation.expected-revocations:10000}") int expectedRevocations,
+                                  @Value("${project.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${project.revocation.poll-overlap:PT10S}") Duration pollOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollOverlap = pollOverlap;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        this.filterCapacity = expectedRevocations;
+    }
+
+    // tokens issued before jti claims existed carry no id and cannot be revoked
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    // takes effect on this node at once, other nodes pick it up with their next poll
+    public void revoke(String tokenId, Instant expirationTime) {
+        if(revoked.containsKey(tokenId)){
+            return;
+        }
+        try {
+            revokedTokenRepository.saveAndFlush(new RevokedToken(tokenId, expirationTime, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            // another node revoked it first and this one has not polled it yet
+            log.debug("Access token {} was already revoked", tokenId);
+        }
+        remember(tokenId, expirationTime);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${project.revocation.poll-interval:PT1S}")
+    public synchronized void poll() {
+        Instant now = Instant.now();
+        try {
+            //1. A starting node loads every revocation that has not expired yet, later polls only the recent ones
+            List<RevokedToken> rows = lastPoll == null
+                    ? revokedTokenRepository.findByExpirationTimeAfter(now)
+                    : revokedTokenRepository.findByRevokedAtAfter(lastPoll.minus(pollOverlap));
+            rows.forEach(row -> remember(row.getTokenId(), row.getExpirationTime()));
+            if(lastPoll == null){
+                log.info("Loaded {} revoked access tokens", rows.size());
+            }
+            lastPoll = now;
+        } catch (DataAccessException e) {
+            log.warn("Polling revoked access tokens failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.revocation.rebuild-interval:PT10M}")
+    public void rebuild() {
+        //1. Expired tokens are refused on their exp claim alone, so their entries can go
+        Instant now = Instant.now();
+        revoked.values().removeIf(expirationTime -> expirationTime.isBefore(now));
+
+        //2. A fresh filter with room to spare, so false positives stay near the configured rate until the next rebuild
+        synchronized (filterLock) {
+            int capacity = Math.max(expectedRevocations, revoked.size() * 2);
+            BloomFilter fresh = new BloomFilter(capacity, falsePositiveRate);
+            revoked.keySet().forEach(fresh::put);
+            filter = fresh;
+            filterCapacity = capacity;
+        }
+
+        try {
+            int pruned = revokedTokenRepository.deleteExpiredBefore(now);
+            if(pruned > 0){
+                log.debug("Pruned {} expired token revocations", pruned);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Pruning expired token revocations failed: {}", e.getMessage());
+        }
+    }
+
+    private void remember(String tokenId, Instant expirationTime) {
+        if(revoked.putIfAbsent(tokenId, expirationTime) != null){
+            return;
+        }
+        synchronized (filterLock) {
+            filter.put(tokenId);
+        }
+        if(revoked.size() > filterCapacity){
+            rebuild();
+        }
+    }
+}
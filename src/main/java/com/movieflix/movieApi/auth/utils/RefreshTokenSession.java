@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.auth.utils;
+
+import java.time.Instant;
+
+// the columns a refresh needs, selected straight into a record so the user entity and its associations stay unloaded
+public record RefreshTokenSession(Integer tokenId, String familyId, Instant expirationTime, String email) {
+}
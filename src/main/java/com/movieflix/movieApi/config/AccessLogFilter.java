@@ -0,0 +1,46 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.auth.services.AuthFilterService;
+import com.movieflix.movieApi.service.AccessLog;
+import com.movieflix.movieApi.utils.QueryCountInspector;
+import io.micrometer.common.lang.NonNull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// runs just inside SqlBudgetFilter, which resets the statement count this filter reports
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLog accessLog;
+
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            // an exception escaping the chain becomes a 500 in the container
+            accessLog.access(request.getMethod(), request.getRequestURI(), failed ? 500 : response.getStatus(),
+                    System.nanoTime() - start, QueryCountInspector.count(),
+                    (String) request.getAttribute(AuthFilterService.AUTHENTICATED_USER));
+        }
+    }
+}
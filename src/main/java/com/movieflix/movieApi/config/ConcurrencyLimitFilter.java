@@ -0,0 +1,140 @@
+package com.movieflix.movieApi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieflix.movieApi.utils.AdaptiveLimit;
+import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sheds load before it reaches Tomcat's worker pool and the database.
+ * <p>
+ * Reads, admin writes, poster downloads and poster uploads each get an {@link AdaptiveLimit}, so a
+ * slow poster store cannot starve movie reads and a burst of reads cannot block admin writes.
+ * Uploads are paced by the client's connection, so their latency says nothing about the server
+ * and must not shrink the write limit. Within the read limit, ordinary reads may only fill
+ * {@code normal-share} of it, and the rest is kept for login, registration and token refresh.
+ * Writes and uploads reserve nothing for anyone else and may use their whole limit.
+ * A request over its limit is answered with 503 at once instead of queueing. Runs inside the
+ * access log filter so shed requests are logged, and ahead of authentication so shedding costs
+ * no token check or user lookup.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    enum Route { READ, WRITE, POSTER, UPLOAD }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double normalShare;
+    private final Map<Route, AdaptiveLimit> limits = new EnumMap<>(Route.class);
+    private final Map<Route, Counter> rejected = new EnumMap<>(Route.class);
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${project.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${project.concurrency-limit.initial-limit:50}") int initialLimit,
+                                  @Value("${project.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${project.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${project.concurrency-limit.tolerance:2.0}") double tolerance,
+                                  @Value("${project.concurrency-limit.smoothing:0.2}") double smoothing,
+                                  @Value("${project.concurrency-limit.window:PT0.1S}") Duration window,
+                                  @Value("${project.concurrency-limit.min-rtt-window:PT5M}") Duration minRttWindow,
+                                  @Value("${project.concurrency-limit.normal-share:0.8}") double normalShare) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.normalShare = normalShare;
+        for (Route route : Route.values()) {
+            AdaptiveLimit limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                    window.toNanos(), minRttWindow.toNanos());
+            String tag = route.name().toLowerCase(Locale.ROOT);
+            limits.put(route, limit);
+            rejected.put(route, meterRegistry.counter("http.concurrency.rejected", "route", tag));
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveLimit::limit).tag("route", tag).register(meterRegistry);
+            Gauge.builder("http.concurrency.in.flight", limit, AdaptiveLimit::inFlight).tag("route", tag).register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        //1. Pick the limit and how much of it this request may use
+        String path = request.getRequestURI();
+        Route route = route(request.getMethod(), path);
+        AdaptiveLimit limit = limits.get(route);
+        boolean priority = route == Route.WRITE || route == Route.UPLOAD || path.startsWith("/api/v1/auth/") || path.startsWith("/forgotPassword/");
+
+        if(!limit.tryAcquire(priority ? 1.0 : normalShare)){
+            rejected.get(route).increment();
+            reject(response);
+            return;
+        }
+
+        //2. Every admitted request reports its latency, errors included, since a failing database is slow too
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    static Route route(String method, String path) {
+        //1. Poster bytes, a GET of a poster that happens to be called 'upload' is still a download
+        if(path.startsWith("/file/")){
+            boolean upload = path.equals("/file/upload") || path.startsWith("/file/upload/")
+                    || path.equals("/file/uploads") || path.startsWith("/file/uploads/");
+            return upload && !method.equals("GET") ? Route.UPLOAD : Route.POSTER;
+        }
+
+        //2. Only the admin endpoints that change movies are writes, a filter search posts its criteria but only reads
+        return switch (method) {
+            case "POST" -> path.equals("/api/v1/movie/addMovie") ? Route.WRITE : Route.READ;
+            case "PUT" -> path.startsWith("/api/v1/movie/update/") ? Route.WRITE : Route.READ;
+            case "PATCH" -> path.startsWith("/api/v1/movie/") ? Route.WRITE : Route.READ;
+            case "DELETE" -> path.startsWith("/api/v1/movie/delete/") ? Route.WRITE : Route.READ;
+            default -> Route.READ;
+        };
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "The server is at its concurrency limit, retry shortly.");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    // exposed for tests that exhaust a limit
+    AdaptiveLimit limit(Route route) {
+        return limits.get(route);
+    }
+}
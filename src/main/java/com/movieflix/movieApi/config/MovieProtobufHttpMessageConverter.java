@@ -0,0 +1,116 @@
+package com.movieflix.movieApi.config;
+
+import com.google.protobuf.Message;
+import com.movieflix.movieApi.dto.MovieBatchResult;
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.dto.proto.MovieBatchResultListMessage;
+import com.movieflix.movieApi.dto.proto.MovieBatchResultMessage;
+import com.movieflix.movieApi.dto.proto.MovieListMessage;
+import com.movieflix.movieApi.dto.proto.MovieMessage;
+import com.movieflix.movieApi.dto.proto.MoviePageMessage;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+// writes MovieDto, List<MovieDto>, List<MovieBatchResult> and MoviePageResponse using the messages generated from movie.proto
+public class MovieProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public MovieProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MovieDto.class == clazz || MoviePageResponse.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if(List.class.isAssignableFrom(clazz)){
+            Class<?> elementType = elementType(type != null ? type : clazz);
+            return (MovieDto.class == elementType || MovieBatchResult.class == elementType) && canWrite(mediaType);
+        }
+        return supports(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        toMessage(body, type).writeTo(outputMessage.getBody());
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static Class<?> elementType(Type type) {
+        return ResolvableType.forType(type).asCollection().getGeneric().resolve();
+    }
+
+    private Message toMessage(Object body, Type type) {
+        if(body instanceof MovieDto movieDto){
+            return toMovieMessage(movieDto);
+        }
+        if(body instanceof MoviePageResponse page){
+            MoviePageMessage.Builder builder = MoviePageMessage.newBuilder()
+                    .setPageNumber(page.pageNumber())
+                    .setPageSize(page.pageSize())
+                    .setTotalElements(page.totalElements())
+                    .setTotalPages(page.totalPages())
+                    .setIsLast(page.isLast());
+            page.movieDtos().forEach(movieDto -> builder.addMovieDtos(toMovieMessage(movieDto)));
+            return builder.build();
+        }
+        // the declared element type decides, an empty list has no elements to look at
+        if(type != null && MovieBatchResult.class == elementType(type)){
+            MovieBatchResultListMessage.Builder builder = MovieBatchResultListMessage.newBuilder();
+            ((List<?>) body).forEach(result -> builder.addResults(toBatchResultMessage((MovieBatchResult) result)));
+            return builder.build();
+        }
+        MovieListMessage.Builder builder = MovieListMessage.newBuilder();
+        ((List<?>) body).forEach(movieDto -> builder.addMovies(toMovieMessage((MovieDto) movieDto)));
+        return builder.build();
+    }
+
+    private MovieBatchResultMessage toBatchResultMessage(MovieBatchResult result) {
+        MovieBatchResultMessage.Builder builder = MovieBatchResultMessage.newBuilder().setFound(result.found());
+        if(result.movieId() != null) builder.setMovieId(result.movieId());
+        if(result.movie() != null) builder.setMovie(toMovieMessage(result.movie()));
+        return builder.build();
+    }
+
+    // proto3 has no nulls, absent values are left at their defaults
+    private MovieMessage toMovieMessage(MovieDto movieDto) {
+        MovieMessage.Builder builder = MovieMessage.newBuilder();
+        if(movieDto.getMovieId() != null) builder.setMovieId(movieDto.getMovieId());
+        if(movieDto.getTitle() != null) builder.setTitle(movieDto.getTitle());
+        if(movieDto.getDirector() != null) builder.setDirector(movieDto.getDirector());
+        if(movieDto.getStudio() != null) builder.setStudio(movieDto.getStudio());
+        if(movieDto.getMovieCast() != null) builder.addAllMovieCast(movieDto.getMovieCast());
+        if(movieDto.getReleaseYear() != null) builder.setReleaseYear(movieDto.getReleaseYear());
+        if(movieDto.getPoster() != null) builder.setPoster(movieDto.getPoster());
+        if(movieDto.getPosterUrl() != null) builder.setPosterUrl(movieDto.getPosterUrl());
+        if(movieDto.getVersion() != null) builder.setVersion(movieDto.getVersion());
+        return builder.build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.service.SlowQueryDetector;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+// GET /actuator/slowqueries?limit=10&sortBy=total lists the costliest fingerprints, DELETE starts over
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private static final Set<String> SORT_KEYS = Set.of("total", "mean", "p99", "max");
+
+    private final SlowQueryDetector detector;
+
+    public SlowQueryEndpoint(SlowQueryDetector detector) {
+        this.detector = detector;
+    }
+
+    @ReadOperation
+    public List<SlowQueryDetector.Entry> top(@Nullable Integer limit, @Nullable String sortBy) {
+        String key = sortBy == null ? "total" : sortBy;
+        if(!SORT_KEYS.contains(key)){
+            String message = "Cannot sort slow queries by '" + key + "', use one of " + SORT_KEYS;
+            throw new InvalidEndpointRequestException(message, message);
+        }
+        return detector.top(limit == null ? 10 : limit, key);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        detector.reset();
+    }
+}
@@ -0,0 +1,55 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.exceptions.SqlBudgetExceededException;
+import com.movieflix.movieApi.utils.QueryCountInspector;
+import com.movieflix.movieApi.utils.SqlBudget;
+import io.micrometer.common.lang.NonNull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    @Value("${project.sql-budget.enforce:false}")
+    private boolean enforce;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        QueryCountInspector.reset();
+
+        filterChain.doFilter(request, response);
+
+        // the dispatcher leaves the matched handler on the request, read its declared budget
+        if(!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)){
+            return;
+        }
+        SqlBudget budget = handler.getMethodAnnotation(SqlBudget.class);
+        int executed = QueryCountInspector.count();
+
+        if(budget != null && executed > budget.value()){
+            String message = request.getMethod() + " " + request.getRequestURI() + " executed " + executed
+                    + " SQL statements, budget is " + budget.value();
+            if(enforce){
+                throw new SqlBudgetExceededException(message);
+            }
+            log.warn(message);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.service.AccessLog;
+import com.movieflix.movieApi.utils.QueryCountInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// the inspector is handed to Hibernate as an instance so it can reach the access log
+@Configuration
+public class StatementInspectorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(AccessLog accessLog,
+                                                                      @Value("${project.access-log.sql-sample-rate:0}") double sqlSampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector(accessLog, sqlSampleRate));
+    }
+}
@@ -0,0 +1,143 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.service.SlowQueryDetector;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+// hands out connections whose statements report their execution time and row counts to SlowQueryDetector
+public class TimedDataSource extends DelegatingDataSource {
+
+    private final Supplier<SlowQueryDetector> detector;
+
+    public TimedDataSource(DataSource target, Supplier<SlowQueryDetector> detector) {
+        super(target);
+        this.detector = detector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TimedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = TimedDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "prepareCall" -> proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareStatement" -> proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        // null for plain statements, whose SQL arrives with each execute call
+        private final String sql;
+        private SlowQueryDetector.Stats lastStats;
+
+        private StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if(name.equals("getResultSet")){
+                Object result = TimedDataSource.invoke(target, method, args);
+                return result == null || lastStats == null ? result : countRows((ResultSet) result, lastStats);
+            }
+            if(!name.startsWith("execute")){
+                return TimedDataSource.invoke(target, method, args);
+            }
+
+            String statementSql = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+            SlowQueryDetector slowQueryDetector = detector.get();
+            SlowQueryDetector.Stats stats = slowQueryDetector.statsFor(statementSql);
+            lastStats = stats;
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = TimedDataSource.invoke(target, method, args);
+            } finally {
+                slowQueryDetector.record(stats, System.nanoTime() - start);
+            }
+
+            if(result instanceof ResultSet resultSet){
+                return countRows(resultSet, stats);
+            }
+            if(result instanceof Integer || result instanceof Long){
+                stats.addRows(((Number) result).longValue());
+            } else if(result instanceof int[] counts){
+                for (int count : counts) {
+                    stats.addRows(Math.max(count, 0));
+                }
+            } else if(result instanceof long[] counts){
+                for (long count : counts) {
+                    stats.addRows(Math.max(count, 0));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static ResultSet countRows(ResultSet resultSet, SlowQueryDetector.Stats stats) {
+        return proxy(ResultSet.class, new InvocationHandler() {
+            private long rows;
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = TimedDataSource.invoke(resultSet, method, args);
+                if(method.getName().equals("next") && Boolean.TRUE.equals(result)){
+                    rows++;
+                } else if(method.getName().equals("close") && !closed){
+                    closed = true;
+                    stats.addRows(rows);
+                }
+                return result;
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.service.SlowQueryDetector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// the detector is looked up on first use, post-processors are created before ordinary beans
+@Component
+@ConditionalOnProperty(name = "project.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class TimedDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SlowQueryDetector> detector;
+
+    public TimedDataSourcePostProcessor(ObjectProvider<SlowQueryDetector> detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if(bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)){
+            return new TimedDataSource(dataSource, detector::getObject);
+        }
+        return bean;
+    }
+}
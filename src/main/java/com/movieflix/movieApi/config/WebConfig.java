@@ -0,0 +1,17 @@
+package com.movieflix.movieApi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// CBOR and Smile converters are registered by Spring MVC as soon as their Jackson modules are on the classpath
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MovieProtobufHttpMessageConverter());
+    }
+}
@@ -1,7 +1,5 @@
 package com.movieflix.movieApi.contollers;
 
-import com.movieflix.movieApi.auth.entities.RefreshToken;
-import com.movieflix.movieApi.auth.entities.User;
 import com.movieflix.movieApi.auth.services.AuthService;
 import com.movieflix.movieApi.auth.services.JwtService;
 import com.movieflix.movieApi.auth.services.RefreshTokenService;
@@ -9,14 +7,19 @@ import com.movieflix.movieApi.auth.utils.AuthResponse;
 import com.movieflix.movieApi.auth.utils.LoginRequest;
 import com.movieflix.movieApi.auth.utils.RefreshTokenRequest;
 import com.movieflix.movieApi.auth.utils.RegisterRequest;
+import com.movieflix.movieApi.exceptions.InvalidTokenException;
 import com.movieflix.movieApi.exceptions.RefreshTokenExpiredException;
-import com.movieflix.movieApi.exceptions.RefreshTokenNotFoundException;
+import com.movieflix.movieApi.utils.SqlBudget;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("api/v1/auth")
 public class AuthController {
@@ -31,26 +34,38 @@ public class AuthController {
         this.jwtService = jwtService;
     }
 
+    @SqlBudget(2)
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest registerRequest) {
         return ResponseEntity.ok(authService.register(registerRequest));
     }
 
+    @SqlBudget(3)
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest loginRequest) {
         return ResponseEntity.ok(authService.login(loginRequest));
     }
 
+    // one indexed lookup of the token's digest, one update rotating it and one insert retiring the old digest
+    @SqlBudget(3)
     @PostMapping("/refresh")
-    public ResponseEntity<AuthResponse> refreshToken(@RequestBody RefreshTokenRequest refreshTokenRequest) throws RefreshTokenNotFoundException, RefreshTokenExpiredException {
-        RefreshToken refreshToken = refreshTokenService.verifyRefreshToken(refreshTokenRequest.getRefreshToken());
-        User user = refreshToken.getUser();
-
-        String accessToken = jwtService.generateToken(user);
+    public ResponseEntity<AuthResponse> refreshToken(@RequestBody RefreshTokenRequest refreshTokenRequest) throws RefreshTokenExpiredException {
+        RefreshTokenService.IssuedRefreshToken refreshToken = refreshTokenService.rotateRefreshToken(refreshTokenRequest.getRefreshToken());
+        String accessToken = jwtService.generateToken(Map.of(JwtService.SESSION_ID, refreshToken.familyId()), refreshToken.username());
 
         return ResponseEntity.ok(AuthResponse.builder()
                                              .accessToken(accessToken)
-                                             .refreshToken(refreshToken.getRefreshToken())
+                                             .refreshToken(refreshToken.refreshToken())
                                              .build());
     }
+
+    @SqlBudget(5)
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+            throw new InvalidTokenException("Send the access token to revoke as a Bearer token.");
+        }
+        authService.logout(authHeader.substring(7));
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,24 +1,38 @@
 package com.movieflix.movieApi.contollers;
 
+import com.movieflix.movieApi.dto.PosterUpload;
+import com.movieflix.movieApi.dto.PosterUploadRequest;
+import com.movieflix.movieApi.dto.PosterUploadStatus;
 import com.movieflix.movieApi.service.FileService;
+import com.movieflix.movieApi.service.PosterCache;
+import com.movieflix.movieApi.service.PosterUploads;
+import com.movieflix.movieApi.utils.AppConstants;
+import com.movieflix.movieApi.utils.SqlBudget;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.security.Principal;
 
 @RestController
 @RequestMapping("/file/")
 public class FileController {
     private final FileService fileService;
+    private final PosterCache posterCache;
+    private final PosterUploads posterUploads;
 
-    public FileController(FileService fileService) {
+    public FileController(@Lazy FileService fileService, PosterCache posterCache, PosterUploads posterUploads) {
         this.fileService = fileService;
+        this.posterCache = posterCache;
+        this.posterUploads = posterUploads;
     }
     @Value("${project.poster}")
     private String path;
@@ -29,10 +43,60 @@ public class FileController {
         return ResponseEntity.ok("File uploaded :" + uploadedFileName);
     }
 
+    // raw image body, streamed straight into the poster directory without multipart spooling
+    @PostMapping(value = "/upload/{fileName}", consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE})
+    public ResponseEntity<PosterUpload> uploadStreamHandler(@PathVariable String fileName, InputStream content) throws IOException {
+        return ResponseEntity.ok(fileService.uploadFile(path, fileName, content));
+    }
+
+    // resumable upload: open a session, PATCH chunks at Upload-Offset, HEAD for the offset after a drop, POST to publish
+    @SqlBudget(4)
+    @PostMapping("/uploads")
+    public ResponseEntity<PosterUploadStatus> openUploadHandler(@RequestBody PosterUploadRequest request, Principal principal) throws IOException {
+        PosterUploadStatus status = posterUploads.open(principal.getName(), request.fileName(), request.size());
+        return ResponseEntity.created(URI.create("/file/uploads/" + status.uploadId()))
+                             .header(AppConstants.UPLOAD_OFFSET, Long.toString(status.offset()))
+                             .body(status);
+    }
+
+    @SqlBudget(3)
+    @RequestMapping(value = "/uploads/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> uploadOffsetHandler(@PathVariable String uploadId, Principal principal) {
+        PosterUploadStatus status = posterUploads.status(principal.getName(), uploadId);
+        return ResponseEntity.ok()
+                             .header(AppConstants.UPLOAD_OFFSET, Long.toString(status.offset()))
+                             .contentLength(0)
+                             .cacheControl(CacheControl.noStore())
+                             .build();
+    }
+
+    @SqlBudget(4)
+    @PatchMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<PosterUploadStatus> uploadChunkHandler(@PathVariable String uploadId,
+                                                                 @RequestHeader(AppConstants.UPLOAD_OFFSET) long offset,
+                                                                 InputStream content, Principal principal) throws IOException {
+        PosterUploadStatus status = posterUploads.append(principal.getName(), uploadId, offset, content);
+        return ResponseEntity.ok()
+                             .header(AppConstants.UPLOAD_OFFSET, Long.toString(status.offset()))
+                             .body(status);
+    }
+
+    @SqlBudget(4)
+    @PostMapping("/uploads/{uploadId}")
+    public ResponseEntity<PosterUpload> completeUploadHandler(@PathVariable String uploadId, Principal principal) throws IOException {
+        return ResponseEntity.ok(posterUploads.complete(principal.getName(), uploadId));
+    }
+
+    @SqlBudget(3)
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUploadHandler(@PathVariable String uploadId, Principal principal) throws IOException {
+        posterUploads.abort(principal.getName(), uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{fileName}")
     public void serveFileHandler(@PathVariable String fileName, HttpServletResponse response) throws IOException {
-        InputStream resourceFile = fileService.getResourceFile(path, fileName);
         response.setContentType(MediaType.IMAGE_PNG_VALUE);
-        StreamUtils.copy(resourceFile, response.getOutputStream());
+        posterCache.serve(path, fileName, response.getOutputStream());
     }
 }
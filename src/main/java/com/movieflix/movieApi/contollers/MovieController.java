@@ -2,52 +2,142 @@ package com.movieflix.movieApi.contollers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieflix.movieApi.dto.MovieBatchResult;
 import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieFilterRequest;
+import com.movieflix.movieApi.dto.MovieFilterResponse;
 import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.SimilarMovie;
+import com.movieflix.movieApi.dto.SparseMoviePageResponse;
+import com.movieflix.movieApi.dto.TitleSuggestion;
+import com.movieflix.movieApi.dto.TrendingMovie;
 import com.movieflix.movieApi.exceptions.EmptyFileException;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import com.movieflix.movieApi.exceptions.PreconditionFailedException;
+import com.movieflix.movieApi.exceptions.PreconditionRequiredException;
 import com.movieflix.movieApi.service.MovieService;
+import com.movieflix.movieApi.service.TitleIndex;
+import com.movieflix.movieApi.service.ViewCounter;
 import com.movieflix.movieApi.utils.AppConstants;
+import com.movieflix.movieApi.utils.MovieFields;
+import com.movieflix.movieApi.utils.SqlBudget;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/v1/movie")
 public class MovieController {
 
     private final MovieService movieService;
+    private final TitleIndex titleIndex;
+    private final ViewCounter viewCounter;
 
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, TitleIndex titleIndex, ViewCounter viewCounter) {
         this.movieService = movieService;
+        this.titleIndex = titleIndex;
+        this.viewCounter = viewCounter;
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping("/addMovie")
-    public ResponseEntity<MovieDto> addMovieHandler(@RequestPart MultipartFile file,
-                                                    @RequestPart String movieDto) throws IOException, EmptyFileException {
-        if(file.isEmpty()){
+    public ResponseEntity<MovieDto> addMovieHandler(@RequestPart(required = false) MultipartFile file,
+                                                    @RequestPart(required = false) String uploadId,
+                                                    @RequestPart String movieDto,
+                                                    Principal principal) throws IOException, EmptyFileException {
+        MovieDto dto = convertToMovieDto(movieDto);
+
+        // a poster sent through /file/uploads is referenced by its upload instead of sent again
+        if(uploadId != null){
+            return new ResponseEntity<>(movieService.addMovie(dto, uploadId, principal.getName()), HttpStatus.CREATED);
+        }
+        if(file == null || file.isEmpty()){
             throw new EmptyFileException("File is empty! Please send a valid file.");
         }
 
-        MovieDto dto = convertToMovieDto(movieDto);
         return new ResponseEntity<>(movieService.addMovie(dto, file), HttpStatus.CREATED);
     }
 
+    @SqlBudget(4)
     @GetMapping("/{movieId}")
     public ResponseEntity<MovieDto> getMovieHandler(@PathVariable Integer movieId){
-        return ResponseEntity.ok(movieService.getMovie(movieId));
+        MovieDto movieDto = movieService.getMovie(movieId);
+        viewCounter.recordView(movieId);
+        return ResponseEntity.ok().eTag(String.valueOf(movieDto.getVersion())).body(movieDto);
     }
 
+    @SqlBudget(4)
+    @PostMapping("/filter")
+    public ResponseEntity<MovieFilterResponse> filterMoviesHandler(@RequestBody MovieFilterRequest request){
+        if(request.pageSize() != null && (request.pageSize() < 1 || request.pageSize() > AppConstants.MAX_BATCH_SIZE)){
+            throw new InvalidRequestException("Page size must be between 1 and " + AppConstants.MAX_BATCH_SIZE + ".");
+        }
+        if(request.pageNumber() != null && request.pageNumber() < 0){
+            throw new InvalidRequestException("Page number cannot be negative.");
+        }
+        return ResponseEntity.ok(movieService.filterMovies(request));
+    }
+
+    @SqlBudget(3)
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<TitleSuggestion>> autocompleteHandler(@RequestParam String q,
+                                                                     @RequestParam(defaultValue = "10") Integer limit){
+        if(limit > AppConstants.MAX_SUGGESTIONS){
+            throw new InvalidRequestException("At most " + AppConstants.MAX_SUGGESTIONS + " suggestions can be requested at once.");
+        }
+        return ResponseEntity.ok(titleIndex.suggest(q, limit));
+    }
+
+    @SqlBudget(4)
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingMovie>> trendingMoviesHandler(@RequestParam(defaultValue = "10") Integer limit){
+        if(limit < 1 || limit > AppConstants.MAX_TRENDING){
+            throw new InvalidRequestException("Limit must be between 1 and " + AppConstants.MAX_TRENDING + ".");
+        }
+        return ResponseEntity.ok(movieService.getTrendingMovies(limit));
+    }
+
+    @SqlBudget(5)
+    @GetMapping("/{movieId}/similar")
+    public ResponseEntity<List<SimilarMovie>> similarMoviesHandler(@PathVariable Integer movieId,
+                                                                   @RequestParam(defaultValue = "10") Integer limit){
+        if(limit < 1 || limit > AppConstants.MAX_SIMILAR){
+            throw new InvalidRequestException("Limit must be between 1 and " + AppConstants.MAX_SIMILAR + ".");
+        }
+        return ResponseEntity.ok(movieService.getSimilarMovies(movieId, limit));
+    }
+
+    @SqlBudget(4)
+    @GetMapping("/batch")
+    public ResponseEntity<List<MovieBatchResult>> getMoviesByIdHandler(@RequestParam List<Integer> ids){
+        // an empty element such as ids=1,,2 binds as null
+        if(ids.isEmpty() || ids.stream().anyMatch(Objects::isNull)){
+            throw new InvalidRequestException("Provide at least one id and no empty ids.");
+        }
+        if(ids.size() > AppConstants.MAX_BATCH_SIZE){
+            throw new InvalidRequestException("At most " + AppConstants.MAX_BATCH_SIZE + " ids can be requested at once.");
+        }
+        return ResponseEntity.ok(movieService.getMovies(ids));
+    }
+
+    @SqlBudget(4)
     @GetMapping("/allMovies")
     public ResponseEntity<List<MovieDto>> getMoviesHandler(){
         return ResponseEntity.ok(movieService.getAllMovies());
     }
 
+    @SqlBudget(5)
     @GetMapping("/allMoviesPaginated")
     public ResponseEntity<MoviePageResponse> getMoviesWithPaginationHandler(
             @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
@@ -56,6 +146,7 @@ public class MovieController {
         return ResponseEntity.ok(movieService.getAllMoviesWithPagination(pageNumber,pageSize));
     }
 
+    @SqlBudget(5)
     @GetMapping("/allMoviesPaginatedAndSorted")
     public ResponseEntity<MoviePageResponse> getMoviesWithPaginationAndSortingHandler(
             @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
@@ -66,6 +157,51 @@ public class MovieController {
         return ResponseEntity.ok(movieService.getAllMoviesWithPaginationAndSorting(pageNumber,pageSize, sortBy, dir));
     }
 
+    @SqlBudget(5)
+    @GetMapping("/person/{personId}")
+    public ResponseEntity<MoviePageResponse> getMoviesByPersonHandler(
+            @PathVariable Integer personId,
+            @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize
+    ){
+        return ResponseEntity.ok(movieService.getMoviesByPerson(personId, pageNumber, pageSize));
+    }
+
+    @SqlBudget(5)
+    @GetMapping(value = "/{movieId}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getMovieFieldsHandler(@PathVariable Integer movieId,
+                                                                     @RequestParam String fields){
+        return ResponseEntity.ok(movieService.getMovie(movieId, MovieFields.parse(fields)));
+    }
+
+    @SqlBudget(5)
+    @GetMapping(value = "/allMovies", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getMoviesFieldsHandler(@RequestParam String fields){
+        return ResponseEntity.ok(movieService.getAllMovies(MovieFields.parse(fields)));
+    }
+
+    @SqlBudget(6)
+    @GetMapping(value = "/allMoviesPaginated", params = "fields")
+    public ResponseEntity<SparseMoviePageResponse> getMoviesWithPaginationFieldsHandler(
+            @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam String fields
+    ){
+        return ResponseEntity.ok(movieService.getAllMoviesWithPaginationAndSorting(pageNumber, pageSize, AppConstants.SORT_BY, AppConstants.SORT_DIR, MovieFields.parse(fields)));
+    }
+
+    @SqlBudget(6)
+    @GetMapping(value = "/allMoviesPaginatedAndSorted", params = "fields")
+    public ResponseEntity<SparseMoviePageResponse> getMoviesWithPaginationAndSortingFieldsHandler(
+            @RequestParam(defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(defaultValue = AppConstants.SORT_BY, required = false) String sortBy,
+            @RequestParam(defaultValue = AppConstants.SORT_DIR,required = false) String dir,
+            @RequestParam String fields
+    ){
+        return ResponseEntity.ok(movieService.getAllMoviesWithPaginationAndSorting(pageNumber, pageSize, sortBy, dir, MovieFields.parse(fields)));
+    }
+
     @PutMapping("/update/{movieId}")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<MovieDto> updateMovieHandler(@PathVariable Integer movieId,
@@ -78,12 +214,41 @@ public class MovieController {
         return ResponseEntity.ok(movieService.updateMovie(movieId, dto, file));
     }
 
+    @SqlBudget(5)
+    @PatchMapping(value = "/{movieId}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Void> patchMovieHandler(@PathVariable Integer movieId,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestBody MoviePatch patch){
+        if(ifMatch == null){
+            throw new PreconditionRequiredException("Send the movie's ETag in If-Match to update it.");
+        }
+        long version = movieService.patchMovie(movieId, parseVersion(ifMatch), patch);
+        return ResponseEntity.noContent().eTag(Long.toString(version)).build();
+    }
+
     @DeleteMapping("/delete/{movieId}")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<String> deleteMovieHandler(@PathVariable Integer movieId) throws IOException {
         return ResponseEntity.ok(movieService.deleteMovie(movieId));
     }
 
+    // If-Match compares strongly, so only a quoted version number can ever match, '*' matches whatever version the movie is at
+    private static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.strip();
+        if(tag.equals("*")){
+            return null;
+        }
+        if(tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")){
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the mismatch below
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the movie's ETag.");
+    }
+
     private MovieDto convertToMovieDto(String movieDtoObj) throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
         MovieDto movieDto = objectMapper.readValue(movieDtoObj, MovieDto.class);
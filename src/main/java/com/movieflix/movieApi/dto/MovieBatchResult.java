@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.dto;
+
+public record MovieBatchResult(Integer movieId,
+                               boolean found,
+                               MovieDto movie) {
+
+}
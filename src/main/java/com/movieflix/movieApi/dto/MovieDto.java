@@ -1,5 +1,6 @@
 package com.movieflix.movieApi.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -31,4 +32,8 @@ public class MovieDto {
 
     @NotBlank(message = "Please provide poster's url!")
     private String posterUrl;
+
+    // travels in the ETag header rather than the body
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,13 @@
+package com.movieflix.movieApi.dto;
+
+import java.util.List;
+
+// one node of a filter tree: either 'and' or 'or' over nested filters, or a predicate on 'field'
+// matching any of 'anyOf' (studio, director, movieCast) or the inclusive 'from'/'to' range (releaseYear)
+public record MovieFilter(List<MovieFilter> and,
+                          List<MovieFilter> or,
+                          String field,
+                          List<String> anyOf,
+                          Integer from,
+                          Integer to) {
+}
@@ -0,0 +1,9 @@
+package com.movieflix.movieApi.dto;
+
+import java.util.List;
+
+public record MovieFilterRequest(MovieFilter filter,
+                                 List<String> facets,
+                                 Integer pageNumber,
+                                 Integer pageSize) {
+}
@@ -0,0 +1,14 @@
+package com.movieflix.movieApi.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record MovieFilterResponse(List<MovieDto> movieDtos,
+                                  Map<String, Map<String, Integer>> facets,
+                                  Integer pageNumber,
+                                  Integer pageSize,
+                                  long totalElements,
+                                  int totalPages,
+                                  boolean isLast) {
+
+}
@@ -0,0 +1,12 @@
+package com.movieflix.movieApi.dto;
+
+// body of a partial update, only the non-null columns are written
+public record MoviePatch(String title,
+                         String director,
+                         String studio,
+                         Integer releaseYear) {
+
+    public boolean isEmpty() {
+        return title == null && director == null && studio == null && releaseYear == null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.movieflix.movieApi.dto;
+
+public record MoviePoster(Integer movieId, String poster) {
+}
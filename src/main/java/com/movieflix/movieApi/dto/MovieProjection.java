@@ -0,0 +1,56 @@
+package com.movieflix.movieApi.dto;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// read-only row selected straight into a record, cast names arrive aggregated in one column
+public record MovieProjection(Integer movieId,
+                              String title,
+                              String director,
+                              String studio,
+                              Integer releaseYear,
+                              String poster,
+                              Long version,
+                              String movieCast) {
+
+    public static final String CAST_SEPARATOR = "|";
+    // inside a name the escape is written as escape 0 and the separator as escape 1, so names never contain a bare separator
+    public static final String CAST_ESCAPE = "~";
+
+    public MovieDto toMovieDto(String baseUrl) {
+        Set<String> cast = new LinkedHashSet<>();
+        if(movieCast != null && !movieCast.isEmpty()){
+            for (String name : movieCast.split("\\" + CAST_SEPARATOR)) {
+                cast.add(unescape(name));
+            }
+        }
+
+        return new MovieDto(
+                movieId,
+                title,
+                director,
+                studio,
+                cast,
+                releaseYear,
+                poster,
+                baseUrl + "/file/" + poster,
+                version
+        );
+    }
+
+    private static String unescape(String name) {
+        if(!name.contains(CAST_ESCAPE)){
+            return name;
+        }
+        StringBuilder unescaped = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(c == CAST_ESCAPE.charAt(0) && i + 1 < name.length()){
+                unescaped.append(name.charAt(++i) == '1' ? CAST_SEPARATOR : CAST_ESCAPE);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
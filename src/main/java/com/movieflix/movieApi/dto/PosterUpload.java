@@ -0,0 +1,4 @@
+package com.movieflix.movieApi.dto;
+
+public record PosterUpload(String fileName, String sha256, long size) {
+}
@@ -0,0 +1,5 @@
+package com.movieflix.movieApi.dto;
+
+// opens a resumable upload of a poster of the given size in bytes
+public record PosterUploadRequest(String fileName, long size) {
+}
@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.dto;
+
+import java.time.Instant;
+
+// offset is where the next chunk has to start, the upload can be finalised once it equals size
+public record PosterUploadStatus(String uploadId, String fileName, long size, long offset, Instant expiresAt) {
+}
@@ -0,0 +1,5 @@
+package com.movieflix.movieApi.dto;
+
+// score is the weighted Jaccard similarity of cast, director and studio, between 0 and 1
+public record SimilarMovie(MovieDto movie, double score) {
+}
@@ -0,0 +1,14 @@
+package com.movieflix.movieApi.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// MoviePageResponse counterpart whose movies carry only the requested fields
+public record SparseMoviePageResponse(List<Map<String, Object>> movieDtos,
+                                      Integer pageNumber,
+                                      Integer pageSize,
+                                      long totalElements,
+                                      int totalPages,
+                                      boolean isLast) {
+
+}
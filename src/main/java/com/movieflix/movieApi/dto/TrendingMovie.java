@@ -0,0 +1,5 @@
+package com.movieflix.movieApi.dto;
+
+// score is the movie's view count decayed to now
+public record TrendingMovie(MovieDto movie, double score) {
+}
@@ -0,0 +1,27 @@
+package com.movieflix.movieApi.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(indexes = @Index(name = "idx_cache_invalidation_created_at", columnList = "createdAt"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Integer movieId;
+
+    private String poster;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.Set;
 
@@ -12,6 +13,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
+@Setter
 public class Movie {
 
     @Id
@@ -30,9 +32,12 @@ public class Movie {
     @NotBlank(message = "Please provide movie's studio!")
     private String studio;
 
-    @ElementCollection
-    @CollectionTable(name = "movie_cast")
-    private Set<String> movieCast;
+    @ManyToMany
+    @JoinTable(name = "movie_person",
+            joinColumns = @JoinColumn(name = "movie_id", foreignKey = @ForeignKey(name = "fk_movie_person_movie")),
+            inverseJoinColumns = @JoinColumn(name = "person_id", foreignKey = @ForeignKey(name = "fk_movie_person_person")),
+            indexes = @Index(name = "idx_movie_person_person", columnList = "person_id, movie_id"))
+    private Set<Person> movieCast;
 
     @Column(nullable = false)
     private Integer releaseYear;
@@ -40,4 +45,9 @@ public class Movie {
     @Column(nullable = false)
     @NotBlank(message = "Please provide movie's poster!")
     private String poster;
+
+    // bumped on every update and sent to clients as the movie's ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,24 @@
+package com.movieflix.movieApi.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "movie_stats", indexes = @Index(name = "idx_movie_stats_score", columnList = "score"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class MovieStats {
+
+    @Id
+    private Integer movieId;
+
+    @Column(nullable = false)
+    private Long views;
+
+    // natural log of the forward-decayed view count, see ViewCounter
+    @Column(nullable = false)
+    private Double score;
+}
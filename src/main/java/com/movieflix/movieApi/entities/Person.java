@@ -0,0 +1,23 @@
+package com.movieflix.movieApi.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_person_name", columnNames = "name"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class Person {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer personId;
+
+    @Column(nullable = false, length = 255)
+    @NotBlank(message = "Please provide person's name!")
+    private String name;
+}
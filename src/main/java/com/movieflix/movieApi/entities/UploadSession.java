@@ -0,0 +1,57 @@
+package com.movieflix.movieApi.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// a resumable poster upload, received counts the bytes written without a gap from the start
+@Entity
+@Table(name = "upload_session", indexes = {@Index(name = "idx_upload_session_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_upload_session_owner", columnList = "owner")})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class UploadSession implements Persistable<String> {
+
+    @Id
+    @Column(length = 36)
+    private String uploadId;
+
+    // the user who opened it, nobody else can see or write to it
+    @Column(nullable = false)
+    private String owner;
+
+    // the poster's name once published
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long received;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // pushed back by every chunk, the sweeper removes sessions past it
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Override
+    public String getId() {
+        return uploadId;
+    }
+
+    // only saved once, progress is written with UploadSessionRepository.advance
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -1,7 +1,10 @@
 package com.movieflix.movieApi.exceptions;
 
+import com.movieflix.movieApi.utils.AppConstants;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -13,6 +16,11 @@ public class GlobalExceptionHandler {
         return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
     }
 
+    @ExceptionHandler(PersonNotFoundException.class)
+    public ProblemDetail handlePersonNotFoundException(PersonNotFoundException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+
     @ExceptionHandler(FileExistsException.class)
     public ProblemDetail handleFileExistsException(FileExistsException exception){
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exception.getMessage());
@@ -23,6 +31,51 @@ public class GlobalExceptionHandler {
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ProblemDetail handleInvalidRequestException(InvalidRequestException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exception.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ProblemDetail handlePreconditionFailedException(PreconditionFailedException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, exception.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    public ProblemDetail handlePreconditionRequiredException(PreconditionRequiredException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_REQUIRED, exception.getMessage());
+    }
+
+    // two full updates of the same movie raced, the one committing second is rejected
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleOptimisticLockingFailureException(OptimisticLockingFailureException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The movie was changed by another request, please reload it and retry.");
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ProblemDetail handleUploadSessionNotFoundException(UploadSessionNotFoundException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
+    }
+
+    @ExceptionHandler(UploadLimitExceededException.class)
+    public ProblemDetail handleUploadLimitExceededException(UploadLimitExceededException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, exception.getMessage());
+    }
+
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<ProblemDetail> handleUploadOffsetConflictException(UploadOffsetConflictException exception){
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, exception.getMessage());
+        problem.setProperty("offset", exception.getOffset());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .header(AppConstants.UPLOAD_OFFSET, Long.toString(exception.getOffset()))
+                             .body(problem);
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public ProblemDetail handleInvalidTokenException(InvalidTokenException exception){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, exception.getMessage());
+    }
+
     @ExceptionHandler(RefreshTokenNotFoundException.class)
     public ProblemDetail RefreshTokenNotFoundException(RefreshTokenNotFoundException exception){
         return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class PersonNotFoundException extends RuntimeException {
+    public PersonNotFoundException(String message){
+        super(message);
+    }
+}
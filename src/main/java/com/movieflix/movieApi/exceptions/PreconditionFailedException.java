@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message){
+        super(message);
+    }
+}
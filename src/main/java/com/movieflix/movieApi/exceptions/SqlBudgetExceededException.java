@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class UploadLimitExceededException extends RuntimeException {
+    public UploadLimitExceededException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.movieflix.movieApi.exceptions;
+
+import lombok.Getter;
+
+// a chunk did not start at the upload's offset, the offset tells the client where to resume
+@Getter
+public class UploadOffsetConflictException extends RuntimeException {
+
+    private final long offset;
+
+    public UploadOffsetConflictException(String message, long offset){
+        super(message);
+        this.offset = offset;
+    }
+}
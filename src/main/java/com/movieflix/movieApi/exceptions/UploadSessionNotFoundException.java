@@ -0,0 +1,7 @@
+package com.movieflix.movieApi.exceptions;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+    public UploadSessionNotFoundException(String message){
+        super(message);
+    }
+}
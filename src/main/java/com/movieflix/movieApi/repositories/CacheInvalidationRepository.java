@@ -0,0 +1,25 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.entities.CacheInvalidation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select max(i.id) from CacheInvalidation i where i.createdAt < ?1")
+    Optional<Long> findMaxIdCreatedBefore(Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CacheInvalidation i where i.createdAt < ?1")
+    int deleteCreatedBefore(Instant createdAt);
+}
@@ -1,7 +1,64 @@
 package com.movieflix.movieApi.repositories;
 
+import com.movieflix.movieApi.dto.MoviePoster;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.dto.TitleSuggestion;
 import com.movieflix.movieApi.entities.Movie;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface MovieRepository extends JpaRepository<Movie, Integer> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface MovieRepository extends JpaRepository<Movie, Integer>, MovieRepositoryCustom {
+
+    // listagg renders as group_concat on MySQL, whose group_concat_max_len is raised per connection in application.yml,
+    // names are escaped so that a separator inside one cannot split it
+    String PROJECTION = "select new com.movieflix.movieApi.dto.MovieProjection(m.movieId, m.title, m.director, m.studio, m.releaseYear, m.poster, m.version, " +
+            "listagg(replace(replace(c.name, '" + MovieProjection.CAST_ESCAPE + "', '" + MovieProjection.CAST_ESCAPE + "0'), " +
+            "'" + MovieProjection.CAST_SEPARATOR + "', '" + MovieProjection.CAST_ESCAPE + "1'), " +
+            "'" + MovieProjection.CAST_SEPARATOR + "') within group (order by c.name)) " +
+            "from Movie m left join m.movieCast c ";
+
+    String PROJECTION_GROUP_BY = " group by m.movieId, m.title, m.director, m.studio, m.releaseYear, m.poster, m.version";
+
+    @Query(PROJECTION + "where m.movieId = ?1" + PROJECTION_GROUP_BY)
+    Optional<MovieProjection> findProjectionById(Integer movieId);
+
+    @Query(PROJECTION + "where m.movieId in ?1" + PROJECTION_GROUP_BY)
+    List<MovieProjection> findAllProjectionsById(Collection<Integer> movieIds);
+
+    @Query(PROJECTION + PROJECTION_GROUP_BY)
+    List<MovieProjection> findAllProjections();
+
+    @Query(PROJECTION + "where m.movieId > ?1" + PROJECTION_GROUP_BY + " order by m.movieId")
+    List<MovieProjection> findProjectionsAfter(Integer movieId, Limit limit);
+
+    // the filmography join walks idx_movie_person_person, the cast join is only there to aggregate names
+    @Query(value = PROJECTION + "join m.movieCast f where f.personId = ?1" + PROJECTION_GROUP_BY + " order by m.releaseYear desc, m.movieId",
+            countQuery = "select count(m) from Movie m join m.movieCast f where f.personId = ?1")
+    Page<MovieProjection> findProjectionsByPerson(Integer personId, Pageable pageable);
+
+    @Query(value = PROJECTION + PROJECTION_GROUP_BY, countQuery = "select count(m) from Movie m")
+    Page<MovieProjection> findAllProjections(Pageable pageable);
+
+    @Query("select m.version from Movie m where m.movieId = ?1")
+    Optional<Long> findVersionById(Integer movieId);
+
+    @Query("select m.poster from Movie m where m.poster in ?1")
+    Set<String> findReferencedPosters(Collection<String> posters);
+
+    @Query("select new com.movieflix.movieApi.dto.MoviePoster(m.movieId, m.poster) from Movie m where m.movieId > ?1 order by m.movieId")
+    List<MoviePoster> findPostersAfter(Integer movieId, Limit limit);
+
+    @Query("select new com.movieflix.movieApi.dto.TitleSuggestion(m.movieId, m.title) from Movie m where m.movieId > ?1 order by m.movieId")
+    List<TitleSuggestion> findTitlesAfter(Integer movieId, Limit limit);
+
+    @Query("select new com.movieflix.movieApi.dto.TitleSuggestion(m.movieId, m.title) from Movie m where m.movieId = ?1")
+    Optional<TitleSuggestion> findTitleById(Integer movieId);
 }
@@ -0,0 +1,22 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.dto.MoviePatch;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface MovieRepositoryCustom {
+
+    // selects only the given Movie attributes, aliased by attribute name
+    List<Tuple> findColumns(List<String> columns, Integer movieId, Sort sort, int offset, int limit);
+
+    Map<Integer, Set<String>> findCastByMovieIds(Collection<Integer> movieIds);
+
+    // one UPDATE of the patched columns guarded by the version, returns 0 if the movie is gone or was changed meanwhile,
+    // a null version updates whatever version the movie is at
+    int updateColumns(Integer movieId, Long version, MoviePatch patch);
+}
@@ -0,0 +1,96 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.entities.Movie;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// column names reaching this class are whitelisted by MovieFields, never taken from the request as-is
+public class MovieRepositoryImpl implements MovieRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findColumns(List<String> columns, Integer movieId, Sort sort, int offset, int limit) {
+        StringBuilder jpql = new StringBuilder("select ");
+        jpql.append(columns.stream().map(column -> "m." + column + " as " + column).collect(Collectors.joining(", ")));
+        jpql.append(" from Movie m");
+
+        if(movieId != null){
+            jpql.append(" where m.movieId = :movieId");
+        }
+        if(sort.isSorted()){
+            jpql.append(" order by ");
+            jpql.append(sort.stream().map(order -> "m." + order.getProperty() + " " + order.getDirection().name()).collect(Collectors.joining(", ")));
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        if(movieId != null){
+            query.setParameter("movieId", movieId);
+        }
+        if(limit > 0){
+            query.setFirstResult(offset);
+            query.setMaxResults(limit);
+        }
+
+        return query.getResultList();
+    }
+
+    @Override
+    public Map<Integer, Set<String>> findCastByMovieIds(Collection<Integer> movieIds) {
+        Map<Integer, Set<String>> cast = new HashMap<>();
+        if(movieIds.isEmpty()){
+            return cast;
+        }
+
+        entityManager.createQuery("select m.movieId, c.name from Movie m join m.movieCast c where m.movieId in :movieIds", Object[].class)
+                     .setParameter("movieIds", movieIds)
+                     .getResultList()
+                     .forEach(row -> cast.computeIfAbsent((Integer) row[0], id -> new LinkedHashSet<>()).add((String) row[1]));
+
+        return cast;
+    }
+
+    @Override
+    public int updateColumns(Integer movieId, Long version, MoviePatch patch) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Movie> update = builder.createCriteriaUpdate(Movie.class);
+        Root<Movie> movie = update.from(Movie.class);
+
+        if(patch.title() != null){
+            update.set(movie.<String>get("title"), patch.title());
+        }
+        if(patch.director() != null){
+            update.set(movie.<String>get("director"), patch.director());
+        }
+        if(patch.studio() != null){
+            update.set(movie.<String>get("studio"), patch.studio());
+        }
+        if(patch.releaseYear() != null){
+            update.set(movie.<Integer>get("releaseYear"), patch.releaseYear());
+        }
+        update.set(movie.<Long>get("version"), builder.sum(movie.<Long>get("version"), 1L));
+        if(version == null){
+            update.where(builder.equal(movie.get("movieId"), movieId));
+        } else {
+            update.where(builder.equal(movie.get("movieId"), movieId), builder.equal(movie.get("version"), version));
+        }
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
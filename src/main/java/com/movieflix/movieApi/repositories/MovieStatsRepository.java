@@ -0,0 +1,18 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.entities.MovieStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface MovieStatsRepository extends JpaRepository<MovieStats, Integer>, MovieStatsRepositoryCustom {
+
+    List<MovieStats> findAllByOrderByScoreDesc(Limit limit);
+
+    @Modifying
+    @Query("delete from MovieStats s where s.movieId = ?1")
+    void deleteByMovieId(Integer movieId);
+}
@@ -0,0 +1,9 @@
+package com.movieflix.movieApi.repositories;
+
+import java.util.Map;
+
+public interface MovieStatsRepositoryCustom {
+
+    // one batched upsert adding each movie's views and log-space score to its row
+    void addViews(Map<Integer, Long> views, Map<Integer, Double> scores);
+}
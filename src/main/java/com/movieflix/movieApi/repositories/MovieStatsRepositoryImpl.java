@@ -0,0 +1,28 @@
+package com.movieflix.movieApi.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// scores are logarithms, so adding two of them is greatest(a, b) + ln(1 + exp(-|a - b|)), which never overflows
+public class MovieStatsRepositoryImpl implements MovieStatsRepositoryCustom {
+
+    private static final String UPSERT = "insert into movie_stats (movie_id, views, score) values (?, ?, ?) " +
+            "on duplicate key update views = views + values(views), " +
+            "score = greatest(score, values(score)) + ln(1 + exp(-abs(score - values(score))))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieStatsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addViews(Map<Integer, Long> views, Map<Integer, Double> scores) {
+        List<Object[]> rows = new ArrayList<>(views.size());
+        views.forEach((movieId, count) -> rows.add(new Object[]{movieId, count, scores.get(movieId)}));
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+}
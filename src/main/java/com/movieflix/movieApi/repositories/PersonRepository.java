@@ -0,0 +1,60 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.entities.Person;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public interface PersonRepository extends JpaRepository<Person, Integer>, PersonRepositoryCustom {
+
+    List<Person> findByNameIn(Collection<String> names);
+
+    // a locking read sees rows committed after the transaction's snapshot was taken
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select p from Person p where p.name in ?1")
+    List<Person> findByNameInForShare(Collection<String> names);
+
+    // names are trimmed and matched case-insensitively, like the unique key on MySQL's default collation
+    default Set<Person> findOrCreateByNames(Collection<String> names) {
+        Map<String, String> wanted = new HashMap<>();
+        for (String name : names) {
+            String trimmed = name.strip();
+            if(!trimmed.isEmpty()){
+                wanted.putIfAbsent(trimmed.toLowerCase(Locale.ROOT), trimmed);
+            }
+        }
+
+        Set<Person> persons = new LinkedHashSet<>();
+        if(wanted.isEmpty()){
+            return persons;
+        }
+        for (Person person : findByNameIn(wanted.values())) {
+            if(wanted.remove(person.getName().toLowerCase(Locale.ROOT)) != null){
+                persons.add(person);
+            }
+        }
+        if(wanted.isEmpty()){
+            return persons;
+        }
+
+        // a concurrent writer may add the same names, whichever row wins the unique key is read back
+        insertMissing(wanted.values());
+        for (Person person : findByNameInForShare(wanted.values())) {
+            if(wanted.remove(person.getName().toLowerCase(Locale.ROOT)) != null){
+                persons.add(person);
+            }
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,9 @@
+package com.movieflix.movieApi.repositories;
+
+import java.util.Collection;
+
+public interface PersonRepositoryCustom {
+
+    // one batched insert that leaves names already taken, possibly by a concurrent writer, as they are
+    void insertMissing(Collection<String> names);
+}
@@ -0,0 +1,23 @@
+package com.movieflix.movieApi.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+public class PersonRepositoryImpl implements PersonRepositoryCustom {
+
+    private static final String INSERT = "insert into person (name) values (?) on duplicate key update name = name";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PersonRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(Collection<String> names) {
+        List<Object[]> rows = names.stream().map(name -> new Object[]{name}).toList();
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
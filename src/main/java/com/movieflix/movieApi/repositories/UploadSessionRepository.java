@@ -0,0 +1,34 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.entities.UploadSession;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByExpiresAtBefore(Instant expiresAt, Limit limit);
+
+    long countByOwner(String owner);
+
+    // moves the offset on only if no other request moved it since it was read
+    @Transactional
+    @Modifying
+    @Query("update UploadSession s set s.received = ?3, s.expiresAt = ?4 where s.uploadId = ?1 and s.received = ?2")
+    int advance(String uploadId, long expected, long received, Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UploadSession s where s.uploadId = ?1")
+    int deleteByUploadId(String uploadId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UploadSession s where s.uploadId = ?1 and s.owner = ?2")
+    int deleteByUploadIdAndOwner(String uploadId, String owner);
+}
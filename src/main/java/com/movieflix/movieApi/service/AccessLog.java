@@ -0,0 +1,338 @@
+package com.movieflix.movieApi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured access log written off the request path.
+ * <p>
+ * Request threads claim a sequence with a CAS, copy the event into the preallocated slot it maps
+ * to and publish the slot by storing its sequence; nothing is allocated or locked per event. One
+ * writer thread drains published slots in order, formats them as JSON lines and flushes once per
+ * batch to {@code access.log}, which is rotated by size. When the writer falls a full ring
+ * behind, events are dropped and counted ({@code DROP}) or the request thread waits for a free
+ * slot ({@code BLOCK}). Sampled SQL statements travel through the same ring.
+ */
+@Slf4j
+@Component
+public class AccessLog {
+
+    public enum FullPolicy { DROP, BLOCK }
+
+    private static final byte ACCESS = 1;
+    private static final byte SQL = 2;
+    private static final int MAX_TEXT = 1024;
+    private static final int MAX_USER = 128;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final FullPolicy policy;
+    private final int batchSize;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private final Slot[] slots;
+    private final int mask;
+    // the sequence each slot was last published with, -1 until first use
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    // every sequence below this one has been copied out by the writer and its slot may be reused
+    private volatile long consumed;
+    private volatile boolean running;
+    private Thread writer;
+
+    private final Counter written;
+    private final Counter dropped;
+
+    public AccessLog(MeterRegistry meterRegistry,
+                     @Value("${project.access-log.enabled:true}") boolean enabled,
+                     @Value("${project.access-log.directory:logs}") String directory,
+                     @Value("${project.access-log.capacity:8192}") int capacity,
+                     @Value("${project.access-log.full-policy:DROP}") FullPolicy policy,
+                     @Value("${project.access-log.batch-size:256}") int batchSize,
+                     @Value("${project.access-log.max-file-size:64MB}") DataSize maxFileSize,
+                     @Value("${project.access-log.max-files:10}") int maxFiles) {
+        if(Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("project.access-log.capacity must be a power of two, was " + capacity);
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.maxFiles = maxFiles;
+
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        this.written = meterRegistry.counter("access.log.events", "result", "written");
+        this.dropped = meterRegistry.counter("access.log.events", "result", "dropped");
+        Gauge.builder("access.log.backlog", this, AccessLog::backlog).register(meterRegistry);
+    }
+
+    @PostConstruct
+    synchronized void start() throws IOException {
+        if(!enabled || running){
+            return;
+        }
+        Files.createDirectories(directory);
+        RollingFile file = new RollingFile(directory.resolve("access.log"), maxFileBytes, maxFiles);
+        running = true;
+        writer = Thread.ofPlatform().name("access-log-writer").daemon().start(() -> drain(file));
+    }
+
+    // stops accepting events, waits for the writer to drain what was already published
+    @PreDestroy
+    synchronized void stop() throws InterruptedException {
+        if(!running){
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public void access(String method, CharSequence path, int status, long durationNanos, int sqlStatements, String user) {
+        long sequence = claim();
+        if(sequence < 0){
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = ACCESS;
+        slot.timestamp = System.currentTimeMillis();
+        slot.method = method;
+        slot.textLength = copy(path, slot.text);
+        slot.status = status;
+        slot.durationNanos = durationNanos;
+        slot.sqlStatements = sqlStatements;
+        slot.userLength = user == null ? -1 : copy(user, slot.user);
+        published.set((int) sequence & mask, sequence);
+    }
+
+    public void sql(String sql) {
+        long sequence = claim();
+        if(sequence < 0){
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = SQL;
+        slot.timestamp = System.currentTimeMillis();
+        slot.textLength = copy(sql, slot.text);
+        published.set((int) sequence & mask, sequence);
+    }
+
+    public long backlog() {
+        return claimed.get() - consumed;
+    }
+
+    public double droppedEvents() {
+        return dropped.count();
+    }
+
+    // the next free sequence, or -1 if the event is dropped
+    private long claim() {
+        if(!enabled){
+            return -1;
+        }
+        while (true) {
+            long sequence = claimed.get();
+            if(sequence - consumed >= slots.length){
+                // without a running writer nothing would ever free a slot, so blocking is not an option
+                if(policy == FullPolicy.DROP || !running){
+                    dropped.increment();
+                    return -1;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                continue;
+            }
+            if(claimed.compareAndSet(sequence, sequence + 1)){
+                return sequence;
+            }
+        }
+    }
+
+    private void drain(RollingFile file) {
+        StringBuilder line = new StringBuilder(MAX_TEXT * 2);
+        long next = consumed;
+        try {
+            // after stop() keep going until every claimed slot has been published and written
+            while (running || next < claimed.get()) {
+                int batch = 0;
+                while (batch < batchSize && published.get((int) next & mask) == next) {
+                    line.setLength(0);
+                    format(slots[(int) next & mask], line);
+                    consumed = ++next;
+                    file.write(line);
+                    batch++;
+                }
+                if(batch > 0){
+                    file.flush();
+                    written.increment(batch);
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Access log writer stopped, further events are dropped", e);
+            running = false;
+        } finally {
+            file.close();
+        }
+    }
+
+    private static void format(Slot slot, StringBuilder line) {
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(slot.timestamp)).append('"');
+        if(slot.type == ACCESS){
+            line.append(",\"type\":\"access\",\"method\":\"").append(slot.method).append('"');
+            line.append(",\"path\":");
+            quote(slot.text, slot.textLength, line);
+            line.append(",\"status\":").append(slot.status);
+            line.append(",\"durationMicros\":").append(slot.durationNanos / 1_000);
+            line.append(",\"sqlStatements\":").append(slot.sqlStatements);
+            if(slot.userLength >= 0){
+                line.append(",\"user\":");
+                quote(slot.user, slot.userLength, line);
+            }
+        } else {
+            line.append(",\"type\":\"sql\",\"sql\":");
+            quote(slot.text, slot.textLength, line);
+        }
+        line.append("}\n");
+    }
+
+    private static void quote(char[] text, int length, StringBuilder line) {
+        line.append('"');
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if(c < 0x20){
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    // longer values are truncated to the slot's capacity
+    private static int copy(CharSequence value, char[] target) {
+        int length = Math.min(value.length(), target.length);
+        for (int i = 0; i < length; i++) {
+            target[i] = value.charAt(i);
+        }
+        return length;
+    }
+
+    // mutable event, written by the producer that claimed it and read by the writer after it is published
+    private static final class Slot {
+        private byte type;
+        private long timestamp;
+        private String method;
+        private final char[] text = new char[MAX_TEXT];
+        private int textLength;
+        private int status;
+        private long durationNanos;
+        private int sqlStatements;
+        private final char[] user = new char[MAX_USER];
+        private int userLength;
+    }
+
+    // appends UTF-8 lines, renames the file to .1 once it passes the size limit and shifts older ones up
+    private static final class RollingFile implements Closeable {
+
+        private final Path file;
+        private final long maxBytes;
+        private final int maxFiles;
+        private OutputStream out;
+        private long size;
+
+        private RollingFile(Path file, long maxBytes, int maxFiles) throws IOException {
+            this.file = file;
+            this.maxBytes = maxBytes;
+            this.maxFiles = maxFiles;
+            open();
+        }
+
+        private void write(CharSequence line) throws IOException {
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if(size > 0 && size + bytes.length > maxBytes){
+                rotate();
+            }
+            out.write(bytes);
+            size += bytes.length;
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+
+        private void rotate() throws IOException {
+            out.close();
+            Files.deleteIfExists(rotated(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                if(Files.exists(rotated(i))){
+                    Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            open();
+        }
+
+        private Path rotated(int index) {
+            return file.resolveSibling(file.getFileName() + "." + index);
+        }
+
+        private void open() throws IOException {
+            out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+            size = Files.size(file);
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Could not close {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.entities.CacheInvalidation;
+import com.movieflix.movieApi.repositories.CacheInvalidationRepository;
+import com.movieflix.movieApi.utils.AppConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the local movie and poster caches coherent across nodes that share one database.
+ * <p>
+ * Every change appends rows to {@code cache_invalidation} in the writer's transaction, and each
+ * node tails the table by id above its high-water mark, evicting the entries the rows name.
+ * Identity values are handed out before commit, so an id skipped by a poll is remembered as a
+ * gap and fetched again until it shows up or the gap timeout passes (rolled back inserts leave
+ * permanent holes). Idle polls back off up to {@code max-poll-interval}, which bounds staleness
+ * after a quiet period; rows older than the retention are pruned, and a node that could not
+ * poll for that long clears its caches instead of trusting a log that may have been pruned.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationLog {
+
+    private final CacheInvalidationRepository invalidationRepository;
+    private final CacheManager cacheManager;
+    private final PosterCache posterCache;
+    private final TitleIndex titleIndex;
+    private final MovieFacetIndex facetIndex;
+    private final SimilarMovies similarMovies;
+    private final Duration pollInterval;
+    private final Duration maxPollInterval;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final int batchSize;
+
+    // guarded by this
+    private Long highWaterMark;
+    private final Map<Long, Instant> gaps = new HashMap<>();
+    private Instant lastSuccessfulPoll;
+    private Instant nextPoll = Instant.MIN;
+    private Duration backoff;
+
+    public CacheInvalidationLog(CacheInvalidationRepository invalidationRepository,
+                                CacheManager cacheManager,
+                                PosterCache posterCache,
+                                TitleIndex titleIndex,
+                                MovieFacetIndex facetIndex,
+                                SimilarMovies similarMovies,
+                                @Value("${project.cache-invalidation.poll-interval:PT1S}") Duration pollInterval,
+                                @Value("${project.cache-invalidation.max-poll-interval:PT5S}") Duration maxPollInterval,
+                                @Value("${project.cache-invalidation.gap-timeout:PT1M}") Duration gapTimeout,
+                                @Value("${project.cache-invalidation.retention:PT1H}") Duration retention,
+                                @Value("${project.cache-invalidation.batch-size:500}") int batchSize) {
+        this.invalidationRepository = invalidationRepository;
+        this.cacheManager = cacheManager;
+        this.posterCache = posterCache;
+        this.titleIndex = titleIndex;
+        this.facetIndex = facetIndex;
+        this.similarMovies = similarMovies;
+        this.pollInterval = pollInterval;
+        this.maxPollInterval = maxPollInterval;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.backoff = pollInterval;
+    }
+
+    // must run inside the transaction that makes the change, one row per poster the change touches
+    public void record(Integer movieId, String... posters) {
+        Instant now = Instant.now();
+        if(posters.length == 0){
+            invalidationRepository.save(new CacheInvalidation(null, movieId, null, now));
+        }
+        for (String poster : posters) {
+            invalidationRepository.save(new CacheInvalidation(null, movieId, poster, now));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.cache-invalidation.poll-interval:PT1S}")
+    public synchronized void poll() {
+        Instant now = Instant.now();
+        if(now.isBefore(nextPoll)){
+            return;
+        }
+
+        try {
+            int applied = tail();
+            backoff = applied > 0 ? pollInterval : min(backoff.multipliedBy(2), maxPollInterval);
+        } catch (DataAccessException e) {
+            backoff = min(backoff.multipliedBy(2), maxPollInterval);
+            log.warn("Polling the cache invalidation log failed, retrying in {}: {}", backoff, e.getMessage());
+        }
+        nextPoll = now.plus(backoff);
+    }
+
+    // reads everything past the high-water mark plus any open gaps, returns the number of rows applied
+    synchronized int tail() {
+        Instant now = Instant.now();
+
+        //1. A new node starts with empty caches and only replays the window in which ids may still be committing
+        if(highWaterMark == null || lastSuccessfulPoll.isBefore(now.minus(retention))){
+            if(highWaterMark != null){
+                log.warn("Cache invalidation log was not read for over {}, clearing local caches", retention);
+                clearAll();
+            }
+            highWaterMark = invalidationRepository.findMaxIdCreatedBefore(now.minus(gapTimeout)).orElse(0L);
+            gaps.clear();
+        }
+
+        //2. Re-read gaps left by transactions that had not committed on an earlier poll
+        List<CacheInvalidation> applied = new ArrayList<>();
+        if(!gaps.isEmpty()){
+            for (CacheInvalidation row : invalidationRepository.findAllById(new ArrayList<>(gaps.keySet()))) {
+                gaps.remove(row.getId());
+                apply(row);
+                applied.add(row);
+            }
+            gaps.values().removeIf(seen -> seen.isBefore(now.minus(gapTimeout)));
+        }
+
+        //3. Advance past new rows in id order, remembering the ids that were skipped
+        List<CacheInvalidation> rows;
+        do {
+            rows = invalidationRepository.findByIdGreaterThanOrderByIdAsc(highWaterMark, Limit.of(batchSize));
+            for (CacheInvalidation row : rows) {
+                // a jump wider than a batch is an auto-increment gap, not transactions in flight
+                if(row.getId() - highWaterMark <= batchSize){
+                    for (long missing = highWaterMark + 1; missing < row.getId(); missing++) {
+                        gaps.put(missing, now);
+                    }
+                }
+                apply(row);
+                applied.add(row);
+                highWaterMark = row.getId();
+            }
+        } while (rows.size() == batchSize);
+
+        //4. Search indexes are refreshed once per changed movie rather than once per row
+        applied.stream().map(CacheInvalidation::getMovieId).filter(Objects::nonNull).distinct().forEach(movieId -> {
+            titleIndex.refresh(movieId);
+            facetIndex.refresh(movieId);
+            similarMovies.refresh(movieId);
+        });
+
+        lastSuccessfulPoll = now;
+        return applied.size();
+    }
+
+    @Scheduled(fixedDelayString = "${project.cache-invalidation.prune-interval:PT10M}")
+    public void prune() {
+        int pruned = invalidationRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        if(pruned > 0){
+            log.debug("Pruned {} cache invalidation rows", pruned);
+        }
+    }
+
+    private void apply(CacheInvalidation row) {
+        Cache movies = cacheManager.getCache(AppConstants.MOVIE_CACHE);
+        if(row.getMovieId() != null && movies != null){
+            movies.evict(row.getMovieId());
+        }
+        if(row.getPoster() != null){
+            posterCache.invalidate(row.getPoster());
+        }
+    }
+
+    private void clearAll() {
+        Cache movies = cacheManager.getCache(AppConstants.MOVIE_CACHE);
+        if(movies != null){
+            movies.clear();
+        }
+        posterCache.invalidateAll();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -3,9 +3,11 @@ package com.movieflix.movieApi.service;
 import com.movieflix.movieApi.dto.MailBody;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 @Service
+@Lazy
 public class EmailService {
     private final JavaMailSender javaMailSender;
 
@@ -1,14 +1,33 @@
 package com.movieflix.movieApi.service;
 
+import com.movieflix.movieApi.dto.PosterUpload;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface FileService {
 
       String uploadFile(String path, MultipartFile file) throws IOException;
 
+      PosterUpload uploadFile(String path, String fileName, InputStream content) throws IOException;
+
+      boolean deleteFile(String path, String fileName) throws IOException;
+
+      // publishes the poster stored as stagedName under fileName, replacing what was there
+      void replaceFile(String path, String stagedName, String fileName) throws IOException;
+
       InputStream getResourceFile(String path, String fileName) throws FileNotFoundException;
+
+      // bytes in the stored poster, FileNotFoundException if there is none
+      long fileSize(String path, String fileName) throws IOException;
+
+      default void writeFile(String path, String fileName, OutputStream out) throws IOException {
+            try (InputStream in = getResourceFile(path, fileName)) {
+                  StreamUtils.copy(in, out);
+            }
+      }
 }
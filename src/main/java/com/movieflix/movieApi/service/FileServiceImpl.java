@@ -1,34 +1,93 @@
 package com.movieflix.movieApi.service;
 
+import com.movieflix.movieApi.dto.PosterUpload;
+import com.movieflix.movieApi.exceptions.FileExistsException;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
 
 @Service
+@Lazy
+@ConditionalOnProperty(name = "project.poster-store", havingValue = "file", matchIfMissing = true)
 public class FileServiceImpl implements FileService{
 
+    @Value("${project.poster-max-size:10MB}")
+    private DataSize maxPosterSize;
+
     @Override
     public String uploadFile(String path, MultipartFile file) throws IOException {
+        //1. Resolve the target inside the poster directory
+        Path directory = posterDirectory(path);
+        Path target = target(directory, file.getOriginalFilename());
 
-        // get name of the file
-        String fileName = file.getOriginalFilename();
+        //2. The container moves its spooled part here, a rename when the multipart location shares the file system
+        Path temp = directory.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+        try {
+            file.transferTo(temp.toFile());
+            try (InputStream in = Files.newInputStream(temp)) {
+                PosterStreams.copyValidated(in, OutputStream.nullOutputStream(), maxPosterSize.toBytes());
+            }
 
-        // get file path
-        String filePath = path + File.separator + fileName;
+            //3. Publish without ever replacing an existing poster
+            publish(temp, target);
+            return file.getOriginalFilename();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public PosterUpload uploadFile(String path, String fileName, InputStream content) throws IOException {
+        //1. Resolve the target inside the poster directory
+        Path directory = posterDirectory(path);
+        Path target = target(directory, fileName);
+
+        //2. Stream into a temp file on the same file system, validating and hashing in the same pass
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = PosterStreams.sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = PosterStreams.copyValidated(in, out, maxPosterSize.toBytes());
+            }
 
-        // create a file object
-        File f = new File(path);
-        if(!f.exists()){
-            f.mkdir();
+            //3. Publish without ever replacing an existing poster
+            publish(temp, target);
+
+            return new PosterUpload(fileName, HexFormat.of().formatHex(digest.digest()), size);
+        } finally {
+            Files.deleteIfExists(temp);
         }
+    }
 
-        // copy the file to the path
-        Files.copy(file.getInputStream(), Paths.get(filePath));
+    @Override
+    public boolean deleteFile(String path, String fileName) throws IOException {
+        return Files.deleteIfExists(Paths.get(path + File.separator + fileName));
+    }
 
-        return fileName;
+    // a rename within the directory, readers see either the old poster or the new one
+    @Override
+    public void replaceFile(String path, String stagedName, String fileName) throws IOException {
+        Path directory = posterDirectory(path);
+        Files.move(directory.resolve(stagedName), directory.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     @Override
@@ -38,4 +97,40 @@ public class FileServiceImpl implements FileService{
 
         return new FileInputStream(filePath);
     }
+
+    @Override
+    public long fileSize(String path, String fileName) throws IOException {
+        try {
+            return Files.size(Paths.get(path + File.separator + fileName));
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path + File.separator + fileName);
+        }
+    }
+
+    private static Path posterDirectory(String path) throws IOException {
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        return directory;
+    }
+
+    private static Path target(Path directory, String fileName) {
+        Path target = directory.resolve(fileName == null ? "" : fileName).normalize();
+        if(fileName == null || fileName.isBlank() || !directory.equals(target.getParent())){
+            throw new InvalidRequestException("Invalid file name: " + fileName);
+        }
+        // fails fast before any bytes are written, publish() is what actually guards the name
+        if(Files.exists(target)){
+            throw new FileExistsException("File already exists! Please enter another file name.");
+        }
+        return target;
+    }
+
+    // a hard link appears atomically and fails if the name is taken, unlike a rename, which silently replaces it
+    private static void publish(Path temp, Path target) throws IOException {
+        try {
+            Files.createLink(target, temp);
+        } catch (FileAlreadyExistsException e) {
+            throw new FileExistsException("File already exists! Please enter another file name.");
+        }
+    }
 }
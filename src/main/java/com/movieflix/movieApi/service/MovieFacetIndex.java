@@ -0,0 +1,296 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieFilter;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps of movie ids for every studio, director and cast member, used to answer
+ * filter trees and facet counts without SQL.
+ * <p>
+ * {@code releaseYear} is range encoded: the bitmap stored for year y holds every movie released
+ * in y or earlier, so any year range is one {@code andNot} of two bitmaps and per-year counts are
+ * differences of neighbouring cumulative counts. Facet counts are cardinalities of the match
+ * intersected with each value's bitmap.
+ */
+@Slf4j
+@Component
+public class MovieFacetIndex {
+
+    public static final String RELEASE_YEAR = "releaseYear";
+    public static final Set<String> VALUE_FIELDS = Set.of("studio", "director", "movieCast");
+    private static final int MAX_FACET_VALUES = 20;
+
+    private final MovieRepository movieRepository;
+    private final int loadBatchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, Map<String, RoaringBitmap>> values = new HashMap<>();
+    private final TreeMap<Integer, RoaringBitmap> releasedUpTo = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    public MovieFacetIndex(MovieRepository movieRepository,
+                           @Value("${project.facets.load-batch-size:5000}") int loadBatchSize) {
+        this.movieRepository = movieRepository;
+        this.loadBatchSize = loadBatchSize;
+        VALUE_FIELDS.forEach(field -> values.put(field, new HashMap<>()));
+    }
+
+    // what removal needs to know about an indexed movie
+    private record Document(int releaseYear, String studio, String director, Set<String> movieCast) {
+    }
+
+    public record Result(List<Integer> movieIds, long totalElements, Map<String, Map<String, Integer>> facets) {
+    }
+
+    public Result search(MovieFilter filter, List<String> facets, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            //1. Evaluate the filter tree to one bitmap
+            RoaringBitmap match = filter == null ? all.clone() : evaluate(filter);
+
+            //2. Page through the match in id order, a page past the end is empty
+            List<Integer> page = new ArrayList<>(limit);
+            if(offset < match.getLongCardinality()){
+                PeekableIntIterator ids = match.getIntIterator();
+                ids.advanceIfNeeded(match.select((int) offset));
+                while (ids.hasNext() && page.size() < limit) {
+                    page.add(ids.next());
+                }
+            }
+
+            //3. Count each requested facet within the match
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : facets == null ? List.<String>of() : facets) {
+                counts.put(facet, RELEASE_YEAR.equals(facet) ? yearCounts(match) : valueCounts(field(facet), match));
+            }
+            return new Result(page, match.getCardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(MovieDto movie) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(movie.getMovieId());
+            int id = movie.getMovieId();
+            all.add(id);
+            value("studio", movie.getStudio()).add(id);
+            value("director", movie.getDirector()).add(id);
+            if(movie.getMovieCast() != null){
+                movie.getMovieCast().forEach(member -> value("movieCast", member).add(id));
+            }
+
+            // a year seen for the first time starts from the cumulative bitmap of the year before it
+            int year = movie.getReleaseYear();
+            if(!releasedUpTo.containsKey(year)){
+                Map.Entry<Integer, RoaringBitmap> earlier = releasedUpTo.lowerEntry(year);
+                releasedUpTo.put(year, earlier == null ? new RoaringBitmap() : earlier.getValue().clone());
+            }
+            releasedUpTo.tailMap(year, true).values().forEach(bitmap -> bitmap.add(id));
+            documents.put(id, new Document(year, movie.getStudio(), movie.getDirector(), movie.getMovieCast()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // applies the columns of a partial update to an indexed movie, the rest is kept from its document
+    public void patch(Integer movieId, MoviePatch patch) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.get(movieId);
+            if(previous == null){
+                return;
+            }
+            MovieDto movie = new MovieDto();
+            movie.setMovieId(movieId);
+            movie.setStudio(patch.studio() != null ? patch.studio() : previous.studio());
+            movie.setDirector(patch.director() != null ? patch.director() : previous.director());
+            movie.setReleaseYear(patch.releaseYear() != null ? patch.releaseYear() : previous.releaseYear());
+            movie.setMovieCast(previous.movieCast());
+            put(movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer movieId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(movieId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // re-reads one movie after a change made on another node
+    public void refresh(Integer movieId) {
+        movieRepository.findProjectionById(movieId).ifPresentOrElse(
+                movie -> put(movie.toMovieDto(null)),
+                () -> remove(movieId));
+    }
+
+    // writes arriving while the database is read wait for the lock and apply on top
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            values.values().forEach(Map::clear);
+            releasedUpTo.clear();
+            documents.clear();
+
+            Integer lastId = 0;
+            List<MovieProjection> batch;
+            while (!(batch = movieRepository.findProjectionsAfter(lastId, Limit.of(loadBatchSize))).isEmpty()) {
+                batch.forEach(movie -> put(movie.toMovieDto(null)));
+                lastId = batch.get(batch.size() - 1).movieId();
+            }
+            all.runOptimize();
+            values.values().forEach(bitmaps -> bitmaps.values().forEach(RoaringBitmap::runOptimize));
+            releasedUpTo.values().forEach(RoaringBitmap::runOptimize);
+            log.info("Loaded {} movies into the facet index", documents.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private RoaringBitmap evaluate(MovieFilter filter) {
+        int kinds = (filter.and() != null ? 1 : 0) + (filter.or() != null ? 1 : 0) + (filter.field() != null ? 1 : 0);
+        if(kinds != 1){
+            throw new InvalidRequestException("Each filter needs exactly one of 'and', 'or' or 'field'.");
+        }
+
+        if(filter.and() != null){
+            RoaringBitmap result = all.clone();
+            filter.and().forEach(child -> result.and(evaluate(child)));
+            return result;
+        }
+        if(filter.or() != null){
+            RoaringBitmap result = new RoaringBitmap();
+            filter.or().forEach(child -> result.or(evaluate(child)));
+            return result;
+        }
+
+        if(RELEASE_YEAR.equals(filter.field())){
+            if(filter.from() == null && filter.to() == null){
+                throw new InvalidRequestException("A releaseYear filter needs 'from', 'to' or both.");
+            }
+            return yearRange(filter.from() == null ? Integer.MIN_VALUE : filter.from(), filter.to() == null ? Integer.MAX_VALUE : filter.to());
+        }
+        Map<String, RoaringBitmap> bitmaps = field(filter.field());
+        if(filter.anyOf() == null || filter.anyOf().isEmpty()){
+            throw new InvalidRequestException("A " + filter.field() + " filter needs at least one value in 'anyOf'.");
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        filter.anyOf().forEach(value -> {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if(bitmap != null){
+                result.or(bitmap);
+            }
+        });
+        return result;
+    }
+
+    private RoaringBitmap yearRange(int from, int to) {
+        if(from > to){
+            return new RoaringBitmap();
+        }
+        Map.Entry<Integer, RoaringBitmap> upTo = releasedUpTo.floorEntry(to);
+        if(upTo == null){
+            return new RoaringBitmap();
+        }
+        Map.Entry<Integer, RoaringBitmap> before = releasedUpTo.lowerEntry(from);
+        return before == null ? upTo.getValue().clone() : RoaringBitmap.andNot(upTo.getValue(), before.getValue());
+    }
+
+    private Map<String, Integer> yearCounts(RoaringBitmap match) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        int previous = 0;
+        for (Map.Entry<Integer, RoaringBitmap> year : releasedUpTo.entrySet()) {
+            int cumulative = RoaringBitmap.andCardinality(match, year.getValue());
+            if(cumulative > previous){
+                counts.put(year.getKey().toString(), cumulative - previous);
+            }
+            previous = cumulative;
+        }
+        return counts;
+    }
+
+    // the most frequent values within the match
+    private Map<String, Integer> valueCounts(Map<String, RoaringBitmap> bitmaps, RoaringBitmap match) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        bitmaps.forEach((value, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(match, bitmap);
+            if(count > 0){
+                counts.add(Map.entry(value, count));
+            }
+        });
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Integer> top = new LinkedHashMap<>();
+        counts.stream().limit(MAX_FACET_VALUES).forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private Map<String, RoaringBitmap> field(String field) {
+        Map<String, RoaringBitmap> bitmaps = values.get(field);
+        if(bitmaps == null){
+            throw new InvalidRequestException("Cannot filter by '" + field + "'. Filterable fields are " + VALUE_FIELDS + " and " + RELEASE_YEAR);
+        }
+        return bitmaps;
+    }
+
+    private RoaringBitmap value(String field, String value) {
+        return values.get(field).computeIfAbsent(value, v -> new RoaringBitmap());
+    }
+
+    private void removeLocked(Integer movieId) {
+        Document previous = documents.remove(movieId);
+        if(previous == null){
+            return;
+        }
+        int id = movieId;
+        all.remove(id);
+        unset("studio", previous.studio(), id);
+        unset("director", previous.director(), id);
+        if(previous.movieCast() != null){
+            previous.movieCast().forEach(member -> unset("movieCast", member, id));
+        }
+        releasedUpTo.tailMap(previous.releaseYear(), true).values().forEach(bitmap -> bitmap.remove(id));
+    }
+
+    private void unset(String field, String value, int id) {
+        RoaringBitmap bitmap = values.get(field).get(value);
+        if(bitmap != null){
+            bitmap.remove(id);
+            if(bitmap.isEmpty()){
+                values.get(field).remove(value);
+            }
+        }
+    }
+}
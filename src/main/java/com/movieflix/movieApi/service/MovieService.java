@@ -1,25 +1,55 @@
 package com.movieflix.movieApi.service;
 
+import com.movieflix.movieApi.dto.MovieBatchResult;
 import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieFilterRequest;
+import com.movieflix.movieApi.dto.MovieFilterResponse;
 import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.SimilarMovie;
+import com.movieflix.movieApi.dto.SparseMoviePageResponse;
+import com.movieflix.movieApi.dto.TrendingMovie;
+import com.movieflix.movieApi.utils.MovieFields;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface MovieService {
 
     MovieDto addMovie(MovieDto movieDto, MultipartFile file) throws IOException;
 
+    // the poster is a finished resumable upload the owner opened, published together with the movie
+    MovieDto addMovie(MovieDto movieDto, String uploadId, String owner) throws IOException;
+
     MovieDto getMovie(Integer movieId);
 
     List<MovieDto> getAllMovies();
 
+    List<MovieBatchResult> getMovies(List<Integer> movieIds);
+
     MovieDto updateMovie(Integer movieId, MovieDto movieDto, MultipartFile file) throws IOException;
 
+    long patchMovie(Integer movieId, Long version, MoviePatch patch);
+
     String deleteMovie(Integer movieId) throws IOException;
 
     MoviePageResponse getAllMoviesWithPagination(Integer pageNumber, Integer pageSize);
 
     MoviePageResponse getAllMoviesWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir);
+
+    MoviePageResponse getMoviesByPerson(Integer personId, Integer pageNumber, Integer pageSize);
+
+    Map<String, Object> getMovie(Integer movieId, MovieFields fields);
+
+    List<Map<String, Object>> getAllMovies(MovieFields fields);
+
+    SparseMoviePageResponse getAllMoviesWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir, MovieFields fields);
+
+    MovieFilterResponse filterMovies(MovieFilterRequest request);
+
+    List<TrendingMovie> getTrendingMovies(int limit);
+
+    List<SimilarMovie> getSimilarMovies(Integer movieId, int limit);
 }
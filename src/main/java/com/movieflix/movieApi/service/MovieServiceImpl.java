@@ -1,35 +1,89 @@
 package com.movieflix.movieApi.service;
 
+import com.movieflix.movieApi.dto.MovieBatchResult;
 import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieFilterRequest;
+import com.movieflix.movieApi.dto.MovieFilterResponse;
 import com.movieflix.movieApi.dto.MoviePageResponse;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.dto.SimilarMovie;
+import com.movieflix.movieApi.dto.SparseMoviePageResponse;
+import com.movieflix.movieApi.dto.TrendingMovie;
 import com.movieflix.movieApi.entities.Movie;
-import com.movieflix.movieApi.exceptions.FileExistsException;
+import com.movieflix.movieApi.entities.Person;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
 import com.movieflix.movieApi.exceptions.MovieNotFoundException;
+import com.movieflix.movieApi.exceptions.PersonNotFoundException;
+import com.movieflix.movieApi.exceptions.PreconditionFailedException;
 import com.movieflix.movieApi.repositories.MovieRepository;
+import com.movieflix.movieApi.repositories.MovieStatsRepository;
+import com.movieflix.movieApi.repositories.PersonRepository;
+import com.movieflix.movieApi.utils.AppConstants;
+import com.movieflix.movieApi.utils.MovieFields;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
+@Slf4j
 @Service
 public class MovieServiceImpl implements MovieService {
 
     private final MovieRepository movieRepository;
+    private final PersonRepository personRepository;
     private final FileService fileService;
-
-    public MovieServiceImpl(MovieRepository movieRepository, FileService fileService) {
+    private final CacheManager cacheManager;
+    private final PosterCache posterCache;
+    private final CacheInvalidationLog invalidationLog;
+    private final TitleIndex titleIndex;
+    private final MovieFacetIndex facetIndex;
+    private final MovieStatsRepository statsRepository;
+    private final ViewCounter viewCounter;
+    private final SimilarMovies similarMovies;
+    private final PosterUploads posterUploads;
+
+    public MovieServiceImpl(MovieRepository movieRepository, PersonRepository personRepository, @Lazy FileService fileService, CacheManager cacheManager, PosterCache posterCache,
+                            CacheInvalidationLog invalidationLog, TitleIndex titleIndex, MovieFacetIndex facetIndex,
+                            MovieStatsRepository statsRepository, ViewCounter viewCounter, SimilarMovies similarMovies,
+                            PosterUploads posterUploads) {
         this.movieRepository = movieRepository;
+        this.personRepository = personRepository;
         this.fileService = fileService;
+        this.cacheManager = cacheManager;
+        this.posterCache = posterCache;
+        this.invalidationLog = invalidationLog;
+        this.titleIndex = titleIndex;
+        this.facetIndex = facetIndex;
+        this.statsRepository = statsRepository;
+        this.viewCounter = viewCounter;
+        this.similarMovies = similarMovies;
+        this.posterUploads = posterUploads;
     }
 
     @Value("${project.poster}")
@@ -39,129 +93,176 @@ public class MovieServiceImpl implements MovieService {
     private String baseUrl;
 
     @Override
+    @Transactional
     public MovieDto addMovie(MovieDto movieDto, MultipartFile file) throws IOException {
-        //1. Upload the file
-        if(Files.exists(Paths.get(path + File.separator + file.getOriginalFilename()))){
-            throw new FileExistsException("File already exists! Please enter another file name.");
-        }
+        //1. Upload the file, it is published before the insert and removed again if the transaction rolls back
         String uploadedFileName = fileService.uploadFile(path, file);
+        deletePosterAfterCompletion(uploadedFileName, false);
+
+        return saveNewMovie(movieDto, uploadedFileName);
+    }
 
-        //2. Set the value of field 'poster' as filename
+    @Override
+    @Transactional
+    public MovieDto addMovie(MovieDto movieDto, String uploadId, String owner) throws IOException {
+        //1. Publish the finished upload, if the transaction rolls back the poster is removed and the upload kept for a retry
+        String uploadedFileName = posterUploads.complete(owner, uploadId).fileName();
+        deletePosterAfterCompletion(uploadedFileName, false);
+
+        return saveNewMovie(movieDto, uploadedFileName);
+    }
+
+    private MovieDto saveNewMovie(MovieDto movieDto, String uploadedFileName) {
+        //1. Set the value of field 'poster' as filename
         movieDto.setPoster(uploadedFileName);
 
-        //3. We map dto to movie object
+        //2. We map dto to movie object, cast names resolve to existing persons where possible
         Movie movie = new Movie(
                 null,
                 movieDto.getTitle(),
                 movieDto.getDirector(),
                 movieDto.getStudio(),
-                movieDto.getMovieCast(),
+                resolveCast(movieDto),
                 movieDto.getReleaseYear(),
-                movieDto.getPoster()
+                movieDto.getPoster(),
+                null
         );
 
-        //4. Save the movie object ---> returns saved Movie object
+        //3. Save the movie object ---> returns saved Movie object
         Movie savedMovie = movieRepository.save(movie);
+        invalidationLog.record(savedMovie.getMovieId(), uploadedFileName);
 
-        //5. Generate the poster url
+        //4. Generate the poster url
         String posterUrl = baseUrl + "/file/" + uploadedFileName;
 
-        //6. Map Movie object to DTO object and return
+        //5. Map Movie object to DTO object and return
         MovieDto response = new MovieDto(
                 savedMovie.getMovieId(),
                 savedMovie.getTitle(),
                 savedMovie.getDirector(),
                 savedMovie.getStudio(),
-                savedMovie.getMovieCast(),
+                castNames(savedMovie),
                 savedMovie.getReleaseYear(),
                 savedMovie.getPoster(),
-                posterUrl
+                posterUrl,
+                savedMovie.getVersion()
         );
+        afterCommit(() -> {
+            titleIndex.put(response.getMovieId(), response.getTitle());
+            facetIndex.put(response);
+            similarMovies.put(response);
+        });
 
         return response;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = AppConstants.MOVIE_CACHE, key = "#movieId")
     public MovieDto getMovie(Integer movieId) {
-        //1. Check the data in DB and if exists fetch the data for given ID
-        Movie movie = movieRepository.findById(movieId).orElseThrow(() -> new MovieNotFoundException("Movie not found with ID:" + movieId));
+        //1. Select the projection for given ID, no managed entity is created
+        MovieProjection movie = movieRepository.findProjectionById(movieId).orElseThrow(() -> new MovieNotFoundException("Movie not found with ID:" + movieId));
 
-        //2. Generate poster url
-        String posterUrl = baseUrl + "/file/" + movie.getPoster();
+        //2. Map to MovieDto object with poster url and return
+        return movie.toMovieDto(baseUrl);
+    }
 
-        //3. Map to MovieDto object and return
-        MovieDto response = new MovieDto(
-                movie.getMovieId(),
-                movie.getTitle(),
-                movie.getDirector(),
-                movie.getStudio(),
-                movie.getMovieCast(),
-                movie.getReleaseYear(),
-                movie.getPoster(),
-                posterUrl
-        );
+    @Override
+    @Transactional(readOnly = true)
+    public List<MovieDto> getAllMovies() {
+        //1. fetch all rows as projections, cast is aggregated in the same query
+        List<MovieProjection> movies = movieRepository.findAllProjections();
+
+        //2. Map each projection to MovieDto with its poster url
+        List<MovieDto> response = new ArrayList<>(movies.size());
+        movies.forEach(movie -> response.add(movie.toMovieDto(baseUrl)));
 
         return response;
     }
 
     @Override
-    public List<MovieDto> getAllMovies() {
-        //1. fetch all data from DB
-        List<Movie> movies = movieRepository.findAll();
-
-        //2. Iterate through the list and generate poster url for each of them, add map to MovieDto
-        List<MovieDto> response = new ArrayList<>();
-
-        movies.forEach(movie -> {
-            String posterUrl = baseUrl + "/file/" + movie.getPoster();
-
-            MovieDto movieDto = new MovieDto(
-                    movie.getMovieId(),
-                    movie.getTitle(),
-                    movie.getDirector(),
-                    movie.getStudio(),
-                    movie.getMovieCast(),
-                    movie.getReleaseYear(),
-                    movie.getPoster(),
-                    posterUrl
-            );
-
-            response.add(movieDto);
-        });
+    @Transactional(readOnly = true)
+    public List<MovieBatchResult> getMovies(List<Integer> movieIds) {
+        //1. Serve whatever is already cached per id and collect the misses
+        Cache cache = cacheManager.getCache(AppConstants.MOVIE_CACHE);
+        Map<Integer, MovieDto> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+
+        for (Integer movieId : new LinkedHashSet<>(movieIds)) {
+            MovieDto cached = cache != null ? cache.get(movieId, MovieDto.class) : null;
+            if(cached != null){
+                found.put(movieId, cached);
+            } else {
+                misses.add(movieId);
+            }
+        }
+
+        //2. Fetch all misses with their cast in a single query and cache them
+        if(!misses.isEmpty()){
+            movieRepository.findAllProjectionsById(misses).forEach(movie -> {
+                MovieDto movieDto = movie.toMovieDto(baseUrl);
+                found.put(movieDto.getMovieId(), movieDto);
+                if(cache != null){
+                    cache.put(movieDto.getMovieId(), movieDto);
+                }
+            });
+        }
+
+        //3. Answer in request order, ids without a row are marked as not found
+        List<MovieBatchResult> response = new ArrayList<>(movieIds.size());
+        movieIds.forEach(movieId -> response.add(new MovieBatchResult(movieId, found.containsKey(movieId), found.get(movieId))));
 
         return response;
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.MOVIE_CACHE, key = "#movieId")
     public MovieDto updateMovie(Integer movieId, MovieDto movieDto, MultipartFile file) throws IOException {
         //1.Check if movie object exists or not
         Movie existingMovie = movieRepository.findById(movieId).orElseThrow(() -> new MovieNotFoundException("Movie not found with ID:" + movieId));
+        String oldPoster = existingMovie.getPoster();
 
         //2.If file is null , do nothing
-        //If file is not null, delete existing file associated with record and upload new file
+        //If file is not null, upload the new file and delete the existing one once the update has committed
         String fileName = existingMovie.getPoster();
 
         if(file != null){
-            Files.deleteIfExists(Paths.get(path + File.separator + fileName));
-            fileName = fileService.uploadFile(path, file);
+            if(fileName.equals(file.getOriginalFilename())){
+                // a poster replaced under its own name is staged under a dot name, which the reconciler skips, and swapped in on commit
+                String stagedName = ".replace-" + UUID.randomUUID() + "-" + fileName;
+                try (InputStream content = file.getInputStream()) {
+                    fileService.uploadFile(path, stagedName, content);
+                }
+                deletePosterAfterCompletion(stagedName, false);
+                replacePosterAfterCommit(stagedName, fileName);
+            } else {
+                deletePosterAfterCompletion(fileName, true);
+                fileName = fileService.uploadFile(path, file);
+                deletePosterAfterCompletion(fileName, false);
+            }
         }
 
         //3. Set MovieDto's poster value acc. to step 2
         movieDto.setPoster(fileName);
 
-        //4. Map it to movie object
-        Movie movie = new Movie(
-                movieId,
-                movieDto.getTitle(),
-                movieDto.getDirector(),
-                movieDto.getStudio(),
-                movieDto.getMovieCast(),
-                movieDto.getReleaseYear(),
-                movieDto.getPoster()
-        );
-
-        //5.Save movie object -> returns saved movie object
-        Movie updatedMovie = movieRepository.save(movie);
+        //4. Apply it to the managed movie, so only the cast links that were added or removed are written
+        existingMovie.setTitle(movieDto.getTitle());
+        existingMovie.setDirector(movieDto.getDirector());
+        existingMovie.setStudio(movieDto.getStudio());
+        existingMovie.setReleaseYear(movieDto.getReleaseYear());
+        existingMovie.setPoster(movieDto.getPoster());
+        Set<Person> cast = resolveCast(movieDto);
+        existingMovie.getMovieCast().retainAll(cast);
+        existingMovie.getMovieCast().addAll(cast);
+
+        //5.Save movie object -> returns saved movie object, flushed so it carries the bumped version
+        Movie updatedMovie = movieRepository.saveAndFlush(existingMovie);
+        if(fileName.equals(oldPoster)){
+            invalidationLog.record(movieId, fileName);
+        } else {
+            invalidationLog.record(movieId, oldPoster, fileName);
+        }
 
         //6.Generate poster url
         String posterUrl = baseUrl + "/file/" + fileName;
@@ -172,86 +273,300 @@ public class MovieServiceImpl implements MovieService {
                 updatedMovie.getTitle(),
                 updatedMovie.getDirector(),
                 updatedMovie.getStudio(),
-                updatedMovie.getMovieCast(),
+                castNames(updatedMovie),
                 updatedMovie.getReleaseYear(),
                 updatedMovie.getPoster(),
-                posterUrl
+                posterUrl,
+                updatedMovie.getVersion()
         );
+        afterCommit(() -> {
+            titleIndex.put(response.getMovieId(), response.getTitle());
+            facetIndex.put(response);
+            similarMovies.put(response);
+        });
 
         return response;
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.MOVIE_CACHE, key = "#movieId")
+    public long patchMovie(Integer movieId, Long version, MoviePatch patch) {
+        //1. The update below bypasses bean validation, so blank values are rejected here
+        if(patch.isEmpty()){
+            throw new InvalidRequestException("Nothing to update, send at least one of title, director, studio or releaseYear.");
+        }
+        if(isBlank(patch.title()) || isBlank(patch.director()) || isBlank(patch.studio())){
+            throw new InvalidRequestException("Title, director and studio cannot be blank.");
+        }
+        // the column lengths, a longer value would fail in the database as a 500
+        if(isLongerThan(patch.title(), 200) || isLongerThan(patch.director(), 255) || isLongerThan(patch.studio(), 255)){
+            throw new InvalidRequestException("Title can be at most 200 characters long, director and studio at most 255.");
+        }
+
+        //2. Write only the sent columns, the version in the WHERE clause makes it a compare-and-set
+        if(movieRepository.updateColumns(movieId, version, patch) == 0){
+            //3. Nothing matched, one lookup tells a missing movie from a stale ETag
+            if(!movieRepository.existsById(movieId)){
+                throw new MovieNotFoundException("Movie not found with ID:" + movieId);
+            }
+            throw new PreconditionFailedException("Movie " + movieId + " is no longer at version " + version + ", reload it and retry.");
+        }
+        // without a version to count on, the new one is read back for the ETag
+        long updated = version != null ? version + 1 : movieRepository.findVersionById(movieId)
+                .orElseThrow(() -> new MovieNotFoundException("Movie not found with ID:" + movieId));
+        invalidationLog.record(movieId);
+
+        //4. The indexes apply the same columns without reading the movie back
+        afterCommit(() -> {
+            if(patch.title() != null){
+                titleIndex.put(movieId, patch.title());
+            }
+            facetIndex.patch(movieId, patch);
+            similarMovies.patch(movieId, patch);
+        });
+
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.MOVIE_CACHE, key = "#movieId")
     public String deleteMovie(Integer movieId) throws IOException {
         //1. Check if movie object exists in DB.
         Movie existingMovie = movieRepository.findById(movieId).orElseThrow(() -> new MovieNotFoundException("Movie not found with ID:" + movieId));
         Integer idToBeDeleted = existingMovie.getMovieId();
 
-        //2. Delete the file associated with record.
-        Files.deleteIfExists(Paths.get(path + File.separator + existingMovie.getPoster()));
+        //2. Delete the file associated with record once the delete has committed.
+        deletePosterAfterCompletion(existingMovie.getPoster(), true);
 
         //3. Delete the movie object
         movieRepository.delete(existingMovie);
+        statsRepository.deleteByMovieId(idToBeDeleted);
+        invalidationLog.record(idToBeDeleted, existingMovie.getPoster());
+        afterCommit(() -> {
+            titleIndex.remove(idToBeDeleted);
+            facetIndex.remove(idToBeDeleted);
+            viewCounter.remove(idToBeDeleted);
+            similarMovies.remove(idToBeDeleted);
+        });
 
         return "Movie deleted with ID:" + idToBeDeleted;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public MoviePageResponse getAllMoviesWithPagination(Integer pageNumber, Integer pageSize) {
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
 
-        Page<Movie> moviePages = movieRepository.findAll(pageable);
-        List<Movie> movies = moviePages.getContent();
-
-        List<MovieDto> movieDtos = new ArrayList<>();
-        movies.forEach(movie -> {
-            String posterUrl = baseUrl + "/file/" + movie.getPoster();
-            MovieDto movieDto = new MovieDto(
-                    movie.getMovieId(),
-                    movie.getTitle(),
-                    movie.getDirector(),
-                    movie.getStudio(),
-                    movie.getMovieCast(),
-                    movie.getReleaseYear(),
-                    movie.getPoster(),
-                    posterUrl
-            );
-
-            movieDtos.add(movieDto);
-        });
-
-
-        return new MoviePageResponse(movieDtos, pageNumber, pageSize, moviePages.getTotalElements(), moviePages.getTotalPages(), moviePages.isLast());
+        return toMoviePageResponse(movieRepository.findAllProjections(pageable), pageNumber, pageSize);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public MoviePageResponse getAllMoviesWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir) {
 
         Sort sort = dir.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 
         Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
 
-        Page<Movie> moviePages = movieRepository.findAll(pageable);
-        List<Movie> movies = moviePages.getContent();
-
-        List<MovieDto> movieDtos = new ArrayList<>();
-        movies.forEach(movie -> {
-            String posterUrl = baseUrl + "/file/" + movie.getPoster();
-            MovieDto movieDto = new MovieDto(
-                    movie.getMovieId(),
-                    movie.getTitle(),
-                    movie.getDirector(),
-                    movie.getStudio(),
-                    movie.getMovieCast(),
-                    movie.getReleaseYear(),
-                    movie.getPoster(),
-                    posterUrl
-            );
-
-            movieDtos.add(movieDto);
+        return toMoviePageResponse(movieRepository.findAllProjections(pageable), pageNumber, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MoviePageResponse getMoviesByPerson(Integer personId, Integer pageNumber, Integer pageSize) {
+        //1. Newest movies first, found through the person side of the join table
+        Page<MovieProjection> movies = movieRepository.findProjectionsByPerson(personId, PageRequest.of(pageNumber, pageSize));
+
+        //2. An empty first page only costs a lookup to tell an unknown person from one without movies
+        if(movies.isEmpty() && pageNumber == 0 && !personRepository.existsById(personId)){
+            throw new PersonNotFoundException("Person not found with ID:" + personId);
+        }
+        return toMoviePageResponse(movies, pageNumber, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MovieFilterResponse filterMovies(MovieFilterRequest request) {
+        int pageNumber = request.pageNumber() == null ? Integer.parseInt(AppConstants.PAGE_NUMBER) : request.pageNumber();
+        int pageSize = request.pageSize() == null ? Integer.parseInt(AppConstants.PAGE_SIZE) : request.pageSize();
+
+        //1. Match ids and facet counts come from the bitmap index
+        MovieFacetIndex.Result result = facetIndex.search(request.filter(), request.facets(), (long) pageNumber * pageSize, pageSize);
+
+        //2. The page itself is loaded like a batch lookup, reusing cached movies
+        List<MovieDto> movieDtos = new ArrayList<>(result.movieIds().size());
+        getMovies(result.movieIds()).forEach(movie -> {
+            if(movie.found()){
+                movieDtos.add(movie.movie());
+            }
+        });
+
+        int totalPages = (int) ((result.totalElements() + pageSize - 1) / pageSize);
+        return new MovieFilterResponse(movieDtos, result.facets(), pageNumber, pageSize, result.totalElements(), totalPages, pageNumber + 1 >= totalPages);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrendingMovie> getTrendingMovies(int limit) {
+        //1. Ranking and scores come from the view counter's top-K heap
+        List<ViewCounter.Trending> ranked = viewCounter.trending(limit);
+
+        //2. Movies are loaded like a batch lookup, rows of movies deleted on another node are skipped
+        List<MovieBatchResult> movies = getMovies(ranked.stream().map(ViewCounter.Trending::movieId).toList());
+        List<TrendingMovie> response = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            if(movies.get(i).found()){
+                response.add(new TrendingMovie(movies.get(i).movie(), ranked.get(i).score()));
+            }
+        }
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SimilarMovie> getSimilarMovies(Integer movieId, int limit) {
+        //1. Neighbours were computed in the background, an empty list costs a lookup to tell an unknown movie
+        List<SimilarMovies.Neighbour> neighbours = similarMovies.similar(movieId, limit);
+        if(neighbours.isEmpty() && !movieRepository.existsById(movieId)){
+            throw new MovieNotFoundException("Movie not found with ID:" + movieId);
+        }
+
+        //2. Movies are loaded like a batch lookup, neighbours deleted since the last update are skipped
+        List<MovieBatchResult> movies = getMovies(neighbours.stream().map(SimilarMovies.Neighbour::movieId).toList());
+        List<SimilarMovie> response = new ArrayList<>(neighbours.size());
+        for (int i = 0; i < neighbours.size(); i++) {
+            if(movies.get(i).found()){
+                response.add(new SimilarMovie(movies.get(i).movie(), neighbours.get(i).score()));
+            }
+        }
+        return response;
+    }
+
+    private static boolean isBlank(String value) {
+        return value != null && value.isBlank();
+    }
+
+    private static boolean isLongerThan(String value, int length) {
+        return value != null && value.length() > length;
+    }
+
+    private Set<Person> resolveCast(MovieDto movieDto) {
+        return movieDto.getMovieCast() == null ? new HashSet<>() : personRepository.findOrCreateByNames(movieDto.getMovieCast());
+    }
+
+    private static Set<String> castNames(Movie movie) {
+        Set<String> names = new LinkedHashSet<>();
+        movie.getMovieCast().forEach(person -> names.add(person.getName()));
+        return names;
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void replacePosterAfterCommit(String stagedName, String fileName) {
+        afterCommit(() -> {
+            try {
+                fileService.replaceFile(path, stagedName, fileName);
+            } catch (IOException e) {
+                log.warn("Swapping in the new poster {} failed, it stays staged as {}: {}", fileName, stagedName, e.getMessage());
+            }
+            posterCache.invalidate(fileName);
         });
+    }
 
+    // deletes the poster when the surrounding transaction ends with the given outcome (committed or rolled back)
+    private void deletePosterAfterCompletion(String fileName, boolean onCommit) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if((status == STATUS_COMMITTED) != onCommit){
+                    return;
+                }
+                try {
+                    fileService.deleteFile(path, fileName);
+                } catch (IOException ignored) {
+                    // a poster left behind is picked up by the PosterReconciler
+                }
+                posterCache.invalidate(fileName);
+            }
+        });
+    }
+
+    private MoviePageResponse toMoviePageResponse(Page<MovieProjection> moviePages, Integer pageNumber, Integer pageSize) {
+        List<MovieDto> movieDtos = new ArrayList<>(moviePages.getNumberOfElements());
+        moviePages.forEach(movie -> movieDtos.add(movie.toMovieDto(baseUrl)));
 
         return new MoviePageResponse(movieDtos, pageNumber, pageSize, moviePages.getTotalElements(), moviePages.getTotalPages(), moviePages.isLast());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getMovie(Integer movieId, MovieFields fields) {
+        List<Map<String, Object>> movies = selectFields(fields, movieId, Sort.unsorted(), 0, 0);
+        if(movies.isEmpty()){
+            throw new MovieNotFoundException("Movie not found with ID:" + movieId);
+        }
+        return movies.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllMovies(MovieFields fields) {
+        return selectFields(fields, null, Sort.unsorted(), 0, 0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SparseMoviePageResponse getAllMoviesWithPaginationAndSorting(Integer pageNumber, Integer pageSize, String sortBy, String dir, MovieFields fields) {
+        if(pageNumber < 0 || pageSize < 1){
+            throw new InvalidRequestException("Page number must not be negative and page size must be at least 1.");
+        }
+        MovieFields.checkSortable(sortBy);
+        Sort sort = dir.equalsIgnoreCase("asc") ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+
+        List<Map<String, Object>> movies = selectFields(fields, null, sort, pageNumber * pageSize, pageSize);
+        long totalElements = movieRepository.count();
+        int totalPages = (int) Math.ceil((double) totalElements / pageSize);
+
+        return new SparseMoviePageResponse(movies, pageNumber, pageSize, totalElements, totalPages, pageNumber + 1 >= totalPages);
+    }
+
+    private List<Map<String, Object>> selectFields(MovieFields fields, Integer movieId, Sort sort, int offset, int limit) {
+        //1. Select only the columns backing the requested fields
+        List<Tuple> rows = movieRepository.findColumns(fields.columns(), movieId, sort, offset, limit);
+
+        //2. Query the cast only when it was asked for
+        Map<Integer, Set<String>> cast = Map.of();
+        if(fields.includesCast() && !rows.isEmpty()){
+            cast = movieRepository.findCastByMovieIds(rows.stream().map(row -> row.get("movieId", Integer.class)).toList());
+        }
+
+        //3. Build each movie with the requested properties only
+        List<Map<String, Object>> movies = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Integer id = row.get("movieId", Integer.class);
+            Map<String, Object> movie = new LinkedHashMap<>();
+            for (String name : MovieFields.ALL) {
+                if(!fields.includes(name)){
+                    continue;
+                }
+                switch (name) {
+                    case "movieCast" -> movie.put(name, cast.getOrDefault(id, Set.of()));
+                    case "posterUrl" -> movie.put(name, baseUrl + "/file/" + row.get("poster"));
+                    default -> movie.put(name, row.get(name));
+                }
+            }
+            movies.add(movie);
+        }
+
+        return movies;
+    }
 }
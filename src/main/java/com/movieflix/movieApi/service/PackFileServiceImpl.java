@@ -0,0 +1,529 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.PosterUpload;
+import com.movieflix.movieApi.exceptions.FileExistsException;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stores posters as records appended to a few large segment files instead of one file per poster.
+ * <p>
+ * Record layout: magic, type, name length, data length, name, data, CRC32 footer, footer magic.
+ * A record only counts once its footer is valid, so recovery scans each segment and truncates
+ * it at the first torn record. The name to location index lives in memory and is checkpointed
+ * to {@code index.dat} together with how far each segment had been applied; on startup only
+ * the tail past the checkpoint is scanned. Deletes append tombstones, and segments whose live
+ * ratio drops below the threshold are rewritten by the compactor.
+ * <p>
+ * The {@code path} arguments of {@link FileService} are ignored, segments live under
+ * {@code project.poster}/pack.
+ * <p>
+ * The bean is lazy so the context refreshes without replaying segments, which keeps the
+ * fast-startup training run short. It is created, and so opened, once the application is ready
+ * rather than by the first poster request.
+ */
+@Slf4j
+@Service
+@Lazy
+@ConditionalOnProperty(name = "project.poster-store", havingValue = "pack")
+public class PackFileServiceImpl implements FileService {
+
+    private static final int RECORD_MAGIC = 0x504F5354;
+    private static final int FOOTER_MAGIC = 0x454E4421;
+    private static final int INDEX_MAGIC = 0x50494458;
+    private static final byte PUT = 1;
+    private static final byte TOMBSTONE = 2;
+
+    // magic, type, name length, data length
+    private static final int HEADER_SIZE = 4 + 1 + 2 + 4;
+    // crc32, footer magic
+    private static final int FOOTER_SIZE = 4 + 4;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final Path directory;
+    private final long segmentSize;
+    private final double compactionThreshold;
+    private final long maxPosterSize;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // guarded by this, only one thread appends at a time
+    private Segment active;
+
+    public PackFileServiceImpl(@Value("${project.poster}") String path,
+                               @Value("${project.poster-pack.segment-size:64MB}") DataSize segmentSize,
+                               @Value("${project.poster-pack.compaction-threshold:0.5}") double compactionThreshold,
+                               @Value("${project.poster-max-size:10MB}") DataSize maxPosterSize) {
+        this.directory = Paths.get(path, "pack").toAbsolutePath().normalize();
+        this.segmentSize = Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.compactionThreshold = compactionThreshold;
+        this.maxPosterSize = maxPosterSize.toBytes();
+    }
+
+    record Location(int segmentId, int offset, int length) {
+    }
+
+    @PostConstruct
+    synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+
+        // uploads that were being spooled when the process stopped
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith(".upload-")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().matches("segment-\\d+\\.pack")).sorted().toList()) {
+                Segment segment = new Segment(segmentId(file), file);
+                segments.put(segment.id, segment);
+            }
+        }
+
+        Map<Integer, Long> checkpoint = loadIndex();
+        for (Segment segment : segments.values()) {
+            replay(segment, checkpoint.getOrDefault(segment.id, 0L));
+        }
+
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        log.info("Opened poster pack with {} segments and {} posters", segments.size(), index.size());
+    }
+
+    // delivering the event is what instantiates the lazy bean, open() has run by the time this is called
+    @EventListener(ApplicationReadyEvent.class)
+    void openWhenReady() {
+        log.debug("Poster pack is open with {} posters", index.size());
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        writeIndex();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    @Override
+    public String uploadFile(String path, MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return uploadFile(path, file.getOriginalFilename(), content).fileName();
+        }
+    }
+
+    @Override
+    public PosterUpload uploadFile(String path, String fileName, InputStream content) throws IOException {
+        if(fileName == null || fileName.isBlank() || fileName.contains("/") || fileName.contains("\\")
+                || fileName.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE){
+            throw new InvalidRequestException("Invalid file name: " + fileName);
+        }
+        if(index.containsKey(fileName)){
+            throw new FileExistsException("File already exists! Please enter another file name.");
+        }
+
+        // spooled to disk outside the writer lock so a slow client does not hold up other uploads, nor a poster the heap
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = PosterStreams.sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = PosterStreams.copyValidated(in, out, maxPosterSize);
+            }
+
+            try (FileChannel data = FileChannel.open(temp, StandardOpenOption.READ)) {
+                ByteBuffer poster = data.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                synchronized (this) {
+                    if(index.containsKey(fileName)){
+                        throw new FileExistsException("File already exists! Please enter another file name.");
+                    }
+                    put(fileName, append(PUT, fileName, poster));
+                }
+            }
+
+            return new PosterUpload(fileName, HexFormat.of().formatHex(digest.digest()), size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public synchronized boolean deleteFile(String path, String fileName) throws IOException {
+        if(!index.containsKey(fileName)){
+            return false;
+        }
+        append(TOMBSTONE, fileName, EMPTY);
+        remove(fileName);
+        return true;
+    }
+
+    // the staged record is appended again under the real name, which a crash before the tombstone leaves harmless
+    @Override
+    public synchronized void replaceFile(String path, String stagedName, String fileName) throws IOException {
+        put(fileName, append(PUT, fileName, slice(stagedName)));
+        append(TOMBSTONE, stagedName, EMPTY);
+        remove(stagedName);
+    }
+
+    @Override
+    public InputStream getResourceFile(String path, String fileName) throws FileNotFoundException {
+        ByteBuffer poster = slice(fileName);
+        return new InputStream() {
+            @Override
+            public int read() {
+                return poster.hasRemaining() ? poster.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if(!poster.hasRemaining()){
+                    return -1;
+                }
+                int count = Math.min(len, poster.remaining());
+                poster.get(b, off, count);
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public long fileSize(String path, String fileName) throws FileNotFoundException {
+        Location location = index.get(fileName);
+        if(location == null){
+            throw new FileNotFoundException("Poster not found: " + fileName);
+        }
+        return location.length();
+    }
+
+    // the mapped slice goes to the response channel without an intermediate InputStream
+    @Override
+    public void writeFile(String path, String fileName, OutputStream out) throws IOException {
+        PosterStreams.write(slice(fileName), out);
+    }
+
+    @Scheduled(fixedDelayString = "${project.poster-pack.compaction-interval:PT5M}")
+    public void compact() throws IOException {
+        for (Segment segment : List.copyOf(segments.values())) {
+            synchronized (this) {
+                if(segment == active || !segments.containsKey(segment.id) || segment.size == 0){
+                    continue;
+                }
+                if((double) segment.liveBytes.get() / segment.size < compactionThreshold){
+                    compact(segment);
+                }
+            }
+        }
+        synchronized (this) {
+            writeIndex();
+        }
+    }
+
+    private ByteBuffer slice(String fileName) throws FileNotFoundException {
+        // a second lookup covers a poster that the compactor moved between reading the index and the segment
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Location location = index.get(fileName);
+            if(location == null){
+                break;
+            }
+            Segment segment = segments.get(location.segmentId());
+            if(segment != null){
+                try {
+                    return segment.slice(location.offset(), location.length());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        throw new FileNotFoundException("Poster not found: " + fileName);
+    }
+
+    // copies the live records of a segment to the active one, then drops the old file
+    private void compact(Segment segment) throws IOException {
+        ByteBuffer buffer = segment.slice(0, (int) segment.size);
+        boolean olderSegmentExists = segments.firstKey() < segment.id;
+        int copied = 0;
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            buffer.getInt();
+            byte type = buffer.get();
+            int nameLength = buffer.getShort();
+            int dataLength = buffer.getInt();
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            String fileName = new String(name, StandardCharsets.UTF_8);
+            Location location = new Location(segment.id, buffer.position(), dataLength);
+            ByteBuffer data = buffer.slice(buffer.position(), dataLength);
+            buffer.position(start + HEADER_SIZE + nameLength + dataLength + FOOTER_SIZE);
+
+            if(type == PUT && location.equals(index.get(fileName))){
+                put(fileName, append(PUT, fileName, data));
+                copied++;
+            } else if(type == TOMBSTONE && olderSegmentExists && !index.containsKey(fileName)){
+                // an older segment may still hold a put for this name
+                append(TOMBSTONE, fileName, data);
+            }
+        }
+
+        segments.remove(segment.id);
+        segment.channel.close();
+        writeIndex();
+        Files.deleteIfExists(segment.file);
+        log.info("Compacted poster segment {} ({} live posters moved)", segment.id, copied);
+    }
+
+    // the data is written straight from the given buffer, a mapped temp file or segment slice never lands on the heap
+    private Location append(byte type, String fileName, ByteBuffer data) throws IOException {
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        int dataLength = data.remaining();
+        int recordSize = recordSize(name.length, dataLength);
+        if(active.size > 0 && active.size + recordSize > segmentSize){
+            active = createSegment(active.id + 1);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + name.length);
+        header.putInt(RECORD_MAGIC).put(type).putShort((short) name.length).putInt(dataLength).put(name).flip();
+        CRC32 crc = new CRC32();
+        crc.update(header.duplicate());
+        crc.update(data.duplicate());
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).putInt((int) crc.getValue()).putInt(FOOTER_MAGIC).flip();
+
+        long position = active.size;
+        long written = write(header, position);
+        written += write(data.duplicate(), position + written);
+        write(footer, position + written);
+        active.channel.force(false);
+        active.size = position + recordSize;
+
+        return new Location(active.id, (int) position + HEADER_SIZE + name.length, dataLength);
+    }
+
+    private long write(ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += active.channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private void put(String fileName, Location location) {
+        Location previous = index.put(fileName, location);
+        release(fileName, previous);
+        segments.get(location.segmentId()).liveBytes.addAndGet(recordSize(fileName, location.length()));
+    }
+
+    private void remove(String fileName) {
+        release(fileName, index.remove(fileName));
+    }
+
+    private void release(String fileName, Location location) {
+        Segment segment = location == null ? null : segments.get(location.segmentId());
+        if(segment != null){
+            segment.liveBytes.addAndGet(-recordSize(fileName, location.length()));
+        }
+    }
+
+    // applies every complete record from the given offset and truncates a torn tail
+    private void replay(Segment segment, long from) throws IOException {
+        long fileSize = segment.channel.size();
+        long position = from;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position + HEADER_SIZE + FOOTER_SIZE <= fileSize) {
+            header.clear();
+            segment.channel.read(header, position);
+            header.flip();
+            int magic = header.getInt();
+            byte type = header.get();
+            int nameLength = header.getShort();
+            int dataLength = header.getInt();
+            if(magic != RECORD_MAGIC || (type != PUT && type != TOMBSTONE) || nameLength < 0 || dataLength < 0
+                    || position + recordSize(nameLength, dataLength) > fileSize){
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(recordSize(nameLength, dataLength));
+            segment.channel.read(record, position);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, record.capacity() - FOOTER_SIZE);
+            record.position(record.capacity() - FOOTER_SIZE);
+            if(record.getInt() != (int) crc.getValue() || record.getInt() != FOOTER_MAGIC){
+                break;
+            }
+
+            String fileName = new String(record.array(), HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+            if(type == PUT){
+                put(fileName, new Location(segment.id, (int) position + HEADER_SIZE + nameLength, dataLength));
+            } else {
+                remove(fileName);
+            }
+            position += record.capacity();
+        }
+
+        if(position < fileSize){
+            log.warn("Truncating poster segment {} from {} to {} bytes after an incomplete record", segment.id, fileSize, position);
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    // snapshot of the index and of how far each segment has been applied, written atomically
+    private void writeIndex() throws IOException {
+        Path temp = directory.resolve("index.tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), crc))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeInt(segment.id);
+                out.writeLong(segment.size);
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().segmentId());
+                out.writeInt(entry.getValue().offset());
+                out.writeInt(entry.getValue().length());
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp, directory.resolve("index.dat"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // returns the checkpointed segment sizes, or nothing when the index has to be rebuilt by a full scan
+    private Map<Integer, Long> loadIndex() {
+        Path file = directory.resolve("index.dat");
+        if(!Files.exists(file)){
+            return Map.of();
+        }
+
+        Map<Integer, Long> checkpoint = new ConcurrentHashMap<>();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if(in.readInt() != INDEX_MAGIC){
+                throw new IOException("Bad index magic");
+            }
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                int id = in.readInt();
+                long size = in.readLong();
+                Segment segment = segments.get(id);
+                if(segment == null || segment.channel.size() < size){
+                    throw new IOException("Index refers to missing data in segment " + id);
+                }
+                checkpoint.put(id, size);
+            }
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String fileName = in.readUTF();
+                Location location = new Location(in.readInt(), in.readInt(), in.readInt());
+                if(!checkpoint.containsKey(location.segmentId())){
+                    throw new IOException("Index entry for " + fileName + " has no segment");
+                }
+                put(fileName, location);
+            }
+            long expected = crc.getValue();
+            if(in.readLong() != expected){
+                throw new IOException("Index checksum mismatch");
+            }
+            for (Segment segment : segments.values()) {
+                segment.size = checkpoint.getOrDefault(segment.id, 0L);
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            log.warn("Rebuilding poster index from segments: {}", e.getMessage());
+            index.clear();
+            segments.values().forEach(segment -> segment.liveBytes.set(0));
+            return Map.of();
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, directory.resolve(String.format("segment-%08d.pack", id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".pack".length()));
+    }
+
+    private static int recordSize(String fileName, int dataLength) {
+        return recordSize(fileName.getBytes(StandardCharsets.UTF_8).length, dataLength);
+    }
+
+    private static int recordSize(int nameLength, int dataLength) {
+        return HEADER_SIZE + nameLength + dataLength + FOOTER_SIZE;
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final AtomicLong liveBytes = new AtomicLong();
+
+        // bytes of complete records, published before the index points into them
+        private volatile long size;
+        private volatile MappedByteBuffer map;
+
+        private Segment(int id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        private ByteBuffer slice(int offset, int length) throws IOException {
+            MappedByteBuffer current = map;
+            if(current == null || offset + length > current.capacity()){
+                current = remap();
+            }
+            return current.slice(offset, length);
+        }
+
+        // the active segment grows, so its mapping is widened on demand
+        private synchronized MappedByteBuffer remap() throws IOException {
+            if(map == null || map.capacity() < size){
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return map;
+        }
+    }
+}
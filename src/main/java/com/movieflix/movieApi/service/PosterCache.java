@@ -0,0 +1,223 @@
+package com.movieflix.movieApi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps frequently served posters in direct buffers outside the Java heap.
+ * <p>
+ * The cache is bounded by the total number of resident bytes. Entries are kept in LRU order,
+ * and a new poster only displaces the least recently used ones when a count-min sketch says it
+ * is requested more often than each of them, so a one-off scan over the catalog cannot flush
+ * the hot set. Off-heap memory is returned when an evicted buffer is garbage collected; size
+ * {@code -XX:MaxDirectMemorySize} above the budget.
+ * <p>
+ * A miss only reads a poster into memory when it is small enough and popular enough to be
+ * admitted. Every other poster is streamed by {@link FileService#writeFile}, which for the pack
+ * store writes the mapped slice straight to the response.
+ */
+@Component
+public class PosterCache {
+
+    private final FileService fileService;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final FrequencySketch sketch = new FrequencySketch(4096);
+
+    // guarded by this, access ordered so iteration starts at the least recently used poster
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long residentBytes;
+    // bumped on every invalidation so a load that raced with one is not admitted
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PosterCache(@Lazy FileService fileService,
+                       MeterRegistry meterRegistry,
+                       @Value("${project.poster-cache.max-size:64MB}") DataSize maxSize,
+                       @Value("${project.poster-cache.max-entry-size:2MB}") DataSize maxEntrySize) {
+        this.fileService = fileService;
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = maxEntrySize.toBytes();
+
+        this.hits = meterRegistry.counter("poster.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("poster.cache.requests", "result", "miss");
+        Gauge.builder("poster.cache.resident.bytes", this, PosterCache::residentBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("poster.cache.hit.ratio", this, PosterCache::hitRatio).register(meterRegistry);
+    }
+
+    public void serve(String path, String fileName, OutputStream out) throws IOException {
+        ByteBuffer cached;
+        long loadGeneration;
+        synchronized (this) {
+            sketch.increment(fileName);
+            cached = entries.get(fileName);
+            loadGeneration = generation;
+        }
+
+        if(cached != null){
+            hits.increment();
+            // each request writes its own view, the shared buffer's position is never moved
+            PosterStreams.write(cached.duplicate(), out);
+            return;
+        }
+
+        misses.increment();
+        long size = fileService.fileSize(path, fileName);
+        if(size > maxEntryBytes || !admissible(fileName, (int) size)){
+            fileService.writeFile(path, fileName, out);
+            return;
+        }
+
+        byte[] poster;
+        try (InputStream in = fileService.getResourceFile(path, fileName)) {
+            poster = in.readAllBytes();
+        }
+        // the poster may have been replaced since its size was read
+        if(poster.length <= maxEntryBytes){
+            admit(fileName, poster, loadGeneration);
+        }
+        out.write(poster);
+    }
+
+    public synchronized void invalidate(String fileName) {
+        generation++;
+        evict(fileName);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        residentBytes = 0;
+    }
+
+    private void evict(String fileName) {
+        ByteBuffer removed = entries.remove(fileName);
+        if(removed != null){
+            residentBytes -= removed.capacity();
+        }
+    }
+
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private synchronized boolean admissible(String fileName, int size) {
+        return !entries.containsKey(fileName) && makeRoom(fileName, size, false);
+    }
+
+    private void admit(String fileName, byte[] poster, long loadGeneration) {
+        synchronized (this) {
+            if(entries.containsKey(fileName) || !makeRoom(fileName, poster.length, false)){
+                return;
+            }
+        }
+
+        // copy off-heap outside the lock, then publish
+        ByteBuffer buffer = ByteBuffer.allocateDirect(poster.length).put(poster).flip().asReadOnlyBuffer();
+
+        synchronized (this) {
+            if(generation != loadGeneration || entries.containsKey(fileName) || !makeRoom(fileName, poster.length, true)){
+                return;
+            }
+            entries.put(fileName, buffer);
+            residentBytes += poster.length;
+        }
+    }
+
+    // evicts LRU victims only if the candidate is more popular than every one of them
+    private boolean makeRoom(String fileName, int size, boolean evict) {
+        long needed = residentBytes + size - maxBytes;
+        if(needed <= 0){
+            return true;
+        }
+
+        int candidateFrequency = sketch.frequency(fileName);
+        List<String> victims = new ArrayList<>();
+        long freed = 0;
+        for (Iterator<Map.Entry<String, ByteBuffer>> it = entries.entrySet().iterator(); it.hasNext() && freed < needed; ) {
+            Map.Entry<String, ByteBuffer> victim = it.next();
+            if(sketch.frequency(victim.getKey()) >= candidateFrequency){
+                return false;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().capacity();
+        }
+        if(freed < needed){
+            return false;
+        }
+
+        if(evict){
+            victims.forEach(this::evict);
+        }
+        return true;
+    }
+
+    // 4-row count-min sketch whose counters are halved periodically so old popularity fades
+    private static final class FrequencySketch {
+
+        private final int[][] counters;
+        private final int[] seeds;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int width) {
+            this.counters = new int[4][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+            this.seeds = ThreadLocalRandom.current().ints(4).map(seed -> seed | 1).toArray();
+        }
+
+        private void increment(String key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < counters.length; row++) {
+                counters[row][index(hash, row)]++;
+            }
+            if(++additions >= sampleSize){
+                for (int[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < counters.length; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * seeds[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
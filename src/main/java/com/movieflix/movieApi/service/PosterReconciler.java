@@ -0,0 +1,187 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MoviePoster;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Brings the poster directory and the {@code movie.poster} column back in line.
+ * <p>
+ * Files are listed in a single directory pass and looked up against the database one batch at a
+ * time, so memory is bounded by the batch size and the directory is read once per run. Files
+ * nobody references and that are older than the grace period (so uploads whose movie is still
+ * being saved are left alone) are moved to {@code .quarantine}, and purged from there after
+ * the retention period. Movies whose poster file is gone are logged and counted. Every file
+ * touched is paced to {@code max-files-per-second} so a run never competes with serving.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "project.poster-store", havingValue = "file", matchIfMissing = true)
+public class PosterReconciler {
+
+    static final String QUARANTINE = ".quarantine";
+
+    private final MovieRepository movieRepository;
+    private final Path directory;
+    private final Duration gracePeriod;
+    private final Duration quarantineRetention;
+    private final int batchSize;
+    private final long pauseNanos;
+
+    private final AtomicInteger missingPosters = new AtomicInteger();
+    private final Counter quarantined;
+    private long nextSlot;
+
+    public PosterReconciler(MovieRepository movieRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${project.poster}") String path,
+                            @Value("${project.poster-reconcile.grace-period:PT24H}") Duration gracePeriod,
+                            @Value("${project.poster-reconcile.quarantine-retention:P7D}") Duration quarantineRetention,
+                            @Value("${project.poster-reconcile.batch-size:500}") int batchSize,
+                            @Value("${project.poster-reconcile.max-files-per-second:200}") int maxFilesPerSecond) {
+        this.movieRepository = movieRepository;
+        this.directory = Paths.get(path).toAbsolutePath().normalize();
+        this.gracePeriod = gracePeriod;
+        this.quarantineRetention = quarantineRetention;
+        this.batchSize = batchSize;
+        this.pauseNanos = Duration.ofSeconds(1).toNanos() / maxFilesPerSecond;
+
+        this.quarantined = meterRegistry.counter("poster.reconcile.quarantined");
+        meterRegistry.gauge("poster.reconcile.missing", missingPosters);
+    }
+
+    public record Result(int quarantined, List<Integer> missingPosters) {
+    }
+
+    @Scheduled(fixedDelayString = "${project.poster-reconcile.interval:PT6H}",
+            initialDelayString = "${project.poster-reconcile.interval:PT6H}")
+    public synchronized Result reconcile() throws IOException {
+        if(!Files.isDirectory(directory)){
+            return new Result(0, List.of());
+        }
+        nextSlot = System.nanoTime();
+
+        //1. Quarantine files that no movie references, moving them out does not disturb the listing
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        int moved = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                // dot files are uploads in flight, staged replacements and the quarantine itself
+                if(name.startsWith(".")){
+                    continue;
+                }
+                pace();
+                batch.add(name);
+                if(batch.size() == batchSize){
+                    moved += quarantineUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        }
+        moved += quarantineUnreferenced(batch, cutoff);
+
+        //2. Flag movies whose poster file is missing
+        List<Integer> missing = new ArrayList<>();
+        Integer lastId = 0;
+        List<MoviePoster> posters;
+        while (!(posters = movieRepository.findPostersAfter(lastId, Limit.of(batchSize))).isEmpty()) {
+            for (MoviePoster poster : posters) {
+                pace();
+                if(!Files.exists(directory.resolve(poster.poster()))){
+                    missing.add(poster.movieId());
+                }
+            }
+            lastId = posters.get(posters.size() - 1).movieId();
+        }
+        if(!missing.isEmpty()){
+            log.warn("{} movies reference a poster file that does not exist: {}", missing.size(), missing);
+        }
+        missingPosters.set(missing.size());
+
+        //3. Purge quarantined files past their retention
+        purgeQuarantine();
+
+        log.info("Poster reconciliation quarantined {} files, {} movies are missing their poster", moved, missing.size());
+        return new Result(moved, missing);
+    }
+
+    private int quarantineUnreferenced(List<String> batch, Instant cutoff) throws IOException {
+        if(batch.isEmpty()){
+            return 0;
+        }
+        int moved = 0;
+        Set<String> referenced = movieRepository.findReferencedPosters(batch);
+        for (String fileName : batch) {
+            if(!referenced.contains(fileName) && quarantine(fileName, cutoff)){
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private boolean quarantine(String fileName, Instant cutoff) throws IOException {
+        Path file = directory.resolve(fileName);
+        if(!Files.isRegularFile(file) || Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)){
+            return false;
+        }
+        Path quarantine = Files.createDirectories(directory.resolve(QUARANTINE));
+        Path target = quarantine.resolve(fileName);
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        // retention counts from the move, not from the upload
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        quarantined.increment();
+        log.info("Quarantined unreferenced poster {}", fileName);
+        return true;
+    }
+
+    private void purgeQuarantine() throws IOException {
+        Path quarantine = directory.resolve(QUARANTINE);
+        if(!Files.isDirectory(quarantine)){
+            return;
+        }
+        Instant cutoff = Instant.now().minus(quarantineRetention);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(quarantine)) {
+            for (Path file : stream) {
+                pace();
+                if(Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)){
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void pace() {
+        nextSlot += pauseNanos;
+        long wait = nextSlot - System.nanoTime();
+        if(wait > 0){
+            LockSupport.parkNanos(wait);
+        } else {
+            // don't bank credit while the database or directory was slow
+            nextSlot = System.nanoTime();
+        }
+    }
+}
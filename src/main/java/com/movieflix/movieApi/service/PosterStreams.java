@@ -0,0 +1,69 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import org.apache.catalina.connector.CoyoteOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+// single pass copy of an uploaded poster that checks image magic bytes and the size limit
+final class PosterStreams {
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private PosterStreams() {
+    }
+
+    static long copyValidated(InputStream in, OutputStream out, long maxBytes) throws IOException {
+        byte[] buffer = new byte[8192];
+
+        int headerLength = in.readNBytes(buffer, 0, PNG_MAGIC.length);
+        if(!startsWith(buffer, headerLength, PNG_MAGIC) && !startsWith(buffer, headerLength, JPEG_MAGIC)){
+            throw new InvalidRequestException("Poster must be a PNG or JPEG image.");
+        }
+        out.write(buffer, 0, headerLength);
+
+        long size = headerLength;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            size += read;
+            if(size > maxBytes){
+                throw new InvalidRequestException("Poster exceeds the maximum size of " + maxBytes + " bytes.");
+            }
+            out.write(buffer, 0, read);
+        }
+        return size;
+    }
+
+    // Tomcat's stream accepts buffers directly, so direct and mapped buffers are not copied into a heap array first
+    static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+        if(out instanceof CoyoteOutputStream coyote){
+            coyote.write(buffer);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean startsWith(byte[] buffer, int length, byte[] magic) {
+        return length >= magic.length && Arrays.equals(buffer, 0, magic.length, magic, 0, magic.length);
+    }
+}
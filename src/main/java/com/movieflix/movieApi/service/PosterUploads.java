@@ -0,0 +1,272 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.PosterUpload;
+import com.movieflix.movieApi.dto.PosterUploadStatus;
+import com.movieflix.movieApi.entities.UploadSession;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import com.movieflix.movieApi.exceptions.UploadLimitExceededException;
+import com.movieflix.movieApi.exceptions.UploadOffsetConflictException;
+import com.movieflix.movieApi.exceptions.UploadSessionNotFoundException;
+import com.movieflix.movieApi.repositories.UploadSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable poster uploads. A session is opened with the poster's name and size, chunks are sent
+ * at offsets, and the finished file is handed to {@link FileService} like any other upload.
+ * <p>
+ * Bytes go to {@code <poster>/.uploads/<uploadId>.part}, which is preallocated to the full size
+ * when the session opens. Chunks are written with positional {@link FileChannel} writes, so a
+ * chunk re-sent after a dropped connection overwrites the same range. The session row keeps the
+ * offset up to which bytes arrived without a gap. A chunk may start anywhere up to that offset,
+ * and a later start is rejected with the offset to resume from. The offset moves with a
+ * conditional update, so of two requests racing on one session only one advances it. Sessions and
+ * their files survive restarts, and the sweeper removes those nobody wrote to within the ttl.
+ * <p>
+ * A session belongs to the user who opened it. Every call names the caller, and a session of
+ * someone else is reported as not found. Each user may hold {@code max-open-per-user} sessions,
+ * so nobody can fill the disk with preallocated part files.
+ */
+@Slf4j
+@Service
+public class PosterUploads {
+
+    static final String UPLOADS = ".uploads";
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileService fileService;
+    private final String path;
+    private final Path directory;
+    private final long maxPosterSize;
+    private final Duration ttl;
+    private final int sweepBatchSize;
+    private final int maxOpenPerUser;
+
+    public PosterUploads(UploadSessionRepository uploadSessionRepository, @Lazy FileService fileService,
+                         @Value("${project.poster}") String path,
+                         @Value("${project.poster-max-size:10MB}") DataSize maxPosterSize,
+                         @Value("${project.poster-upload.ttl:PT24H}") Duration ttl,
+                         @Value("${project.poster-upload.sweep-batch-size:100}") int sweepBatchSize,
+                         @Value("${project.poster-upload.max-open-per-user:5}") int maxOpenPerUser) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileService = fileService;
+        this.path = path;
+        this.directory = Paths.get(path).toAbsolutePath().normalize().resolve(UPLOADS);
+        this.maxPosterSize = maxPosterSize.toBytes();
+        this.ttl = ttl;
+        this.sweepBatchSize = sweepBatchSize;
+        this.maxOpenPerUser = maxOpenPerUser;
+    }
+
+    public PosterUploadStatus open(String owner, String fileName, long size) throws IOException {
+        //1. Refuse what the publish step would refuse before anything is allocated
+        if(fileName == null || fileName.isBlank() || fileName.startsWith(".") || fileName.contains("/") || fileName.contains("\\")){
+            throw new InvalidRequestException("Invalid file name: " + fileName);
+        }
+        if(size <= 0 || size > maxPosterSize){
+            throw new InvalidRequestException("A poster must be between 1 and " + maxPosterSize + " bytes.");
+        }
+        // two opens racing past the count can exceed the cap by one each, the cap only has to bound the disk
+        if(uploadSessionRepository.countByOwner(owner) >= maxOpenPerUser){
+            throw new UploadLimitExceededException("At most " + maxOpenPerUser + " uploads can be open at once, finish or abort one first.");
+        }
+
+        //2. Preallocate the part file so every chunk is a write into space that already exists
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(directory);
+        Path part = part(uploadId);
+        try (RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw")) {
+            file.setLength(size);
+        }
+
+        //3. The session row is what makes the upload resumable after a restart
+        Instant now = Instant.now();
+        UploadSession session = UploadSession.builder()
+                .uploadId(uploadId)
+                .owner(owner)
+                .fileName(fileName)
+                .totalSize(size)
+                .received(0L)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build();
+        try {
+            uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        return status(session);
+    }
+
+    public PosterUploadStatus status(String owner, String uploadId) {
+        return status(find(owner, uploadId));
+    }
+
+    public PosterUploadStatus append(String owner, String uploadId, long offset, InputStream content) throws IOException {
+        //1. A chunk may overlap bytes already received, but must not leave a gap
+        UploadSession session = find(owner, uploadId);
+        long received = session.getReceived();
+        if(offset < 0 || offset > received){
+            throw new UploadOffsetConflictException("The chunk starts at " + offset + " but the upload continues at " + received + ".", received);
+        }
+
+        //2. Positional writes into the preallocated file, forced to disk before the offset claims them
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(part(uploadId), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int read;
+            while ((read = content.read(buffer.array())) != -1) {
+                if(position + read > session.getTotalSize()){
+                    throw new InvalidRequestException("The chunk runs past the declared size of " + session.getTotalSize() + " bytes.");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            channel.force(false);
+        } catch (NoSuchFileException e) {
+            throw new UploadSessionNotFoundException("The data of upload " + uploadId + " is gone, please start a new upload.");
+        }
+
+        //3. Move the offset on, a concurrent chunk that moved it first wins
+        long advanced = Math.max(received, position);
+        Instant expiresAt = Instant.now().plus(ttl);
+        if(uploadSessionRepository.advance(uploadId, received, advanced, expiresAt) == 0){
+            throw new UploadOffsetConflictException("Another chunk of this upload was written at the same time.", find(owner, uploadId).getReceived());
+        }
+        return new PosterUploadStatus(uploadId, session.getFileName(), session.getTotalSize(), advanced, expiresAt);
+    }
+
+    // publishes the poster through FileService, within the caller's transaction if there is one
+    public PosterUpload complete(String owner, String uploadId) throws IOException {
+        //1. Every byte has to be there
+        UploadSession session = find(owner, uploadId);
+        if(session.getReceived() < session.getTotalSize()){
+            throw new UploadOffsetConflictException("The upload has " + session.getReceived() + " of " + session.getTotalSize()
+                    + " bytes, send the rest before finalising it.", session.getReceived());
+        }
+
+        //2. The normal publish path validates, hashes and publishes the poster
+        PosterUpload upload;
+        try (InputStream in = Files.newInputStream(part(uploadId))) {
+            upload = fileService.uploadFile(path, session.getFileName(), in);
+        }
+
+        //3. If the caller's transaction rolls back, the session and its bytes stay so finalising can be retried
+        uploadSessionRepository.deleteByUploadId(uploadId);
+        deletePartAfterCommit(uploadId);
+        return upload;
+    }
+
+    public void abort(String owner, String uploadId) throws IOException {
+        if(uploadSessionRepository.deleteByUploadIdAndOwner(uploadId, owner) == 0){
+            throw new UploadSessionNotFoundException("Upload not found with ID: " + uploadId);
+        }
+        Files.deleteIfExists(part(uploadId));
+    }
+
+    @Scheduled(fixedDelayString = "${project.poster-upload.sweep-interval:PT15M}")
+    public void sweep() {
+        sweep(Instant.now());
+    }
+
+    int sweep(Instant now) {
+        int removed = 0;
+        try {
+            //1. Sessions nobody wrote to within the ttl
+            List<UploadSession> expired;
+            while (!(expired = uploadSessionRepository.findByExpiresAtBefore(now, Limit.of(sweepBatchSize))).isEmpty()) {
+                for (UploadSession session : expired) {
+                    uploadSessionRepository.deleteByUploadId(session.getUploadId());
+                    Files.deleteIfExists(part(session.getUploadId()));
+                    removed++;
+                }
+            }
+
+            //2. Part files without a session, left by a node that stopped between preallocating and saving
+            if(Files.isDirectory(directory)){
+                Instant cutoff = now.minus(ttl);
+                try (DirectoryStream<Path> parts = Files.newDirectoryStream(directory, "*" + PART_SUFFIX)) {
+                    for (Path part : parts) {
+                        String uploadId = part.getFileName().toString().replace(PART_SUFFIX, "");
+                        if(Files.getLastModifiedTime(part).toInstant().isBefore(cutoff) && !uploadSessionRepository.existsById(uploadId)){
+                            Files.deleteIfExists(part);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        } catch (DataAccessException | IOException e) {
+            log.warn("Sweeping expired poster uploads failed: {}", e.getMessage());
+        }
+        if(removed > 0){
+            log.info("Removed {} abandoned poster uploads", removed);
+        }
+        return removed;
+    }
+
+    // someone else's session is not found either, so upload ids cannot be probed
+    private UploadSession find(String owner, String uploadId) {
+        return uploadSessionRepository.findById(uploadId)
+                .filter(session -> session.getOwner().equals(owner))
+                .orElseThrow(() -> new UploadSessionNotFoundException("Upload not found with ID: " + uploadId));
+    }
+
+    private Path part(String uploadId) {
+        Path part = directory.resolve(uploadId + PART_SUFFIX).normalize();
+        if(!directory.equals(part.getParent())){
+            throw new UploadSessionNotFoundException("Upload not found with ID: " + uploadId);
+        }
+        return part;
+    }
+
+    private void deletePartAfterCommit(String uploadId) throws IOException {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            Files.deleteIfExists(part(uploadId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    Files.deleteIfExists(part(uploadId));
+                } catch (IOException ignored) {
+                    // the sweeper removes part files whose session is gone
+                }
+            }
+        });
+    }
+
+    private static PosterUploadStatus status(UploadSession session) {
+        return new PosterUploadStatus(session.getUploadId(), session.getFileName(), session.getTotalSize(),
+                session.getReceived(), session.getExpiresAt());
+    }
+}
@@ -0,0 +1,554 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Precomputed "more like this" lists.
+ * <p>
+ * Every movie is a set of features: its cast members, director and studio, weighted
+ * {@value #CAST_WEIGHT}, {@value #DIRECTOR_WEIGHT} and {@value #STUDIO_WEIGHT}. Two movies score
+ * the weighted Jaccard similarity of their sets, the shared weight over the combined weight. An
+ * inverted index of sorted {@code int[]} posting lists maps each feature to its movies, so a
+ * movie's candidates are found by walking the lists of its own features while a scratch array
+ * accumulates the shared weight per candidate. Features shared by more than
+ * {@code max-postings} movies say little and would make that walk quadratic, they are ignored.
+ * <p>
+ * The full job builds a fresh index off the lock, splits the movies over a fork-join pool and
+ * keeps the top K of each as two primitive arrays. A change only marks the movies that share a
+ * feature with the old or new version of the changed movie, and the next update recomputes just
+ * those.
+ */
+@Slf4j
+@Component
+public class SimilarMovies {
+
+    private static final float CAST_WEIGHT = 1.0f;
+    private static final float DIRECTOR_WEIGHT = 2.0f;
+    private static final float STUDIO_WEIGHT = 0.5f;
+    private static final int LEAF_SIZE = 64;
+    private static final int[] EMPTY = new int[0];
+
+    private final MovieRepository movieRepository;
+    private final int topK;
+    private final int maxPostings;
+    private final int loadBatchSize;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock, only read by the pool while the lock holder waits for it
+    private Index index = new Index();
+    private final Set<Integer> stale = new HashSet<>();
+    private boolean loaded;
+    // while a rebuild runs, the latest features of every movie changed meanwhile, null for a removal
+    private Map<Integer, List<String>> changedDuringRebuild;
+
+    // read without locking, replaced as a whole by a rebuild
+    private volatile Map<Integer, Neighbours> neighbours = new ConcurrentHashMap<>();
+
+    public SimilarMovies(MovieRepository movieRepository,
+                         @Value("${project.similar.top-k:20}") int topK,
+                         @Value("${project.similar.max-postings:1000}") int maxPostings,
+                         @Value("${project.similar.load-batch-size:5000}") int loadBatchSize,
+                         @Value("${project.similar.parallelism:0}") int parallelism) {
+        this.movieRepository = movieRepository;
+        this.topK = topK;
+        this.maxPostings = maxPostings;
+        this.loadBatchSize = loadBatchSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public record Neighbour(Integer movieId, double score) {
+    }
+
+    // best first, scores[i] belongs to movieIds[i]
+    private record Neighbours(int[] movieIds, float[] scores) {
+    }
+
+    public List<Neighbour> similar(Integer movieId, int limit) {
+        Neighbours list = neighbours.get(movieId);
+        if(list == null){
+            return List.of();
+        }
+        int size = Math.min(limit, list.movieIds.length);
+        List<Neighbour> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Neighbour(list.movieIds[i], list.scores[i]));
+        }
+        return result;
+    }
+
+    public void put(MovieDto movie) {
+        List<String> features = features(movie);
+        lock.lock();
+        try {
+            index.replace(movie.getMovieId(), features);
+            keepForRebuild(movie.getMovieId(), features);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // director and studio are features, the other columns of a partial update do not matter here
+    public void patch(Integer movieId, MoviePatch patch) {
+        if(patch.director() == null && patch.studio() == null){
+            return;
+        }
+        lock.lock();
+        try {
+            int[] previous = index.documents.get(movieId);
+            if(previous == null){
+                return;
+            }
+            List<String> features = new ArrayList<>(previous.length);
+            for (int feature : previous) {
+                String key = index.featureKeys.get(feature);
+                if(key.startsWith("director:") && patch.director() != null){
+                    key = "director:" + patch.director();
+                } else if(key.startsWith("studio:") && patch.studio() != null){
+                    key = "studio:" + patch.studio();
+                }
+                features.add(key);
+            }
+            index.replace(movieId, features);
+            keepForRebuild(movieId, features);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Integer movieId) {
+        lock.lock();
+        try {
+            index.remove(movieId);
+            neighbours.remove(movieId);
+            keepForRebuild(movieId, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // re-reads one movie after a change made on another node
+    public void refresh(Integer movieId) {
+        movieRepository.findProjectionById(movieId).ifPresentOrElse(
+                movie -> put(movie.toMovieDto(null)),
+                () -> remove(movieId));
+    }
+
+    // recomputes the lists the changes since the last update may have affected
+    @Scheduled(fixedDelayString = "${project.similar.update-interval:PT1S}")
+    public void update() {
+        boolean load;
+        lock.lock();
+        try {
+            load = !loaded;
+            if(!load && !stale.isEmpty()){
+                int[] movieIds = stale.stream().mapToInt(Integer::intValue).toArray();
+                stale.clear();
+                pool.invoke(new Compute(index, neighbours, movieIds, 0, movieIds.length));
+            }
+        } finally {
+            lock.unlock();
+        }
+        // a rebuild takes the lock itself, and only briefly
+        if(load){
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds a fresh index and fresh lists without holding the lock, so changes and updates go on
+     * against the current ones while the database is read and the lists computed. The lock is only
+     * taken to swap them in, and changes that arrived in the meantime are then applied to the fresh
+     * index, which marks their neighbourhoods stale for the next update.
+     */
+    @Scheduled(initialDelayString = "${project.similar.rebuild-interval:PT6H}", fixedDelayString = "${project.similar.rebuild-interval:PT6H}")
+    public void rebuild() {
+        lock.lock();
+        try {
+            if(changedDuringRebuild != null){
+                return;
+            }
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            long started = System.nanoTime();
+            Index fresh = new Index();
+
+            //1. Index every movie's features
+            Integer lastId = 0;
+            List<MovieProjection> batch;
+            while (!(batch = movieRepository.findProjectionsAfter(lastId, Limit.of(loadBatchSize))).isEmpty()) {
+                for (MovieProjection movie : batch) {
+                    fresh.documents.put(movie.movieId(), fresh.intern(features(movie.toMovieDto(null))));
+                    fresh.maxMovieId = Math.max(fresh.maxMovieId, movie.movieId());
+                }
+                lastId = batch.get(batch.size() - 1).movieId();
+            }
+
+            //2. Posting lists are sized by a counting pass, then filled in ascending movie id order
+            int[] counts = new int[fresh.featureIds.size()];
+            fresh.documents.values().forEach(features -> {
+                for (int feature : features) {
+                    counts[feature]++;
+                }
+            });
+            fresh.postings = new int[Math.max(fresh.featureWeights.length, counts.length)][];
+            for (int feature = 0; feature < counts.length; feature++) {
+                fresh.postings[feature] = new int[counts[feature]];
+            }
+            int[] filled = new int[counts.length];
+            int[] movieIds = fresh.documents.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int movieId : movieIds) {
+                for (int feature : fresh.documents.get(movieId)) {
+                    fresh.postings[feature][filled[feature]++] = movieId;
+                }
+            }
+
+            //3. Every movie's list, in parallel
+            Map<Integer, Neighbours> computed = new ConcurrentHashMap<>();
+            pool.invoke(new Compute(fresh, computed, movieIds, 0, movieIds.length));
+
+            //4. Swap, then replay what changed meanwhile, the fresh index may have read those movies before or after the change
+            lock.lock();
+            try {
+                index = fresh;
+                neighbours = computed;
+                stale.clear();
+                changedDuringRebuild.forEach((movieId, features) -> {
+                    if(features == null){
+                        fresh.remove(movieId);
+                        computed.remove(movieId);
+                    } else {
+                        fresh.replace(movieId, features);
+                    }
+                });
+                loaded = true;
+            } finally {
+                lock.unlock();
+            }
+            log.info("Computed similar movies for {} movies in {} ms", movieIds.length, (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    // called with the lock held
+    private void keepForRebuild(Integer movieId, List<String> features) {
+        if(changedDuringRebuild != null){
+            changedDuringRebuild.put(movieId, features);
+        }
+    }
+
+    private static List<String> features(MovieDto movie) {
+        List<String> features = new ArrayList<>();
+        if(movie.getMovieCast() != null){
+            movie.getMovieCast().forEach(member -> features.add("cast:" + member));
+        }
+        features.add("director:" + movie.getDirector());
+        features.add("studio:" + movie.getStudio());
+        return features;
+    }
+
+    // features, posting lists and documents of every movie, changed under the lock once published
+    private final class Index {
+
+        private final Map<String, Integer> featureIds = new HashMap<>();
+        private final List<String> featureKeys = new ArrayList<>();
+        private float[] featureWeights = new float[1024];
+        private int[][] postings = new int[1024][];
+        private final Map<Integer, int[]> documents = new HashMap<>();
+        private int maxMovieId;
+
+        private void replace(Integer movieId, List<String> keys) {
+            int[] previous = documents.get(movieId);
+            int[] features = intern(keys);
+            if(Arrays.equals(previous, features)){
+                return;
+            }
+            //1. Movies that shared a feature with the old version lose it, those sharing one with the new version gain it
+            if(previous != null){
+                for (int feature : previous) {
+                    markNeighbourhood(feature, movieId);
+                    postings[feature] = without(postings[feature], movieId);
+                }
+            }
+            for (int feature : features) {
+                postings[feature] = with(postings[feature], movieId);
+                markNeighbourhood(feature, movieId);
+            }
+            documents.put(movieId, features);
+            maxMovieId = Math.max(maxMovieId, movieId);
+            stale.add(movieId);
+        }
+
+        private void remove(Integer movieId) {
+            int[] previous = documents.remove(movieId);
+            if(previous == null){
+                return;
+            }
+            for (int feature : previous) {
+                markNeighbourhood(feature, movieId);
+                postings[feature] = without(postings[feature], movieId);
+            }
+            stale.remove(movieId);
+        }
+
+        // a feature too common to score with cannot change anyone's list
+        private void markNeighbourhood(int feature, Integer movieId) {
+            int[] movies = postings[feature];
+            if(movies.length > maxPostings){
+                return;
+            }
+            for (int other : movies) {
+                if(other != movieId){
+                    stale.add(other);
+                }
+            }
+        }
+
+        // sorted distinct ids, new keys get the next id
+        private int[] intern(List<String> keys) {
+            int[] features = new int[keys.size()];
+            for (int i = 0; i < features.length; i++) {
+                String key = keys.get(i);
+                Integer id = featureIds.get(key);
+                if(id == null){
+                    id = featureIds.size();
+                    featureIds.put(key, id);
+                    featureKeys.add(key);
+                    if(id == featureWeights.length){
+                        featureWeights = Arrays.copyOf(featureWeights, id * 2);
+                    }
+                    featureWeights[id] = key.startsWith("cast:") ? CAST_WEIGHT : key.startsWith("director:") ? DIRECTOR_WEIGHT : STUDIO_WEIGHT;
+                }
+                if(id >= postings.length){
+                    postings = Arrays.copyOf(postings, Math.max(id + 1, postings.length * 2));
+                }
+                if(postings[id] == null){
+                    postings[id] = EMPTY;
+                }
+                features[i] = id;
+            }
+            return Arrays.stream(features).sorted().distinct().toArray();
+        }
+
+        // total weight of the features that take part in scoring
+        private float norm(int[] features) {
+            float norm = 0;
+            for (int feature : features) {
+                if(postings[feature].length <= maxPostings){
+                    norm += featureWeights[feature];
+                }
+            }
+            return norm;
+        }
+
+        private void compute(int movieId, Map<Integer, Neighbours> into) {
+            int[] features = documents.get(movieId);
+            if(features == null){
+                return;
+            }
+            Scratch s = scratch.get();
+            s.ensure(maxMovieId + 1);
+
+            //1. Shared weight with every movie that has at least one scoring feature in common
+            int touched = 0;
+            for (int feature : features) {
+                int[] movies = postings[feature];
+                if(movies.length > maxPostings){
+                    continue;
+                }
+                float weight = featureWeights[feature];
+                for (int other : movies) {
+                    if(other == movieId){
+                        continue;
+                    }
+                    if(s.shared[other] == 0){
+                        if(touched == s.touched.length){
+                            s.touched = Arrays.copyOf(s.touched, touched * 2);
+                        }
+                        s.touched[touched++] = other;
+                    }
+                    s.shared[other] += weight;
+                }
+            }
+
+            //2. Jaccard of each candidate into a bounded min-heap, clearing the scratch array on the way
+            float norm = norm(features);
+            int size = 0;
+            for (int i = 0; i < touched; i++) {
+                int other = s.touched[i];
+                float shared = s.shared[other];
+                s.shared[other] = 0;
+                float score = shared / (norm + norm(documents.get(other)) - shared);
+                if(size < topK){
+                    s.heapIds[size] = other;
+                    s.heapScores[size] = score;
+                    siftUp(s, size++);
+                } else if(better(score, other, s.heapScores[0], s.heapIds[0])){
+                    s.heapIds[0] = other;
+                    s.heapScores[0] = score;
+                    siftDown(s, 0, size);
+                }
+            }
+
+            //3. Drain the heap worst first into arrays ordered best first
+            int[] movieIds = new int[size];
+            float[] scores = new float[size];
+            for (int i = size - 1; i >= 0; i--) {
+                movieIds[i] = s.heapIds[0];
+                scores[i] = s.heapScores[0];
+                s.heapIds[0] = s.heapIds[i];
+                s.heapScores[0] = s.heapScores[i];
+                siftDown(s, 0, i);
+            }
+            into.put(movieId, new Neighbours(movieIds, scores));
+        }
+    }
+
+    // higher score wins, ties go to the lower movie id
+    private static boolean better(float score, int movieId, float otherScore, int otherMovieId) {
+        return score > otherScore || score == otherScore && movieId < otherMovieId;
+    }
+
+    private static void siftUp(Scratch s, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(!better(s.heapScores[parent], s.heapIds[parent], s.heapScores[i], s.heapIds[i])){
+                return;
+            }
+            swap(s, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(Scratch s, int i, int size) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if(left < size && better(s.heapScores[worst], s.heapIds[worst], s.heapScores[left], s.heapIds[left])){
+                worst = left;
+            }
+            if(right < size && better(s.heapScores[worst], s.heapIds[worst], s.heapScores[right], s.heapIds[right])){
+                worst = right;
+            }
+            if(worst == i){
+                return;
+            }
+            swap(s, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(Scratch s, int a, int b) {
+        int id = s.heapIds[a];
+        float score = s.heapScores[a];
+        s.heapIds[a] = s.heapIds[b];
+        s.heapScores[a] = s.heapScores[b];
+        s.heapIds[b] = id;
+        s.heapScores[b] = score;
+    }
+
+    private static int[] with(int[] movies, int movieId) {
+        int at = Arrays.binarySearch(movies, movieId);
+        if(at >= 0){
+            return movies;
+        }
+        at = -at - 1;
+        int[] result = new int[movies.length + 1];
+        System.arraycopy(movies, 0, result, 0, at);
+        result[at] = movieId;
+        System.arraycopy(movies, at, result, at + 1, movies.length - at);
+        return result;
+    }
+
+    private static int[] without(int[] movies, int movieId) {
+        int at = Arrays.binarySearch(movies, movieId);
+        if(at < 0){
+            return movies;
+        }
+        int[] result = new int[movies.length - 1];
+        System.arraycopy(movies, 0, result, 0, at);
+        System.arraycopy(movies, at + 1, result, at, movies.length - at - 1);
+        return result;
+    }
+
+    // splits a range of movie ids until it is small enough to compute in one go
+    private final class Compute extends RecursiveAction {
+
+        private final Index index;
+        private final Map<Integer, Neighbours> into;
+        private final int[] movieIds;
+        private final int from;
+        private final int to;
+
+        private Compute(Index index, Map<Integer, Neighbours> into, int[] movieIds, int from, int to) {
+            this.index = index;
+            this.into = into;
+            this.movieIds = movieIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= LEAF_SIZE){
+                for (int i = from; i < to; i++) {
+                    index.compute(movieIds[i], into);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Compute(index, into, movieIds, from, middle), new Compute(index, into, movieIds, middle, to));
+        }
+    }
+
+    // per worker thread, shared is all zeroes between movies
+    private final class Scratch {
+        private float[] shared = new float[0];
+        private int[] touched = new int[256];
+        private final int[] heapIds = new int[topK];
+        private final float[] heapScores = new float[topK];
+
+        private void ensure(int size) {
+            if(shared.length < size){
+                shared = new float[Math.max(size, shared.length * 2)];
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.movieflix.movieApi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-statement latency statistics, fed by the timing wrapper around the datasource.
+ * <p>
+ * Statements are grouped by fingerprint: the SQL with literals replaced by {@code ?}, IN lists
+ * collapsed and whitespace normalised, so the same query with different values or list sizes
+ * lands in one entry. The fingerprint of each distinct SQL string is computed once and cached,
+ * which keeps the per-statement cost to a map lookup and a few atomic increments. Latencies go
+ * to a log-linear histogram (four buckets per power of two, so percentiles are within 25%).
+ * Statements over the threshold are logged with the application method that issued them; the
+ * stack is only walked for those.
+ */
+@Slf4j
+@Component
+public class SlowQueryDetector {
+
+    private static final String APPLICATION_PACKAGE = "com.movieflix.movieApi.";
+    private static final String OTHER = "<other>";
+
+    private final long thresholdNanos;
+    private final int maxFingerprints;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Counter slowStatements;
+
+    public SlowQueryDetector(MeterRegistry meterRegistry,
+                             @Value("${project.slow-query.threshold:PT0.2S}") Duration threshold,
+                             @Value("${project.slow-query.max-fingerprints:1000}") int maxFingerprints) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxFingerprints = maxFingerprints;
+        this.slowStatements = meterRegistry.counter("sql.slow.statements");
+    }
+
+    public record Entry(String fingerprint, long count, long rows, double totalMillis, long meanMicros,
+                        long p50Micros, long p95Micros, long p99Micros, long maxMicros, String lastSlowCaller) {
+    }
+
+    // the stats a statement's timings and row counts are added to
+    public Stats statsFor(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if(fingerprint == null){
+            // distinct SQL strings are bounded by the fingerprint limit, beyond it they are not cached
+            fingerprint = fingerprint(sql);
+            if(fingerprints.size() < maxFingerprints * 4){
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        Stats existing = stats.get(fingerprint);
+        if(existing != null){
+            return existing;
+        }
+        return stats.size() < maxFingerprints
+                ? stats.computeIfAbsent(fingerprint, Stats::new)
+                : stats.computeIfAbsent(OTHER, Stats::new);
+    }
+
+    public void record(Stats target, long nanos) {
+        target.record(nanos);
+        if(nanos >= thresholdNanos){
+            slowStatements.increment();
+            String caller = caller();
+            target.lastSlowCaller = caller;
+            log.warn("Slow SQL took {} ms in {}: {}", TimeUnit.NANOSECONDS.toMillis(nanos), caller, target.fingerprint);
+        }
+    }
+
+    // sortBy is one of total, mean, p99 or max
+    public List<Entry> top(int limit, String sortBy) {
+        Comparator<Entry> order = switch (sortBy) {
+            case "total" -> Comparator.comparingDouble(Entry::totalMillis);
+            case "mean" -> Comparator.comparingLong(Entry::meanMicros);
+            case "p99" -> Comparator.comparingLong(Entry::p99Micros);
+            case "max" -> Comparator.comparingLong(Entry::maxMicros);
+            default -> throw new IllegalArgumentException("Cannot sort slow queries by '" + sortBy + "', use total, mean, p99 or max");
+        };
+        return stats.values().stream()
+                .map(Stats::snapshot)
+                .sorted(order.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    // the innermost application frame below the JDBC wrapper, e.g. MovieServiceImpl.getMovie
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE))
+                .filter(frame -> !frame.getClassName().contains("$$"))
+                .filter(frame -> !frame.getClassName().equals(SlowQueryDetector.class.getName()))
+                .filter(frame -> !frame.getClassName().startsWith("com.movieflix.movieApi.config.TimedDataSource"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    /**
+     * Replaces string and numeric literals with {@code ?}, collapses lists of placeholders such as
+     * {@code in (?, ?, ?)} to {@code (?+)}, lower cases keywords and identifiers outside quotes and
+     * squeezes whitespace.
+     */
+    static String fingerprint(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if(c == '\''){
+                // string literal, '' is an escaped quote
+                i++;
+                while (i < n) {
+                    if(sql.charAt(i) == '\'' && (i + 1 >= n || sql.charAt(i + 1) != '\'')){
+                        break;
+                    }
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                i++;
+                out.append('?');
+            } else if(Character.isDigit(c) && !partOfIdentifier(out)){
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if(Character.isWhitespace(c)){
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if(!out.isEmpty() && out.charAt(out.length() - 1) != ' '){
+                    out.append(' ');
+                }
+            } else if(c == '`' || c == '"'){
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? n - 1 : end;
+                out.append(sql, i, end + 1);
+                i = end + 1;
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return collapseLists(out.toString().strip());
+    }
+
+    private static boolean partOfIdentifier(StringBuilder out) {
+        if(out.isEmpty()){
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    // "(?, ?, ?)" and "(?,?)" become "(?+)", multi-row VALUES lists collapse the same way
+    private static String collapseLists(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            int end = placeholderList(sql, i);
+            if(end > 0){
+                out.append("(?+)");
+                i = end;
+                // further rows of a multi-row VALUES list fold into the first
+                int next;
+                while ((next = nextRow(sql, i)) > 0) {
+                    i = next;
+                }
+            } else {
+                out.append(sql.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    // end of a ", (?, ...)" row following i, or -1
+    private static int nextRow(String sql, int i) {
+        int j = skipSpaces(sql, i);
+        if(j >= sql.length() || sql.charAt(j) != ','){
+            return -1;
+        }
+        return placeholderList(sql, skipSpaces(sql, j + 1));
+    }
+
+    // end of a "(?, ?, ...)" group starting at i, or -1
+    private static int placeholderList(String sql, int i) {
+        if(i >= sql.length() || sql.charAt(i) != '('){
+            return -1;
+        }
+        int j = skipSpaces(sql, i + 1);
+        boolean expectPlaceholder = true;
+        while (j < sql.length()) {
+            char c = sql.charAt(j);
+            if(expectPlaceholder && c == '?'){
+                expectPlaceholder = false;
+            } else if(!expectPlaceholder && c == ','){
+                expectPlaceholder = true;
+            } else if(!expectPlaceholder && c == ')'){
+                return j + 1;
+            } else {
+                return -1;
+            }
+            j = skipSpaces(sql, j + 1);
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String sql, int i) {
+        while (i < sql.length() && sql.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    public static final class Stats {
+
+        // values below 8 µs get a bucket each, above that 4 buckets per power of two
+        private static final int BUCKETS = 8 + 38 * 4;
+
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private volatile String lastSlowCaller;
+
+        private Stats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        public void addRows(long added) {
+            rows.add(added);
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            histogram.incrementAndGet(bucket(nanos / 1_000));
+        }
+
+        static int bucket(long micros) {
+            if(micros < 8){
+                return (int) Math.max(micros, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exponent - 2)) & 3;
+            return Math.min(8 + (exponent - 3) * 4 + sub, BUCKETS - 1);
+        }
+
+        // largest value that falls into the bucket
+        static long upperBound(int bucket) {
+            if(bucket < 8){
+                return bucket;
+            }
+            int exponent = (bucket - 8) / 4 + 3;
+            int sub = (bucket - 8) % 4;
+            return ((4L + sub + 1) << (exponent - 2)) - 1;
+        }
+
+        private Entry snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            long calls = count.sum();
+            long maxMicros = maxNanos.get() / 1_000;
+            return new Entry(fingerprint, calls, rows.sum(), totalNanos.sum() / 1e6, calls == 0 ? 0 : totalNanos.sum() / calls / 1_000,
+                    Math.min(percentile(counts, total, 0.50), maxMicros), Math.min(percentile(counts, total, 0.95), maxMicros),
+                    Math.min(percentile(counts, total, 0.99), maxMicros), maxMicros, lastSlowCaller);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank && seen > 0){
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
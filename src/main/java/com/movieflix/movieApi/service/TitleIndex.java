@@ -0,0 +1,300 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.TitleSuggestion;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory type-ahead over movie titles.
+ * <p>
+ * Titles are folded (diacritics stripped, lower case, punctuation collapsed to single spaces) and
+ * kept in an immutable snapshot: one sorted UTF-8 blob of keys with an offset array, so a prefix
+ * is two binary searches away from its range. A max segment tree over the popularity scores
+ * returns the top K of any range in O(K log n) without scanning it. Changes go to a small overlay
+ * that queries merge in, and a scheduled rebuild folds the overlay and the view counts of the
+ * latest {@link ViewCounter} flush back into a new snapshot. Readers never lock.
+ */
+@Slf4j
+@Component
+public class TitleIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final MovieRepository movieRepository;
+    private final ViewCounter viewCounter;
+    private final int loadBatchSize;
+
+    private volatile State state = new State(Snapshot.EMPTY, new ConcurrentSkipListMap<>(), ConcurrentHashMap.newKeySet());
+    private volatile boolean loaded;
+    private volatile boolean dirty;
+    // popularity only changes when the view counter flushes
+    private long lastFlushes;
+
+    public TitleIndex(MovieRepository movieRepository, ViewCounter viewCounter,
+                      @Value("${project.autocomplete.load-batch-size:5000}") int loadBatchSize) {
+        this.movieRepository = movieRepository;
+        this.viewCounter = viewCounter;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    // overlay entries are keyed by folded title plus id so equal titles don't collide
+    private record State(Snapshot snapshot, ConcurrentSkipListMap<String, TitleSuggestion> added, Set<Integer> hidden) {
+    }
+
+    public List<TitleSuggestion> suggest(String prefix, int limit) {
+        String key = fold(prefix, true);
+        if(key.isEmpty() || limit <= 0){
+            return List.of();
+        }
+        State current = state;
+
+        //1. Top entries of the snapshot range, skipping ids the overlay has replaced
+        List<TitleSuggestion> snapshotHits = current.snapshot.top(key.getBytes(StandardCharsets.UTF_8), limit, current.hidden);
+
+        //2. Overlay entries for the same prefix, there are only as many as changes since the last rebuild
+        List<TitleSuggestion> overlayHits = new ArrayList<>(current.added.subMap(key, key + Character.MAX_VALUE).values());
+        if(overlayHits.isEmpty()){
+            return snapshotHits;
+        }
+
+        //3. Merge both by popularity
+        Map<Integer, TitleSuggestion> merged = new HashMap<>();
+        snapshotHits.forEach(hit -> merged.put(hit.movieId(), hit));
+        overlayHits.forEach(hit -> merged.put(hit.movieId(), hit));
+        return merged.values().stream()
+                .sorted(Comparator.comparingLong((TitleSuggestion hit) -> viewCounter.views(hit.movieId())).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public synchronized void put(Integer movieId, String title) {
+        remove(movieId);
+        state.added.put(fold(title, false) + '\0' + movieId, new TitleSuggestion(movieId, title));
+        dirty = true;
+    }
+
+    public synchronized void remove(Integer movieId) {
+        state.hidden.add(movieId);
+        state.added.values().removeIf(entry -> entry.movieId().equals(movieId));
+        dirty = true;
+    }
+
+    // re-reads one title after a change made on another node
+    public void refresh(Integer movieId) {
+        movieRepository.findTitleById(movieId).ifPresentOrElse(
+                title -> put(title.movieId(), title.title()),
+                () -> remove(movieId));
+    }
+
+    @Scheduled(fixedDelayString = "${project.autocomplete.rebuild-interval:PT1M}")
+    public synchronized void rebuild() {
+        if(!loaded){
+            reload();
+        } else if(dirty || viewCounter.flushes() != lastFlushes){
+            List<TitleSuggestion> titles = new ArrayList<>(state.snapshot.size() + state.added.size());
+            state.snapshot.forEach(state.hidden, titles::add);
+            titles.addAll(state.added.values());
+            publish(titles);
+        }
+    }
+
+    // loads every title from the database, changes arriving meanwhile wait for the lock and apply on top
+    public synchronized void reload() {
+        List<TitleSuggestion> titles = new ArrayList<>();
+        Integer lastId = 0;
+        List<TitleSuggestion> batch;
+        while (!(batch = movieRepository.findTitlesAfter(lastId, Limit.of(loadBatchSize))).isEmpty()) {
+            titles.addAll(batch);
+            lastId = batch.get(batch.size() - 1).movieId();
+        }
+        publish(titles);
+        loaded = true;
+        log.info("Loaded {} titles into the autocomplete index", titles.size());
+    }
+
+    private void publish(List<TitleSuggestion> titles) {
+        dirty = false;
+        lastFlushes = viewCounter.flushes();
+        state = new State(Snapshot.build(titles, viewCounter::views), new ConcurrentSkipListMap<>(), ConcurrentHashMap.newKeySet());
+    }
+
+    // a trailing separator in a query is kept so "star " does not match "starship"
+    static String fold(String text, boolean query) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        folded = SEPARATORS.matcher(folded).replaceAll(" ");
+        String trimmed = folded.strip();
+        return query && !trimmed.isEmpty() && folded.endsWith(" ") ? trimmed + " " : trimmed;
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = build(List.of(), id -> 0L);
+
+        private final byte[] keys;
+        private final byte[] titles;
+        // entry i spans keys[keyOffsets[i], keyOffsets[i + 1]), titles likewise
+        private final int[] keyOffsets;
+        private final int[] titleOffsets;
+        private final int[] movieIds;
+        private final long[] scores;
+        // iterative max tree, leaves at [n, 2n) hold entry positions
+        private final int[] tree;
+        private final int n;
+
+        private Snapshot(byte[] keys, byte[] titles, int[] keyOffsets, int[] titleOffsets, int[] movieIds, long[] scores) {
+            this.keys = keys;
+            this.titles = titles;
+            this.keyOffsets = keyOffsets;
+            this.titleOffsets = titleOffsets;
+            this.movieIds = movieIds;
+            this.scores = scores;
+            this.n = movieIds.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        private record Entry(byte[] key, byte[] title, int movieId, long score) {
+        }
+
+        private static Snapshot build(List<TitleSuggestion> titles, ToLongFunction<Integer> popularity) {
+            List<Entry> entries = new ArrayList<>(titles.size());
+            int keyBytes = 0;
+            int titleBytes = 0;
+            for (TitleSuggestion title : titles) {
+                Entry entry = new Entry(fold(title.title(), false).getBytes(StandardCharsets.UTF_8),
+                        title.title().getBytes(StandardCharsets.UTF_8), title.movieId(), popularity.applyAsLong(title.movieId()));
+                entries.add(entry);
+                keyBytes += entry.key.length;
+                titleBytes += entry.title.length;
+            }
+            entries.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+
+            byte[] keys = new byte[keyBytes];
+            byte[] titleBlob = new byte[titleBytes];
+            int[] keyOffsets = new int[entries.size() + 1];
+            int[] titleOffsets = new int[entries.size() + 1];
+            int[] movieIds = new int[entries.size()];
+            long[] scores = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                System.arraycopy(entry.key, 0, keys, keyOffsets[i], entry.key.length);
+                System.arraycopy(entry.title, 0, titleBlob, titleOffsets[i], entry.title.length);
+                keyOffsets[i + 1] = keyOffsets[i] + entry.key.length;
+                titleOffsets[i + 1] = titleOffsets[i] + entry.title.length;
+                movieIds[i] = entry.movieId;
+                scores[i] = entry.score;
+            }
+            return new Snapshot(keys, titleBlob, keyOffsets, titleOffsets, movieIds, scores);
+        }
+
+        private int size() {
+            return n;
+        }
+
+        private void forEach(Set<Integer> hidden, Consumer<TitleSuggestion> action) {
+            for (int i = 0; i < n; i++) {
+                if(!hidden.contains(movieIds[i])){
+                    action.accept(suggestion(i));
+                }
+            }
+        }
+
+        private List<TitleSuggestion> top(byte[] prefix, int limit, Set<Integer> hidden) {
+            int from = lowerBound(prefix, false);
+            int to = lowerBound(prefix, true);
+            List<TitleSuggestion> result = new ArrayList<>(Math.min(limit, to - from));
+            if(from >= to){
+                return result;
+            }
+
+            // each queued range is represented by its best entry, popping one splits its range in two
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[0], b[0]) == a[0] ? -1 : 1);
+            ranges.add(new int[]{argmax(from, to), from, to});
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[0];
+                if(!hidden.contains(movieIds[best])){
+                    result.add(suggestion(best));
+                }
+                if(range[1] < best){
+                    ranges.add(new int[]{argmax(range[1], best), range[1], best});
+                }
+                if(best + 1 < range[2]){
+                    ranges.add(new int[]{argmax(best + 1, range[2]), best + 1, range[2]});
+                }
+            }
+            return result;
+        }
+
+        // first entry whose key is >= prefix, or with pastPrefix the first entry that sorts after every key starting with it
+        private int lowerBound(byte[] prefix, boolean pastPrefix) {
+            int low = 0;
+            int high = n;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int start = keyOffsets[mid];
+                int end = pastPrefix ? Math.min(keyOffsets[mid + 1], start + prefix.length) : keyOffsets[mid + 1];
+                int compared = Arrays.compareUnsigned(keys, start, end, prefix, 0, prefix.length);
+                if(compared < 0 || pastPrefix && compared == 0){
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int argmax(int from, int to) {
+            int best = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if((l & 1) == 1){
+                    best = better(best, tree[l++]);
+                }
+                if((r & 1) == 1){
+                    best = better(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        // higher score wins, ties go to the earlier (alphabetically first) entry
+        private int better(int a, int b) {
+            if(a < 0){
+                return b;
+            }
+            return scores[a] > scores[b] || scores[a] == scores[b] && a < b ? a : b;
+        }
+
+        private TitleSuggestion suggestion(int i) {
+            return new TitleSuggestion(movieIds[i],
+                    new String(titles, titleOffsets[i], titleOffsets[i + 1] - titleOffsets[i], StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.entities.MovieStats;
+import com.movieflix.movieApi.repositories.MovieStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Movie views counted in memory and written to {@code movie_stats} in batches.
+ * <p>
+ * A view is one increment of a striped {@link LongAdder}, so reads never touch the database.
+ * The scheduled flush upserts each movie's views since the last flush together with its
+ * trending score. Scores use forward decay: a view at time t weighs {@code e^(λ·(t - EPOCH))}
+ * with {@code λ = ln 2 / half-life}, so older views never have to be rewritten and rows from
+ * several nodes simply add up. The weights grow without bound, so the table keeps their natural
+ * logarithm; the count decayed to now is {@code e^(score - λ·(now - EPOCH))}. The K highest
+ * scores are kept in a min-heap updated at every flush and reloaded from the table to pick up
+ * views counted on other nodes.
+ */
+@Slf4j
+@Component
+public class ViewCounter {
+
+    // scores of every node are relative to this fixed instant
+    static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final MovieStatsRepository statsRepository;
+    private final double decayPerSecond;
+    private final int topK;
+    private final int batchSize;
+
+    private final Map<Integer, LongAdder> views = new ConcurrentHashMap<>();
+    private volatile long flushes;
+    private volatile List<MovieStats> trending = List.of();
+
+    // guarded by this
+    private final Map<Integer, Long> flushed = new HashMap<>();
+    private final PriorityQueue<MovieStats> top = new PriorityQueue<>(Comparator.comparingDouble(MovieStats::getScore));
+    private final Map<Integer, MovieStats> inTop = new HashMap<>();
+
+    public ViewCounter(MovieStatsRepository statsRepository,
+                       @Value("${project.views.half-life:PT6H}") Duration halfLife,
+                       @Value("${project.views.top-k:100}") int topK,
+                       @Value("${project.views.batch-size:500}") int batchSize) {
+        this.statsRepository = statsRepository;
+        this.decayPerSecond = Math.log(2) / (halfLife.toMillis() / 1000.0);
+        this.topK = topK;
+        this.batchSize = batchSize;
+    }
+
+    public record Trending(Integer movieId, double score) {
+    }
+
+    public void recordView(Integer movieId) {
+        LongAdder count = views.get(movieId);
+        if(count == null){
+            count = views.computeIfAbsent(movieId, id -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    // views counted by this node since it started
+    public long views(Integer movieId) {
+        LongAdder count = views.get(movieId);
+        return count == null ? 0 : count.sum();
+    }
+
+    // number of flushes that wrote anything, lets readers of views() tell when they changed
+    public long flushes() {
+        return flushes;
+    }
+
+    public List<Trending> trending(int limit) {
+        return trending(limit, Instant.now());
+    }
+
+    List<Trending> trending(int limit, Instant now) {
+        double decayed = age(now);
+        return trending.stream()
+                .limit(limit)
+                .map(stats -> new Trending(stats.getMovieId(), Math.exp(stats.getScore() - decayed)))
+                .toList();
+    }
+
+    public synchronized void remove(Integer movieId) {
+        views.remove(movieId);
+        flushed.remove(movieId);
+        if(inTop.remove(movieId) != null){
+            top.removeIf(stats -> stats.getMovieId().equals(movieId));
+            publish();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${project.views.flush-interval:PT10S}")
+    public void flush() {
+        flush(Instant.now());
+    }
+
+    synchronized void flush(Instant now) {
+        //1. Views since the last flush, the adders themselves are never reset
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        views.forEach((movieId, count) -> {
+            long delta = count.sum() - flushed.getOrDefault(movieId, 0L);
+            if(delta > 0){
+                deltas.put(movieId, delta);
+            }
+        });
+        if(deltas.isEmpty()){
+            return;
+        }
+
+        //2. Upsert them in batches, a batch that fails is sent again with the next flush
+        double weight = age(now);
+        List<Integer> written = new ArrayList<>(deltas.size());
+        List<Integer> movieIds = new ArrayList<>(deltas.keySet());
+        for (int from = 0; from < movieIds.size(); from += batchSize) {
+            Map<Integer, Long> batch = new LinkedHashMap<>();
+            Map<Integer, Double> scores = new HashMap<>();
+            movieIds.subList(from, Math.min(from + batchSize, movieIds.size())).forEach(movieId -> {
+                batch.put(movieId, deltas.get(movieId));
+                scores.put(movieId, Math.log(deltas.get(movieId)) + weight);
+            });
+            try {
+                statsRepository.addViews(batch, scores);
+            } catch (DataAccessException e) {
+                log.warn("Flushing {} movie view counts failed, retrying with the next flush: {}", batch.size(), e.getMessage());
+                continue;
+            }
+            batch.forEach((movieId, delta) -> flushed.merge(movieId, delta, Long::sum));
+            written.addAll(batch.keySet());
+        }
+        if(written.isEmpty()){
+            return;
+        }
+        flushes++;
+
+        //3. The rows now hold every node's views, offer their scores to the heap
+        statsRepository.findAllById(written).forEach(this::offer);
+        publish();
+    }
+
+    // other nodes' flushes only reach the heap through the table
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${project.views.reload-interval:PT5M}", fixedDelayString = "${project.views.reload-interval:PT5M}")
+    public synchronized void reload() {
+        try {
+            List<MovieStats> rows = statsRepository.findAllByOrderByScoreDesc(Limit.of(topK));
+            top.clear();
+            inTop.clear();
+            rows.forEach(this::offer);
+            publish();
+        } catch (DataAccessException e) {
+            log.warn("Reloading trending movies failed: {}", e.getMessage());
+        }
+    }
+
+    // keeps the K highest scores, the lowest of them sits at the head
+    private void offer(MovieStats stats) {
+        if(inTop.remove(stats.getMovieId()) != null){
+            top.removeIf(entry -> entry.getMovieId().equals(stats.getMovieId()));
+        }
+        if(top.size() < topK){
+            top.add(stats);
+            inTop.put(stats.getMovieId(), stats);
+        } else if(stats.getScore() > top.peek().getScore()){
+            inTop.remove(top.poll().getMovieId());
+            top.add(stats);
+            inTop.put(stats.getMovieId(), stats);
+        }
+    }
+
+    private void publish() {
+        List<MovieStats> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(MovieStats::getScore).reversed());
+        trending = ranked;
+    }
+
+    // log of the weight a view at the given instant carries
+    private double age(Instant now) {
+        return decayPerSecond * Duration.between(EPOCH, now).toMillis() / 1000.0;
+    }
+}
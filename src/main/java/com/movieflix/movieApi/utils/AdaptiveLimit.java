@@ -0,0 +1,112 @@
+package com.movieflix.movieApi.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows latency, in the style of the gradient limiters.
+ * <p>
+ * Latencies are averaged over short windows. The lowest window average seen within
+ * {@code minRttWindowNanos} stands for the latency of an unloaded system. After each window the
+ * limit is scaled by {@code tolerance * minRtt / rtt}, clamped to [0.5, 1], and then grows by
+ * the square root of the limit as headroom. While latency stays within the tolerance the limit
+ * keeps growing. Once requests start to queue, the gradient drops below 1 and the limit shrinks
+ * until they no longer do. Windows in which the limit was never approached do not raise it.
+ * <p>
+ * Callers claim a slot before the work and release it after; a claim never waits. The share
+ * passed to {@link #tryAcquire(double)} lets lower priority traffic give up before the limit
+ * is reached.
+ */
+public final class AdaptiveLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final long minRttWindowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // guarded by this
+    private double estimate;
+    private long windowStart;
+    private long windowSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private long minRtt = Long.MAX_VALUE;
+    private long minRttSince;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         long windowNanos, long minRttWindowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minRttWindowNanos = minRttWindowNanos;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+        this.windowStart = System.nanoTime();
+        this.minRttSince = windowStart;
+    }
+
+    // claims a slot while fewer than share * limit are in flight
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) Math.ceil(limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if(current >= allowed){
+                return false;
+            }
+            if(inFlight.compareAndSet(current, current + 1)){
+                return true;
+            }
+        }
+    }
+
+    // frees the slot and feeds the request's latency into the current window
+    public void release(long rttNanos) {
+        onSample(rttNanos, inFlight.getAndDecrement(), System.nanoTime());
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtRelease, long now) {
+        windowSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+        if(now - windowStart < windowNanos || windowSamples < MIN_WINDOW_SAMPLES){
+            return;
+        }
+
+        //1. The window's mean latency, and the unloaded latency it is compared against
+        long rtt = Math.max(1, windowSum / windowSamples);
+        if(rtt < minRtt || now - minRttSince > minRttWindowNanos){
+            minRtt = rtt;
+            minRttSince = now;
+        }
+
+        //2. Shrink by how much slower than unloaded requests got, plus headroom to probe upwards
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / rtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        if(target > estimate && windowMaxInFlight < estimate / 2){
+            target = estimate;
+        }
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - smoothing) + target * smoothing));
+        limit = (int) estimate;
+
+        windowStart = now;
+        windowSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+}
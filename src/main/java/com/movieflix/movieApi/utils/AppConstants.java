@@ -5,4 +5,10 @@ public class AppConstants {
     public static final String PAGE_SIZE = "3";
     public static final String SORT_DIR = "asc";
     public static final String SORT_BY = "movieId";
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final String MOVIE_CACHE = "movies";
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final int MAX_TRENDING = 100;
+    public static final int MAX_SIMILAR = 20;
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
 }
@@ -0,0 +1,62 @@
+package com.movieflix.movieApi.utils;
+
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// validated 'fields=' selection for the movie read endpoints
+public record MovieFields(Set<String> names) {
+
+    // properties of MovieDto in serialisation order
+    public static final List<String> ALL = List.of("movieId", "title", "director", "studio", "movieCast", "releaseYear", "poster", "posterUrl", "version");
+
+    // properties backed by a column of the 'movie' table
+    public static final Set<String> COLUMNS = Set.of("movieId", "title", "director", "studio", "releaseYear", "poster", "version");
+
+    public static MovieFields parse(String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if(name.isEmpty()){
+                continue;
+            }
+            if(!ALL.contains(name)){
+                throw new InvalidRequestException("Unknown field '" + name + "'. Allowed fields are " + ALL);
+            }
+            names.add(name);
+        }
+        if(names.isEmpty()){
+            throw new InvalidRequestException("Please request at least one field. Allowed fields are " + ALL);
+        }
+        return new MovieFields(names);
+    }
+
+    public boolean includes(String name) {
+        return names.contains(name);
+    }
+
+    public boolean includesCast() {
+        return names.contains("movieCast");
+    }
+
+    // columns to select: the id is always needed to attach cast rows, the poster to build posterUrl
+    public List<String> columns() {
+        List<String> columns = new ArrayList<>(List.of("movieId"));
+        for (String name : ALL) {
+            boolean requested = names.contains(name) || (name.equals("poster") && names.contains("posterUrl"));
+            if(requested && COLUMNS.contains(name) && !columns.contains(name)){
+                columns.add(name);
+            }
+        }
+        return columns;
+    }
+
+    public static void checkSortable(String sortBy) {
+        if(!COLUMNS.contains(sortBy)){
+            throw new InvalidRequestException("Cannot sort by '" + sortBy + "'. Sortable fields are " + COLUMNS);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.movieflix.movieApi.utils;
+
+import com.movieflix.movieApi.service.AccessLog;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// counts the statements Hibernate prepares on the current thread, used to enforce @SqlBudget,
+// and hands a sample of them to the access log instead of echoing every statement to stdout
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final AccessLog accessLog;
+    private final double sqlSampleRate;
+
+    public QueryCountInspector(AccessLog accessLog, double sqlSampleRate) {
+        this.accessLog = accessLog;
+        this.sqlSampleRate = sqlSampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        if(sqlSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sqlSampleRate){
+            accessLog.sql(sql);
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,8 @@
+-- Upload sessions belong to the user who opened them. Sessions opened before this have no owner
+-- and are dropped, the sweeper removes their part files once the ttl has passed.
+
+delete from upload_session;
+
+alter table upload_session add column owner varchar(255) not null;
+
+create index idx_upload_session_owner on upload_session (owner);
@@ -0,0 +1,11 @@
+-- Movies and posters changed on one node, tailed by every node to evict its local caches.
+
+create table cache_invalidation (
+    id bigint not null auto_increment,
+    movie_id integer,
+    poster varchar(255),
+    created_at datetime(6) not null,
+    primary key (id)
+);
+
+create index idx_cache_invalidation_created_at on cache_invalidation (created_at);
@@ -0,0 +1,52 @@
+-- Schema as Hibernate created it before migrations were introduced. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and never run this script.
+
+create table forgot_password (
+    fpid integer not null auto_increment,
+    otp integer not null,
+    user_user_id integer,
+    expiration_time datetime(6) not null,
+    primary key (fpid)
+);
+
+create table movie (
+    movie_id integer not null auto_increment,
+    release_year integer not null,
+    title varchar(200) not null,
+    director varchar(255) not null,
+    poster varchar(255) not null,
+    studio varchar(255) not null,
+    primary key (movie_id)
+);
+
+create table movie_cast (
+    movie_movie_id integer not null,
+    movie_cast varchar(255)
+);
+
+create table refresh_token (
+    token_id integer not null auto_increment,
+    user_user_id integer,
+    expiration_time datetime(6) not null,
+    refresh_token varchar(500) not null,
+    primary key (token_id)
+);
+
+create table users (
+    user_id integer not null auto_increment,
+    email varchar(255),
+    name varchar(255),
+    password varchar(255),
+    username varchar(255),
+    role enum ('ADMIN','USER'),
+    primary key (user_id)
+);
+
+alter table forgot_password add constraint UK_436rcwp67sud355lgi3s4p1cv unique (user_user_id);
+alter table refresh_token add constraint UK_mw99w2d9yrljeaowdl0siv3e3 unique (user_user_id);
+alter table users add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table users add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table forgot_password add constraint FK4smi7oqy3gk1eji1gtnytl9gq foreign key (user_user_id) references users (user_id);
+alter table movie_cast add constraint FKlmid3ji0uvapkxvx5nf9r06bg foreign key (movie_movie_id) references movie (movie_id);
+alter table refresh_token add constraint FKjpmlw49x98wb3sfpca2n03men foreign key (user_user_id) references users (user_id);
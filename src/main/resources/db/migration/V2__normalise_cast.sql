@@ -0,0 +1,34 @@
+-- Replaces the movie_cast element collection with one person row per actor and a movie_person link table.
+-- person.name is as wide as movie_cast.movie_cast was, so every existing name fits.
+
+create table person (
+    person_id integer not null auto_increment,
+    name varchar(255) not null,
+    primary key (person_id),
+    constraint uk_person_name unique (name)
+);
+
+-- the primary key serves movie -> cast, the second index serves person -> filmography
+create table movie_person (
+    movie_id integer not null,
+    person_id integer not null,
+    primary key (movie_id, person_id),
+    constraint fk_movie_person_movie foreign key (movie_id) references movie (movie_id),
+    constraint fk_movie_person_person foreign key (person_id) references person (person_id)
+);
+
+create index idx_movie_person_person on movie_person (person_id, movie_id);
+
+-- names that differ only in case or surrounding whitespace become one person
+insert into person (name)
+select min(trim(movie_cast))
+from movie_cast
+where movie_cast is not null and trim(movie_cast) <> ''
+group by lower(trim(movie_cast));
+
+insert into movie_person (movie_id, person_id)
+select distinct mc.movie_movie_id, p.person_id
+from movie_cast mc
+join person p on lower(p.name) = lower(trim(mc.movie_cast));
+
+drop table movie_cast;
@@ -0,0 +1,3 @@
+-- Optimistic locking version of each movie, exposed to clients as its ETag.
+
+alter table movie add column version bigint not null default 0;
@@ -0,0 +1,10 @@
+-- View counts and decayed popularity per movie, written in batches by ViewCounter.
+
+create table movie_stats (
+    movie_id integer not null,
+    views bigint not null,
+    score double not null,
+    primary key (movie_id)
+);
+
+create index idx_movie_stats_score on movie_stats (score);
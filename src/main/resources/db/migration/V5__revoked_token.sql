@@ -0,0 +1,11 @@
+-- Access tokens revoked before they expire, keyed by their jti claim.
+
+create table revoked_token (
+    token_id varchar(36) not null,
+    expiration_time datetime(6) not null,
+    revoked_at datetime(6) not null,
+    primary key (token_id)
+);
+
+create index idx_revoked_token_expiration_time on revoked_token (expiration_time);
+create index idx_revoked_token_revoked_at on revoked_token (revoked_at);
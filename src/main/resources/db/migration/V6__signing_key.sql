@@ -0,0 +1,14 @@
+-- ES256 key pairs that sign access tokens, shared by every node and published as a JWK set.
+
+create table signing_key (
+    kid varchar(36) not null,
+    public_key varbinary(512) not null,
+    private_key varbinary(512) not null,
+    created_at datetime(6) not null,
+    activates_at datetime(6) not null,
+    retires_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    primary key (kid)
+);
+
+create index idx_signing_key_expires_at on signing_key (expires_at);
@@ -0,0 +1,20 @@
+-- Refresh tokens are stored as SHA-256 digests, one row per device session, and rotate on every use.
+-- Stored tokens are valid for thirty seconds and cannot be rehashed portably, so they are dropped
+-- and their users log in again.
+
+drop table refresh_token;
+
+create table refresh_token (
+    token_id integer not null auto_increment,
+    user_user_id integer not null,
+    family_id varchar(36) not null,
+    token_hash binary(32) not null,
+    expiration_time datetime(6) not null,
+    primary key (token_id)
+);
+
+create unique index uk_refresh_token_token_hash on refresh_token (token_hash);
+create unique index uk_refresh_token_family_id on refresh_token (family_id);
+create index idx_refresh_token_expiration_time on refresh_token (expiration_time);
+
+alter table refresh_token add constraint fk_refresh_token_user foreign key (user_user_id) references users (user_id);
@@ -0,0 +1,13 @@
+-- Resumable poster uploads in progress, their bytes live in <poster>/.uploads/<upload_id>.part.
+
+create table upload_session (
+    upload_id varchar(36) not null,
+    file_name varchar(255) not null,
+    total_size bigint not null,
+    received bigint not null,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    primary key (upload_id)
+);
+
+create index idx_upload_session_expires_at on upload_session (expires_at);
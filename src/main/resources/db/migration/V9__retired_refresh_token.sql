@@ -0,0 +1,11 @@
+-- Digests of refresh tokens a session has rotated past. Only a token that matches one of them
+-- counts as replayed and revokes its session, a token that matches nothing is simply refused.
+
+create table retired_refresh_token (
+    token_hash binary(32) not null,
+    family_id varchar(36) not null,
+    expiration_time datetime(6) not null,
+    primary key (token_hash)
+);
+
+create index idx_retired_refresh_token_expiration_time on retired_refresh_token (expiration_time);
@@ -0,0 +1,32 @@
+package com.movieflix.movieApi;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// an existing database holds the schema Hibernate created before migrations and no flyway history, it is baselined at V1
+class BaselineMigrationTests {
+
+	@Test
+	void baselinedDatabaseReceivesEveryLaterTable() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:baseline-migration;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+
+		Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		assertThat(jdbc.queryForObject("select \"version\" from \"flyway_schema_history\" where \"type\" = 'BASELINE'", String.class)).isEqualTo("1");
+		assertThat(jdbc.queryForList("select lower(table_name) from information_schema.tables where table_schema = 'PUBLIC'", String.class))
+				.contains("cache_invalidation", "person", "movie_person", "movie_stats", "revoked_token", "signing_key",
+						"retired_refresh_token", "upload_session");
+		jdbc.update("insert into cache_invalidation (movie_id, poster, created_at) values (1, 'oppenheimer.png', current_timestamp)");
+		assertThat(jdbc.queryForObject("select count(*) from cache_invalidation", Integer.class)).isEqualTo(1);
+	}
+}
@@ -0,0 +1,35 @@
+package com.movieflix.movieApi;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// runs the migrations against a database holding cast rows in the old element collection layout
+class CastMigrationTests {
+
+	@Test
+	void castRowsBecomeDeduplicatedPersonLinks() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:cast-migration;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+		Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+		jdbc.update("insert into movie (movie_id, title, director, studio, release_year, poster) values (1, 'Oppenheimer', 'Christopher Nolan', 'Universal', 2023, 'oppenheimer.png')");
+		jdbc.update("insert into movie (movie_id, title, director, studio, release_year, poster) values (2, 'Sicario', 'Denis Villeneuve', 'Lionsgate', 2015, 'sicario.png')");
+		jdbc.update("insert into movie_cast (movie_movie_id, movie_cast) values (1, 'Cillian Murphy'), (1, 'Emily Blunt'), (1, 'emily blunt'), (2, ' Emily Blunt '), (2, null)");
+		// the old column held up to 255 characters
+		jdbc.update("insert into movie_cast (movie_movie_id, movie_cast) values (2, ?)", "A".repeat(255));
+
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		assertThat(jdbc.queryForList("select name from person order by name", String.class))
+				.containsExactly("A".repeat(255), "Cillian Murphy", "Emily Blunt");
+		assertThat(jdbc.queryForList("select mp.movie_id from movie_person mp join person p on p.person_id = mp.person_id where p.name = 'Emily Blunt' order by mp.movie_id", Integer.class))
+				.containsExactly(1, 2);
+		assertThat(jdbc.queryForObject("select count(*) from movie_person", Integer.class)).isEqualTo(4);
+	}
+}
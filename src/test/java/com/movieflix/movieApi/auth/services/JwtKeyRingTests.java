@@ -0,0 +1,90 @@
+package com.movieflix.movieApi.auth.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieflix.movieApi.auth.entities.SigningKey;
+import com.movieflix.movieApi.auth.repositories.SigningKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtKeyRingTests {
+
+	private final SigningKeyRepository signingKeyRepository = mock(SigningKeyRepository.class);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final JwtKeyRing keyRing = new JwtKeyRing(signingKeyRepository, objectMapper,
+			Duration.ofHours(1), Duration.ofMinutes(10), Duration.ofMinutes(30));
+
+	private final List<SigningKey> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		when(signingKeyRepository.save(any(SigningKey.class))).thenAnswer(invocation -> {
+			stored.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+		when(signingKeyRepository.findByExpiresAtAfter(any(Instant.class))).thenAnswer(invocation -> {
+			Instant now = invocation.getArgument(0);
+			return stored.stream().filter(key -> key.getExpiresAt().isAfter(now)).toList();
+		});
+		when(signingKeyRepository.deleteExpiredBefore(any(Instant.class))).thenAnswer(invocation -> {
+			Instant now = invocation.getArgument(0);
+			int before = stored.size();
+			stored.removeIf(key -> key.getExpiresAt().isBefore(now));
+			return before - stored.size();
+		});
+	}
+
+	@Test
+	void successorIsPublishedBeforeItSignsAndThePredecessorKeepsVerifying() throws Exception {
+		Instant start = Instant.parse("2026-01-01T00:00:00Z");
+		keyRing.rotate(start);
+		String first = keyRing.signer().kid();
+		assertThat(kids()).containsExactly(first);
+
+		// ten minutes before the first key retires its successor is in the JWK set but does not sign yet
+		keyRing.rotate(start.plus(Duration.ofMinutes(50)));
+		assertThat(keyRing.signer().kid()).isEqualTo(first);
+		assertThat(kids()).hasSize(2).contains(first);
+		String second = kids().stream().filter(kid -> !kid.equals(first)).findFirst().orElseThrow();
+
+		keyRing.rotate(start.plus(Duration.ofMinutes(61)));
+		assertThat(keyRing.signer().kid()).isEqualTo(second);
+		assertThat(keyRing.publicKey(first)).isNotNull();
+
+		// the first key retired at one hour and stops verifying thirty minutes later
+		keyRing.rotate(start.plus(Duration.ofMinutes(91)));
+		assertThat(kids()).containsExactly(second);
+		assertThat(stored).extracting(SigningKey::getKid).containsExactly(second);
+	}
+
+	@Test
+	void jwkSetCarriesPaddedP256Coordinates() throws Exception {
+		keyRing.rotate(Instant.parse("2026-01-01T00:00:00Z"));
+
+		JsonNode key = objectMapper.readTree(keyRing.jwks()).get("keys").get(0);
+		assertThat(key.get("kty").asText()).isEqualTo("EC");
+		assertThat(key.get("crv").asText()).isEqualTo("P-256");
+		assertThat(key.get("alg").asText()).isEqualTo("ES256");
+		// 32 bytes in unpadded base64url
+		assertThat(key.get("x").asText()).hasSize(43);
+		assertThat(key.get("y").asText()).hasSize(43);
+	}
+
+	private List<String> kids() throws Exception {
+		List<String> kids = new ArrayList<>();
+		objectMapper.readTree(keyRing.jwks()).get("keys").forEach(key -> kids.add(key.get("kid").asText()));
+		return kids;
+	}
+}
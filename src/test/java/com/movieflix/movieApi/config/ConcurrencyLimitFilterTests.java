@@ -0,0 +1,70 @@
+package com.movieflix.movieApi.config;
+
+import com.movieflix.movieApi.utils.AdaptiveLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConcurrencyLimitFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ConcurrencyLimitFilter filter;
+
+	@Test
+	void readsAreShedBeforeAuthRequests() throws Exception {
+		AdaptiveLimit reads = filter.limit(ConcurrencyLimitFilter.Route.READ);
+		int held = 0;
+		while (reads.tryAcquire(0.8)) {
+			held++;
+		}
+		try {
+			mockMvc.perform(get("/api/v1/movie/allMovies"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+					.andExpect(jsonPath("$.status").value(503));
+
+			// the reserved share still admits a login, which then fails on its bad credentials
+			mockMvc.perform(post("/api/v1/auth/login")
+							.contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\": \"nobody@movieflix.com\", \"password\": \"wrong\"}"))
+					.andExpect(result -> assertThat(result.getResponse().getStatus()).isNotEqualTo(503));
+		} finally {
+			for (int i = 0; i < held; i++) {
+				reads.release(0);
+			}
+		}
+	}
+
+	@Test
+	void routesSplitReadsWritesAndPosters() {
+		assertThat(ConcurrencyLimitFilter.route("GET", "/api/v1/movie/7")).isEqualTo(ConcurrencyLimitFilter.Route.READ);
+		assertThat(ConcurrencyLimitFilter.route("DELETE", "/api/v1/movie/delete/7")).isEqualTo(ConcurrencyLimitFilter.Route.WRITE);
+		assertThat(ConcurrencyLimitFilter.route("GET", "/file/poster.png")).isEqualTo(ConcurrencyLimitFilter.Route.POSTER);
+		assertThat(ConcurrencyLimitFilter.route("POST", "/api/v1/auth/login")).isEqualTo(ConcurrencyLimitFilter.Route.READ);
+		assertThat(ConcurrencyLimitFilter.route("POST", "/api/v1/movie/addMovie")).isEqualTo(ConcurrencyLimitFilter.Route.WRITE);
+		assertThat(ConcurrencyLimitFilter.route("PUT", "/api/v1/movie/update/7")).isEqualTo(ConcurrencyLimitFilter.Route.WRITE);
+		assertThat(ConcurrencyLimitFilter.route("PATCH", "/api/v1/movie/7")).isEqualTo(ConcurrencyLimitFilter.Route.WRITE);
+		// a search posts its criteria but is a read open to every user
+		assertThat(ConcurrencyLimitFilter.route("POST", "/api/v1/movie/filter")).isEqualTo(ConcurrencyLimitFilter.Route.READ);
+		// chunks arrive at the client's pace and must not feed the write limit's latency
+		assertThat(ConcurrencyLimitFilter.route("PATCH", "/file/uploads/abc")).isEqualTo(ConcurrencyLimitFilter.Route.UPLOAD);
+		assertThat(ConcurrencyLimitFilter.route("POST", "/file/upload")).isEqualTo(ConcurrencyLimitFilter.Route.UPLOAD);
+		assertThat(ConcurrencyLimitFilter.route("GET", "/file/uploads.png")).isEqualTo(ConcurrencyLimitFilter.Route.POSTER);
+	}
+}
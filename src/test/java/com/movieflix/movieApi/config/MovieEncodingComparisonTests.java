@@ -0,0 +1,77 @@
+package com.movieflix.movieApi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// compares the size and encoding time of one page of movies per format, the numbers are logged for comparison across changes
+@Slf4j
+class MovieEncodingComparisonTests {
+
+	private static final int MOVIES = 100;
+	private static final int ROUNDS = 200;
+
+	private final MoviePageResponse page = page();
+
+	private record Measurement(int bytes, long nanos) {
+	}
+
+	@Test
+	void binaryEncodingsAreSmallerThanJson() throws Exception {
+		ObjectMapper json = new ObjectMapper();
+		CBORMapper cbor = new CBORMapper();
+		SmileMapper smile = new SmileMapper();
+		MovieProtobufHttpMessageConverter protobuf = new MovieProtobufHttpMessageConverter();
+
+		Measurement jsonSize = measure(() -> json.writeValueAsBytes(page));
+		Measurement cborSize = measure(() -> cbor.writeValueAsBytes(page));
+		Measurement smileSize = measure(() -> smile.writeValueAsBytes(page));
+		Measurement protobufSize = measure(() -> {
+			MockHttpOutputMessage out = new MockHttpOutputMessage();
+			protobuf.write(page, MoviePageResponse.class, MovieProtobufHttpMessageConverter.PROTOBUF, out);
+			return out.getBodyAsBytes();
+		});
+
+		log.info("A page of {} movies: json {} B in {} us, cbor {} B in {} us, smile {} B in {} us, protobuf {} B in {} us", MOVIES,
+				jsonSize.bytes(), jsonSize.nanos() / 1000, cborSize.bytes(), cborSize.nanos() / 1000,
+				smileSize.bytes(), smileSize.nanos() / 1000, protobufSize.bytes(), protobufSize.nanos() / 1000);
+		assertThat(cborSize.bytes()).isLessThan(jsonSize.bytes());
+		assertThat(smileSize.bytes()).isLessThan(jsonSize.bytes());
+		assertThat(protobufSize.bytes()).isLessThan(cborSize.bytes()).isLessThan(smileSize.bytes());
+	}
+
+	// the best of many rounds, so class loading and JIT compilation are left out
+	private static Measurement measure(Callable<byte[]> encode) throws Exception {
+		int bytes = encode.call().length;
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			encode.call();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return new Measurement(bytes, best);
+	}
+
+	private static MoviePageResponse page() {
+		List<MovieDto> movies = new ArrayList<>(MOVIES);
+		for (int i = 0; i < MOVIES; i++) {
+			Set<String> cast = new LinkedHashSet<>(List.of("Actor " + i, "Actress " + i, "Supporting Actor " + (i % 7)));
+			movies.add(new MovieDto(i + 1, "Movie title " + i, "Director " + (i % 20), "Studio " + (i % 10), cast,
+					1990 + i % 30, "poster-" + i + ".png", "http://localhost:8080/file/poster-" + i + ".png", 0L));
+		}
+		return new MoviePageResponse(movies, 0, MOVIES, 1000, 10, false);
+	}
+}
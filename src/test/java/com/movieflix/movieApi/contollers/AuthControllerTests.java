@@ -0,0 +1,198 @@
+package com.movieflix.movieApi.contollers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieflix.movieApi.auth.entities.RevokedToken;
+import com.movieflix.movieApi.auth.repositories.RevokedTokenRepository;
+import com.movieflix.movieApi.auth.utils.LoginRequest;
+import com.movieflix.movieApi.auth.utils.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// project.sql-budget.enforce is on for tests, so any endpoint exceeding its @SqlBudget fails here
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private RevokedTokenRepository revokedTokenRepository;
+
+	@Test
+	void registerAndLoginStayWithinSqlBudget() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Test User", "test@movieflix.com", "tester", "secret123");
+
+		mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.refreshToken").isNotEmpty());
+
+		LoginRequest loginRequest = new LoginRequest("test@movieflix.com", "secret123");
+
+		mockMvc.perform(post("/api/v1/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(loginRequest)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accessToken").isNotEmpty());
+	}
+
+	@Test
+	void loggedOutAccessTokenIsRefused() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Logout User", "logout@movieflix.com", "logouter", "secret123");
+
+		String body = mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		JsonNode tokens = objectMapper.readTree(body);
+		String bearer = "Bearer " + tokens.get("accessToken").asText();
+
+		mockMvc.perform(get("/api/v1/movie/allMovies").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(post("/api/v1/auth/logout").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isNoContent());
+
+		// the token has not expired, but it is revoked, and its refresh token is gone with the session
+		mockMvc.perform(get("/api/v1/movie/allMovies").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/api/v1/auth/refresh")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"refreshToken\":\"" + tokens.get("refreshToken").asText() + "\"}"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void logoutOfATokenAnotherNodeAlreadyRevokedSucceeds() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Twice User", "twice@movieflix.com", "twicer", "secret123");
+
+		String body = mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String accessToken = objectMapper.readTree(body).get("accessToken").asText();
+		JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(accessToken.split("\\.")[1]));
+
+		// the row another node wrote before this one polled it
+		revokedTokenRepository.save(new RevokedToken(claims.get("jti").asText(), Instant.now().plus(Duration.ofHours(1)), Instant.now()));
+
+		mockMvc.perform(post("/api/v1/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/v1/movie/allMovies").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void logoutWithoutATokenIsUnauthorized() throws Exception {
+		mockMvc.perform(post("/api/v1/auth/logout"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void accessTokensNameAKeyPublishedInTheJwkSet() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Jwks User", "jwks@movieflix.com", "jwkser", "secret123");
+
+		String body = mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String accessToken = objectMapper.readTree(body).get("accessToken").asText();
+		JsonNode jwsHeader = objectMapper.readTree(Base64.getUrlDecoder().decode(accessToken.substring(0, accessToken.indexOf('.'))));
+		assertThat(jwsHeader.get("alg").asText()).isEqualTo("ES256");
+
+		MvcResult jwks = mockMvc.perform(get("/.well-known/jwks.json"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age")))
+				.andReturn();
+		List<String> kids = new ArrayList<>();
+		objectMapper.readTree(jwks.getResponse().getContentAsByteArray()).get("keys").forEach(key -> kids.add(key.get("kid").asText()));
+		assertThat(kids).contains(jwsHeader.get("kid").asText());
+
+		mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, jwks.getResponse().getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void refreshTokensRotateAndAReplayRevokesTheSession() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Rotate User", "rotate@movieflix.com", "rotater", "secret123");
+		mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk());
+
+		// two devices, two independent sessions
+		String phone = login("rotate@movieflix.com").get("refreshToken").asText();
+		String laptop = login("rotate@movieflix.com").get("refreshToken").asText();
+		assertThat(phone).isNotEqualTo(laptop);
+
+		String rotated = refresh(phone).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		String next = objectMapper.readTree(rotated).get("refreshToken").asText();
+		assertThat(next).isNotEqualTo(phone);
+
+		// the old phone token shows up again, the phone session ends for whoever holds it
+		refresh(phone).andExpect(status().isUnauthorized());
+		refresh(next).andExpect(status().isUnauthorized());
+		refresh(laptop).andExpect(status().isOk());
+	}
+
+	@Test
+	void aGuessedTokenOfALiveSessionIsRefusedWithoutRevokingIt() throws Exception {
+		RegisterRequest registerRequest = new RegisterRequest("Guess User", "guess@movieflix.com", "guesser", "secret123");
+		mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andExpect(status().isOk());
+		String refreshToken = login("guess@movieflix.com").get("refreshToken").asText();
+
+		// the family id is readable from any access token's sid claim, the secret after it is not
+		String familyId = refreshToken.substring(0, refreshToken.indexOf('.'));
+		refresh(familyId + ".guessed").andExpect(status().isUnauthorized());
+		refresh(refreshToken).andExpect(status().isOk());
+	}
+
+	private JsonNode login(String email) throws Exception {
+		String body = mockMvc.perform(post("/api/v1/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(new LoginRequest(email, "secret123"))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private ResultActions refresh(String refreshToken) throws Exception {
+		return mockMvc.perform(post("/api/v1/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+	}
+
+}
@@ -0,0 +1,459 @@
+package com.movieflix.movieApi.contollers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.movieflix.movieApi.auth.entities.User;
+import com.movieflix.movieApi.auth.entities.UserRole;
+import com.movieflix.movieApi.auth.repositories.UserRepository;
+import com.movieflix.movieApi.auth.services.JwtService;
+import com.movieflix.movieApi.auth.utils.RegisterRequest;
+import com.movieflix.movieApi.config.MovieProtobufHttpMessageConverter;
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.proto.MovieBatchResultListMessage;
+import com.movieflix.movieApi.dto.proto.MovieMessage;
+import com.movieflix.movieApi.dto.proto.MoviePageMessage;
+import com.movieflix.movieApi.entities.Movie;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import com.movieflix.movieApi.repositories.PersonRepository;
+import com.movieflix.movieApi.service.MovieFacetIndex;
+import com.movieflix.movieApi.service.SimilarMovies;
+import com.movieflix.movieApi.service.TitleIndex;
+import com.movieflix.movieApi.service.ViewCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockPart;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MovieControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private TitleIndex titleIndex;
+
+	@Autowired
+	private MovieFacetIndex facetIndex;
+
+	@Autowired
+	private ViewCounter viewCounter;
+
+	@Autowired
+	private SimilarMovies similarMovies;
+
+	private String accessToken;
+
+	private Movie movie;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String name = UUID.randomUUID().toString();
+		RegisterRequest registerRequest = new RegisterRequest("Viewer", name + "@movieflix.com", name, "secret123");
+
+		String body = mockMvc.perform(post("/api/v1/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(registerRequest)))
+				.andReturn().getResponse().getContentAsString();
+		accessToken = objectMapper.readTree(body).get("accessToken").asText();
+
+		movie = movieRepository.save(new Movie(null, "Oppenheimer", "Christopher Nolan", "Universal",
+				personRepository.findOrCreateByNames(Set.of("Cillian Murphy", "Emily Blunt")), 2023, "oppenheimer.png", null));
+		movieRepository.save(new Movie(null, "Jawan", "Atlee", "Red Chillies",
+				personRepository.findOrCreateByNames(Set.of("Shah Rukh Khan")), 2023, "jawan.png", null));
+	}
+
+	@Test
+	void getMovieReturnsProjectedCast() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Oppenheimer"))
+				.andExpect(jsonPath("$.movieCast", containsInAnyOrder("Cillian Murphy", "Emily Blunt")))
+				.andExpect(jsonPath("$.posterUrl").value("http://localhost:8080/file/oppenheimer.png"));
+	}
+
+	@Test
+	void castNamesContainingTheSeparatorSurviveAggregation() throws Exception {
+		Movie odd = movieRepository.save(new Movie(null, "Odd Names", "Someone", "Indie",
+				personRepository.findOrCreateByNames(Set.of("Pipe | Name", "Tilde ~1 Name", "Plain")), 2020, "odd.png", null));
+
+		mockMvc.perform(get("/api/v1/movie/" + odd.getMovieId())
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieCast", containsInAnyOrder("Pipe | Name", "Tilde ~1 Name", "Plain")));
+	}
+
+	@Test
+	void batchReturnsMoviesInRequestOrderWithNotFoundMarkers() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/batch")
+						.param("ids", "-1", movie.getMovieId().toString())
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].movieId").value(-1))
+				.andExpect(jsonPath("$[0].found").value(false))
+				.andExpect(jsonPath("$[1].found").value(true))
+				.andExpect(jsonPath("$[1].movie.title").value("Oppenheimer"));
+	}
+
+	@Test
+	void batchRejectsEmptyIds() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/batch")
+						.param("ids", movie.getMovieId() + ",,-1")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/v1/movie/batch")
+						.param("ids", "")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void fieldsLimitTheSerialisedProperties() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/allMoviesPaginatedAndSorted")
+						.param("fields", "movieId,title,releaseYear")
+						.param("sortBy", "title")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieDtos[0].title").exists())
+				.andExpect(jsonPath("$.movieDtos[0].releaseYear").exists())
+				.andExpect(jsonPath("$.movieDtos[0].movieCast").doesNotExist())
+				.andExpect(jsonPath("$.movieDtos[0].posterUrl").doesNotExist());
+
+		mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.param("fields", "movieCast,posterUrl")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieCast", containsInAnyOrder("Cillian Murphy", "Emily Blunt")))
+				.andExpect(jsonPath("$.posterUrl").value("http://localhost:8080/file/oppenheimer.png"))
+				.andExpect(jsonPath("$.poster").doesNotExist());
+	}
+
+	@Test
+	void unknownFieldsAreRejected() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/allMovies")
+						.param("fields", "title,budget")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void moviesAreEncodedPerAcceptHeader() throws Exception {
+		byte[] protobuf = mockMvc.perform(get("/api/v1/movie/allMoviesPaginated")
+						.accept(MovieProtobufHttpMessageConverter.PROTOBUF)
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(MoviePageMessage.parseFrom(protobuf).getMovieDtosList()).isNotEmpty();
+
+		byte[] batch = mockMvc.perform(get("/api/v1/movie/batch")
+						.param("ids", "-1", movie.getMovieId().toString())
+						.accept(MovieProtobufHttpMessageConverter.PROTOBUF)
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		MovieBatchResultListMessage results = MovieBatchResultListMessage.parseFrom(batch);
+		assertThat(results.getResults(0).getFound()).isFalse();
+		assertThat(results.getResults(0).hasMovie()).isFalse();
+		assertThat(results.getResults(1).getMovie().getTitle()).isEqualTo("Oppenheimer");
+
+		byte[] cbor = mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.accept("application/cbor")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(new CBORMapper().readValue(cbor, MovieDto.class).getTitle()).isEqualTo("Oppenheimer");
+	}
+
+	@Test
+	void paginatedMoviesStayWithinSqlBudget() throws Exception {
+		mockMvc.perform(get("/api/v1/movie/allMoviesPaginatedAndSorted")
+						.param("pageSize", "1")
+						.param("sortBy", "title")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieDtos", hasSize(1)))
+				.andExpect(jsonPath("$.totalElements").isNumber());
+	}
+
+	@Test
+	void autocompleteServesTitlesFromTheIndex() throws Exception {
+		titleIndex.reload();
+
+		mockMvc.perform(get("/api/v1/movie/autocomplete")
+						.param("q", "OPPEN")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].movieId", hasItem(movie.getMovieId())))
+				.andExpect(jsonPath("$[*].title", everyItem(equalTo("Oppenheimer"))));
+	}
+
+	@Test
+	void viewedMoviesTrendAfterAFlush() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+							.header("Authorization", "Bearer " + accessToken))
+					.andExpect(status().isOk());
+		}
+		viewCounter.flush();
+
+		mockMvc.perform(get("/api/v1/movie/trending")
+						.param("limit", "100")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].movie.movieId", hasItem(movie.getMovieId())))
+				.andExpect(jsonPath("$[?(@.movie.movieId == " + movie.getMovieId() + ")].score", everyItem(greaterThan(2.9))));
+
+		mockMvc.perform(get("/api/v1/movie/trending")
+						.param("limit", "0")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void similarMoviesShareCastDirectorOrStudio() throws Exception {
+		String director = UUID.randomUUID().toString();
+		Movie first = movieRepository.save(new Movie(null, "Memento", director, "Newmarket",
+				personRepository.findOrCreateByNames(Set.of(director + " Pearce")), 2000, "memento.png", null));
+		Movie second = movieRepository.save(new Movie(null, "Insomnia", director, "Warner Bros",
+				personRepository.findOrCreateByNames(Set.of(director + " Pacino")), 2002, "insomnia.png", null));
+		similarMovies.rebuild();
+
+		mockMvc.perform(get("/api/v1/movie/" + first.getMovieId() + "/similar")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].movie.movieId", contains(second.getMovieId())))
+				.andExpect(jsonPath("$[0].score", closeTo(2.0 / 5.0, 1e-6)));
+
+		mockMvc.perform(get("/api/v1/movie/-1/similar")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void filmographyListsTheMoviesOfOnePerson() throws Exception {
+		Integer personId = personRepository.findOrCreateByNames(Set.of("Emily Blunt")).iterator().next().getPersonId();
+
+		mockMvc.perform(get("/api/v1/movie/person/" + personId)
+						.param("pageSize", "100")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieDtos[?(@.movieId == " + movie.getMovieId() + ")].title", hasItem("Oppenheimer")))
+				.andExpect(jsonPath("$.movieDtos[?(@.movieId == " + movie.getMovieId() + ")].movieCast[*]", containsInAnyOrder("Cillian Murphy", "Emily Blunt")));
+
+		mockMvc.perform(get("/api/v1/movie/person/-1")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void patchUpdatesOnlyTheSentColumnsWhenTheETagMatches() throws Exception {
+		String name = UUID.randomUUID().toString();
+		User admin = userRepository.save(User.builder().name("Admin").email(name + "@movieflix.com").username(name)
+				.password("unused").role(UserRole.ADMIN).build());
+		String adminToken = jwtService.generateToken(admin);
+
+		String etag = mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// the budget of the PATCH handler holds it to one UPDATE next to authentication and the invalidation row
+		mockMvc.perform(patch("/api/v1/movie/" + movie.getMovieId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\": \"The Trinity Test\"}")
+						.header(HttpHeaders.IF_MATCH, etag)
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isNoContent())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+				.andExpect(jsonPath("$.title").value("The Trinity Test"))
+				.andExpect(jsonPath("$.director").value("Christopher Nolan"))
+				.andExpect(jsonPath("$.version").doesNotExist());
+
+		mockMvc.perform(patch("/api/v1/movie/" + movie.getMovieId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"studio\": \"Syncopy\"}")
+						.header(HttpHeaders.IF_MATCH, etag)
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(patch("/api/v1/movie/" + movie.getMovieId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"studio\": \"Syncopy\"}")
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isPreconditionRequired());
+
+		// a title longer than its column is refused before it reaches the database
+		mockMvc.perform(patch("/api/v1/movie/" + movie.getMovieId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\": \"" + "x".repeat(201) + "\"}")
+						.header(HttpHeaders.IF_MATCH, "\"1\"")
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isBadRequest());
+
+		// '*' matches whatever version the movie is at, and the response still names the new one
+		mockMvc.perform(patch("/api/v1/movie/" + movie.getMovieId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"studio\": \"Syncopy\"}")
+						.header(HttpHeaders.IF_MATCH, "*")
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isNoContent())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+		mockMvc.perform(patch("/api/v1/movie/-1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"studio\": \"Syncopy\"}")
+						.header(HttpHeaders.IF_MATCH, "*")
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isNotFound());
+
+		// list reads carry no ETag, the version can be selected as a field instead
+		mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.param("fields", "title,version")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(jsonPath("$.studio").doesNotExist())
+				.andExpect(jsonPath("$.version").value(2));
+		byte[] protobuf = mockMvc.perform(get("/api/v1/movie/" + movie.getMovieId())
+						.accept(MovieProtobufHttpMessageConverter.PROTOBUF)
+						.header("Authorization", "Bearer " + accessToken))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(MovieMessage.parseFrom(protobuf).getVersion()).isEqualTo(2);
+	}
+
+	@Test
+	void filterReturnsMatchesWithFacetCounts() throws Exception {
+		facetIndex.reload();
+
+		String filter = """
+				{"filter": {"and": [{"field": "studio", "anyOf": ["Red Chillies"]}, {"field": "releaseYear", "from": 2023}]},
+				 "facets": ["director"], "pageSize": 100}""";
+
+		mockMvc.perform(post("/api/v1/movie/filter")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(filter)
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieDtos[*].title", everyItem(equalTo("Jawan"))))
+				.andExpect(jsonPath("$.facets.director.Atlee").isNumber());
+
+		// 50,000,000 x 50 overflows an int offset
+		mockMvc.perform(post("/api/v1/movie/filter")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"pageNumber\": 50000000, \"pageSize\": 50}")
+						.header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.movieDtos", hasSize(0)))
+				.andExpect(jsonPath("$.isLast").value(true));
+	}
+
+	@Test
+	void addMoviePublishesAResumableUploadAsItsPoster() throws Exception {
+		String name = UUID.randomUUID().toString();
+		User admin = userRepository.save(User.builder().name("Admin").email(name + "@movieflix.com").username(name)
+				.password("unused").role(UserRole.ADMIN).build());
+		String adminToken = "Bearer " + jwtService.generateToken(admin);
+		byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4, 5, 6, 7, 8};
+		String fileName = name + ".png";
+
+		String body = mockMvc.perform(post("/file/uploads")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"fileName\": \"" + fileName + "\", \"size\": " + png.length + "}")
+						.header("Authorization", adminToken))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Upload-Offset", "0"))
+				.andReturn().getResponse().getContentAsString();
+		String uploadId = objectMapper.readTree(body).get("uploadId").asText();
+
+		mockMvc.perform(patch("/file/uploads/" + uploadId)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(Arrays.copyOfRange(png, 0, 6))
+						.header("Upload-Offset", 0)
+						.header("Authorization", adminToken))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Upload-Offset", "6"));
+
+		// the connection dropped, the client asks where to go on and a chunk past that is refused
+		mockMvc.perform(head("/file/uploads/" + uploadId).header("Authorization", adminToken))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Upload-Offset", "6"));
+		mockMvc.perform(patch("/file/uploads/" + uploadId)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(Arrays.copyOfRange(png, 10, 16))
+						.header("Upload-Offset", 10)
+						.header("Authorization", adminToken))
+				.andExpect(status().isConflict())
+				.andExpect(header().string("Upload-Offset", "6"));
+
+		// re-sending bytes already received is harmless
+		mockMvc.perform(patch("/file/uploads/" + uploadId)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(Arrays.copyOfRange(png, 4, 16))
+						.header("Upload-Offset", 4)
+						.header("Authorization", adminToken))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Upload-Offset", "16"));
+
+		String movieDto = "{\"title\": \"Dune\", \"director\": \"Denis Villeneuve\", \"studio\": \"Legendary\", "
+				+ "\"movieCast\": [\"Zendaya\"], \"releaseYear\": 2021, \"poster\": \"ignored\"}";
+		mockMvc.perform(multipart("/api/v1/movie/addMovie")
+						.part(new MockPart("uploadId", uploadId.getBytes()), new MockPart("movieDto", movieDto.getBytes()))
+						.header("Authorization", adminToken))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.poster").value(fileName));
+
+		mockMvc.perform(get("/file/" + fileName).header("Authorization", adminToken))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(png));
+		mockMvc.perform(head("/file/uploads/" + uploadId).header("Authorization", adminToken))
+				.andExpect(status().isNotFound());
+	}
+
+}
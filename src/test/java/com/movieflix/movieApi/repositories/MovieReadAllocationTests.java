@@ -0,0 +1,98 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.entities.Movie;
+import com.movieflix.movieApi.entities.Person;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// measures what the projection reads save over loading entities on a 1,000 row page, the numbers are logged for comparison across changes
+@Slf4j
+@SpringBootTest
+class MovieReadAllocationTests {
+
+	private static final int MOVIES = 1000;
+	private static final int CAST_PER_MOVIE = 8;
+	private static final int ROUNDS = 5;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private record Measurement(long allocatedBytes, long nanos) {
+	}
+
+	@Test
+	void projectionReadsAllocateLessThanEntityReads() {
+		for (int i = 0; i < MOVIES; i++) {
+			Set<String> names = new HashSet<>();
+			for (int j = 0; j < CAST_PER_MOVIE; j++) {
+				names.add("Benchmark Actor " + ((i + j) % 50));
+			}
+			movieRepository.save(new Movie(null, "Benchmark " + i, "Director " + (i % 20), "Studio " + (i % 10),
+					personRepository.findOrCreateByNames(names), 2000 + i % 25, "benchmark-" + i + ".png", null));
+		}
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		// the entity path is what the reads did before, the cast collection is initialised per movie
+		Measurement entities = measure(() -> readOnly.execute(status -> movieRepository.findAll().stream()
+				.map(movie -> new MovieDto(movie.getMovieId(), movie.getTitle(), movie.getDirector(), movie.getStudio(),
+						movie.getMovieCast().stream().map(Person::getName).collect(Collectors.toSet()),
+						movie.getReleaseYear(), movie.getPoster(), "http://localhost:8080/file/" + movie.getPoster(), movie.getVersion()))
+				.toList()));
+		Measurement projections = measure(() -> readOnly.execute(status -> movieRepository.findAllProjections().stream()
+				.map(projection -> projection.toMovieDto("http://localhost:8080"))
+				.toList()));
+
+		log.info("Reading {} movies: entities allocate {} KB in {} us, projections allocate {} KB in {} us",
+				MOVIES, entities.allocatedBytes() / 1024, entities.nanos() / 1000,
+				projections.allocatedBytes() / 1024, projections.nanos() / 1000);
+		assertThat(projections.allocatedBytes()).isLessThan(entities.allocatedBytes());
+	}
+
+	@Test
+	void castNamesRoundTripThroughTheAggregate() {
+		MovieProjection projection = new MovieProjection(1, "t", "d", "s", 2000, "p.png", 0L, "A~1B|C~0D|E");
+
+		assertThat(projection.toMovieDto("").getMovieCast()).containsExactly("A|B", "C~D", "E");
+	}
+
+	// the best of several rounds after a warm up, so class loading and JIT compilation are left out
+	private static Measurement measure(Supplier<List<MovieDto>> read) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+		read.get();
+
+		long bestBytes = Long.MAX_VALUE;
+		long bestNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ROUNDS; i++) {
+			long bytes = threads.getThreadAllocatedBytes(threadId);
+			long start = System.nanoTime();
+			assertThat(read.get()).hasSizeGreaterThanOrEqualTo(MOVIES);
+			bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+			bestBytes = Math.min(bestBytes, threads.getThreadAllocatedBytes(threadId) - bytes);
+		}
+		return new Measurement(bestBytes, bestNanos);
+	}
+}
@@ -0,0 +1,54 @@
+package com.movieflix.movieApi.repositories;
+
+import com.movieflix.movieApi.entities.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PersonRepositoryTests {
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void concurrentWritersAddingTheSameNameShareOneRow() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		CountDownLatch inserted = new CountDownLatch(1);
+
+		// the first writer holds its new row uncommitted while the second one looks the name up and inserts it too
+		CompletableFuture<Set<Person>> first = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+			Set<Person> persons = personRepository.findOrCreateByNames(List.of("Concurrent Actor"));
+			inserted.countDown();
+			sleep(300);
+			return persons;
+		}));
+		assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+		Set<Person> second = transaction.execute(status -> personRepository.findOrCreateByNames(List.of(" Concurrent Actor ", "Other Actor")));
+
+		Integer firstId = first.get(5, TimeUnit.SECONDS).iterator().next().getPersonId();
+		assertThat(second).extracting(Person::getPersonId).contains(firstId).hasSize(2);
+		assertThat(personRepository.findByNameIn(List.of("Concurrent Actor"))).hasSize(1);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
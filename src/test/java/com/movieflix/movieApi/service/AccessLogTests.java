@@ -0,0 +1,65 @@
+package com.movieflix.movieApi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogTests {
+
+	@TempDir
+	Path directory;
+
+	private AccessLog accessLog(int capacity, DataSize maxFileSize) {
+		return new AccessLog(new SimpleMeterRegistry(), true, directory.toString(), capacity, AccessLog.FullPolicy.DROP, 16, maxFileSize, 3);
+	}
+
+	@Test
+	void eventsBeyondAFullRingAreDroppedAndTheRestAreWritten() throws Exception {
+		// the writer is not started yet, so nothing frees a slot
+		AccessLog accessLog = accessLog(4, DataSize.ofMegabytes(1));
+		for (int i = 0; i < 6; i++) {
+			accessLog.access("GET", "/api/v1/movie/" + i, 200, 1_500_000, 3, "viewer@movieflix.com");
+		}
+		assertThat(accessLog.backlog()).isEqualTo(4);
+		assertThat(accessLog.droppedEvents()).isEqualTo(2);
+
+		accessLog.start();
+		while (accessLog.backlog() > 0) {
+			Thread.onSpinWait();
+		}
+		accessLog.sql("select \"quoted\"\nfrom movie");
+		accessLog.stop();
+
+		List<String> lines = Files.readAllLines(directory.resolve("access.log"));
+		assertThat(lines).hasSize(5);
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode first = mapper.readTree(lines.get(0));
+		assertThat(first.get("path").asText()).isEqualTo("/api/v1/movie/0");
+		assertThat(first.get("durationMicros").asLong()).isEqualTo(1_500);
+		assertThat(first.get("user").asText()).isEqualTo("viewer@movieflix.com");
+		assertThat(mapper.readTree(lines.get(4)).get("sql").asText()).isEqualTo("select \"quoted\"\nfrom movie");
+	}
+
+	@Test
+	void fullFilesAreRotated() throws Exception {
+		AccessLog accessLog = accessLog(64, DataSize.ofBytes(500));
+		accessLog.start();
+		for (int i = 0; i < 40; i++) {
+			accessLog.access("GET", "/api/v1/movie/" + i, 200, 1_000, 1, null);
+		}
+		accessLog.stop();
+
+		assertThat(directory.resolve("access.log.1")).exists();
+		assertThat(directory.resolve("access.log.4")).doesNotExist();
+		assertThat(Files.size(directory.resolve("access.log.1"))).isLessThanOrEqualTo(500);
+	}
+}
@@ -0,0 +1,59 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.MovieApiApplication;
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.entities.Movie;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import com.movieflix.movieApi.repositories.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// two nodes sharing one in-memory database, scheduled polling is pushed out so the test drives it
+class CacheInvalidationLogTests {
+
+	private static final String DATABASE = "--spring.datasource.url=jdbc:h2:mem:coherence;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	private static final String POLL = "--project.cache-invalidation.poll-interval=PT1H";
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@BeforeEach
+	void startNodes() {
+		nodeA = new SpringApplicationBuilder(MovieApiApplication.class).run(DATABASE, POLL, "--server.port=0");
+		nodeB = new SpringApplicationBuilder(MovieApiApplication.class).run(DATABASE, POLL, "--server.port=0",
+				"--spring.jpa.hibernate.ddl-auto=none");
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void updateOnOneNodeEvictsTheOtherNodesCache() throws Exception {
+		Movie movie = nodeA.getBean(MovieRepository.class).save(new Movie(null, "Jawan", "Atlee", "Red Chillies",
+				nodeA.getBean(PersonRepository.class).findOrCreateByNames(Set.of("Shah Rukh Khan")), 2023, "jawan.png", null));
+		MovieService serviceA = nodeA.getBean(MovieService.class);
+		CacheInvalidationLog logA = nodeA.getBean(CacheInvalidationLog.class);
+		logA.tail();
+
+		assertThat(serviceA.getMovie(movie.getMovieId()).getTitle()).isEqualTo("Jawan");
+
+		MovieDto update = new MovieDto(movie.getMovieId(), "Jawan (Extended)", "Atlee", "Red Chillies",
+				Set.of("Shah Rukh Khan"), 2023, null, null, null);
+		nodeB.getBean(MovieService.class).updateMovie(movie.getMovieId(), update, null);
+
+		// node A keeps serving its cached copy until it reads the log
+		assertThat(serviceA.getMovie(movie.getMovieId()).getTitle()).isEqualTo("Jawan");
+		assertThat(logA.tail()).isEqualTo(1);
+		assertThat(serviceA.getMovie(movie.getMovieId()).getTitle()).isEqualTo("Jawan (Extended)");
+	}
+}
@@ -0,0 +1,95 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.PosterUpload;
+import com.movieflix.movieApi.exceptions.FileExistsException;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileServiceImplTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+	@TempDir
+	Path posters;
+
+	private final FileServiceImpl fileService = new FileServiceImpl();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(fileService, "maxPosterSize", DataSize.ofBytes(64));
+	}
+
+	@Test
+	void publishesPosterWithDigest() throws Exception {
+		PosterUpload upload = fileService.uploadFile(posters.toString(), "poster.png", new ByteArrayInputStream(PNG));
+
+		assertThat(Files.readAllBytes(posters.resolve("poster.png"))).isEqualTo(PNG);
+		assertThat(upload.size()).isEqualTo(PNG.length);
+		assertThat(upload.sha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PNG)));
+		assertThat(posters).isDirectoryNotContaining("glob:**.tmp");
+	}
+
+	@Test
+	void publishesMultipartPosterWithoutReplacingAnExistingOne() throws Exception {
+		assertThat(fileService.uploadFile(posters.toString(), new MockMultipartFile("file", "poster.png", "image/png", PNG)))
+				.isEqualTo("poster.png");
+		assertThat(Files.readAllBytes(posters.resolve("poster.png"))).isEqualTo(PNG);
+
+		byte[] other = PNG.clone();
+		other[PNG.length - 1] = 9;
+		assertThatThrownBy(() -> fileService.uploadFile(posters.toString(), new MockMultipartFile("file", "poster.png", "image/png", other)))
+				.isInstanceOf(FileExistsException.class);
+		assertThat(Files.readAllBytes(posters.resolve("poster.png"))).isEqualTo(PNG);
+		assertThat(posters).isDirectoryNotContaining("glob:**.tmp");
+	}
+
+	@Test
+	void replacesAPosterWithAStagedUpload() throws Exception {
+		fileService.uploadFile(posters.toString(), "poster.png", new ByteArrayInputStream(PNG));
+		byte[] other = PNG.clone();
+		other[PNG.length - 1] = 9;
+		fileService.uploadFile(posters.toString(), ".replace-poster.png", new ByteArrayInputStream(other));
+
+		// the old poster is served until the staged one is swapped in
+		assertThat(Files.readAllBytes(posters.resolve("poster.png"))).isEqualTo(PNG);
+		fileService.replaceFile(posters.toString(), ".replace-poster.png", "poster.png");
+
+		try (var files = Files.list(posters)) {
+			assertThat(files).containsExactly(posters.resolve("poster.png"));
+		}
+		assertThat(Files.readAllBytes(posters.resolve("poster.png"))).isEqualTo(other);
+	}
+
+	@Test
+	void rejectsInvalidUploadsWithoutLeavingFiles() throws Exception {
+		assertThatThrownBy(() -> fileService.uploadFile(posters.toString(), "notes.png", new ByteArrayInputStream("hello".getBytes())))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> fileService.uploadFile(posters.toString(), "big.png", new ByteArrayInputStream(new byte[128])))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> fileService.uploadFile(posters.toString(), "../escape.png", new ByteArrayInputStream(PNG)))
+				.isInstanceOf(InvalidRequestException.class);
+
+		fileService.uploadFile(posters.toString(), "poster.png", new ByteArrayInputStream(PNG));
+		assertThatThrownBy(() -> fileService.uploadFile(posters.toString(), "poster.png", new ByteArrayInputStream(PNG)))
+				.isInstanceOf(FileExistsException.class);
+
+		try (var files = Files.list(posters)) {
+			assertThat(files).containsExactly(posters.resolve("poster.png"));
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MovieFilter;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class MovieFacetIndexTests {
+
+	private final MovieFacetIndex facetIndex = new MovieFacetIndex(mock(MovieRepository.class), 100);
+
+	@BeforeEach
+	void setUp() {
+		facetIndex.put(movie(1, "Marvel", "Russo", 2018, "Robert Downey Jr.", "Chris Evans"));
+		facetIndex.put(movie(2, "Marvel", "Russo", 2019, "Robert Downey Jr."));
+		facetIndex.put(movie(3, "Marvel", "Gunn", 2023, "Chris Pratt"));
+		facetIndex.put(movie(4, "Universal", "Nolan", 2023, "Cillian Murphy"));
+	}
+
+	@Test
+	void combinesPredicatesWithAndOr() {
+		MovieFilter marvel = values("studio", "Marvel");
+		MovieFilter recentOrDowney = new MovieFilter(null, List.of(years(2020, null), values("movieCast", "Robert Downey Jr.")), null, null, null, null);
+
+		MovieFacetIndex.Result result = facetIndex.search(new MovieFilter(List.of(marvel, recentOrDowney), null, null, null, null, null), List.of(), 0, 10);
+
+		assertThat(result.movieIds()).containsExactly(1, 2, 3);
+		assertThat(facetIndex.search(years(2019, 2023), List.of(), 1, 1).movieIds()).containsExactly(3);
+		assertThat(facetIndex.search(years(2019, 2023), List.of(), 0, 10).totalElements()).isEqualTo(3);
+	}
+
+	@Test
+	void countsFacetsWithinTheMatch() {
+		MovieFacetIndex.Result result = facetIndex.search(years(2019, null), List.of("studio", "releaseYear"), 0, 10);
+
+		assertThat(result.facets().get("studio")).containsExactly(Map.entry("Marvel", 2), Map.entry("Universal", 1));
+		assertThat(result.facets().get("releaseYear")).containsExactly(Map.entry("2019", 1), Map.entry("2023", 2));
+	}
+
+	@Test
+	void updatesMoveMoviesBetweenValues() {
+		facetIndex.put(movie(4, "Universal", "Nolan", 2017, "Cillian Murphy"));
+		facetIndex.remove(3);
+
+		assertThat(facetIndex.search(years(2020, null), List.of(), 0, 10).movieIds()).isEmpty();
+		assertThat(facetIndex.search(years(null, 2017), List.of("director"), 0, 10).facets().get("director")).containsExactly(Map.entry("Nolan", 1));
+		assertThat(facetIndex.search(values("director", "Gunn"), List.of(), 0, 10).movieIds()).isEmpty();
+	}
+
+	@Test
+	void rejectsUnknownFields() {
+		assertThatThrownBy(() -> facetIndex.search(values("title", "Jawan"), List.of(), 0, 10)).isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> facetIndex.search(null, List.of("poster"), 0, 10)).isInstanceOf(InvalidRequestException.class);
+	}
+
+	private static MovieFilter values(String field, String... values) {
+		return new MovieFilter(null, null, field, List.of(values), null, null);
+	}
+
+	private static MovieFilter years(Integer from, Integer to) {
+		return new MovieFilter(null, null, "releaseYear", null, from, to);
+	}
+
+	private static MovieDto movie(int id, String studio, String director, int year, String... cast) {
+		return new MovieDto(id, "Movie " + id, director, studio, Set.of(cast), year, "poster.png", null, null);
+	}
+}
@@ -0,0 +1,125 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PackFileServiceImplTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+	@TempDir
+	Path posters;
+
+	private PackFileServiceImpl open() throws Exception {
+		// tiny segments so that every couple of posters starts a new one
+		PackFileServiceImpl store = new PackFileServiceImpl(posters.toString(), DataSize.ofBytes(64), 0.5, DataSize.ofKilobytes(1));
+		store.open();
+		return store;
+	}
+
+	private byte[] read(PackFileServiceImpl store, String fileName) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		store.writeFile(null, fileName, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	void postersSurviveRestartAndTornWrites() throws Exception {
+		PackFileServiceImpl store = open();
+		store.uploadFile(null, "a.png", new ByteArrayInputStream(PNG));
+		store.uploadFile(null, "b.png", new ByteArrayInputStream(PNG));
+		store.deleteFile(null, "a.png");
+		store.close();
+
+		// drop the checkpoint and append half a record to force a full scan and tail truncation
+		Files.delete(posters.resolve("pack/index.dat"));
+		try (var segments = Files.list(posters.resolve("pack"))) {
+			Path last = segments.sorted().reduce((first, second) -> second).orElseThrow();
+			Files.write(last, new byte[]{0x50, 0x4F, 0x53}, StandardOpenOption.APPEND);
+		}
+
+		PackFileServiceImpl recovered = open();
+		assertThat(read(recovered, "b.png")).isEqualTo(PNG);
+		assertThatThrownBy(() -> read(recovered, "a.png")).isInstanceOf(FileNotFoundException.class);
+		recovered.close();
+	}
+
+	@Test
+	void replacedPostersSurviveRestart() throws Exception {
+		PackFileServiceImpl store = open();
+		byte[] other = PNG.clone();
+		other[PNG.length - 1] = 9;
+		store.uploadFile(null, "a.png", new ByteArrayInputStream(PNG));
+		store.uploadFile(null, ".replace-a.png", new ByteArrayInputStream(other));
+		store.replaceFile(null, ".replace-a.png", "a.png");
+		store.close();
+
+		Files.delete(posters.resolve("pack/index.dat"));
+		PackFileServiceImpl recovered = open();
+		assertThat(read(recovered, "a.png")).isEqualTo(other);
+		assertThatThrownBy(() -> read(recovered, ".replace-a.png")).isInstanceOf(FileNotFoundException.class);
+		recovered.close();
+	}
+
+	@Test
+	void compactionKeepsLivePostersAndDropsDeadSegments() throws Exception {
+		PackFileServiceImpl store = open();
+		for (int i = 0; i < 6; i++) {
+			store.uploadFile(null, "p" + i + ".png", new ByteArrayInputStream(PNG));
+		}
+		for (int i = 0; i < 5; i++) {
+			store.deleteFile(null, "p" + i + ".png");
+		}
+
+		long before;
+		try (var files = Files.list(posters.resolve("pack"))) {
+			before = files.count();
+		}
+		store.compact();
+		long after;
+		try (var files = Files.list(posters.resolve("pack"))) {
+			after = files.count();
+		}
+
+		assertThat(after).isLessThan(before);
+		assertThat(read(store, "p5.png")).isEqualTo(PNG);
+		store.close();
+
+		PackFileServiceImpl reopened = open();
+		assertThat(read(reopened, "p5.png")).isEqualTo(PNG);
+		assertThatThrownBy(() -> read(reopened, "p0.png")).isInstanceOf(FileNotFoundException.class);
+		reopened.close();
+	}
+
+	@Test
+	void uploadsAreSpooledToTempFilesThatDoNotOutliveThem() throws Exception {
+		PackFileServiceImpl store = open();
+		store.uploadFile(null, "a.png", new ByteArrayInputStream(PNG));
+		assertThatThrownBy(() -> store.uploadFile(null, "b.png", new ByteArrayInputStream(new byte[]{1, 2, 3})))
+				.isInstanceOf(InvalidRequestException.class);
+		try (var files = Files.list(posters.resolve("pack"))) {
+			assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.startsWith(".upload-"));
+		}
+		store.close();
+
+		// a spool left behind by a crash is removed on the next open
+		Files.write(posters.resolve("pack/.upload-crashed.tmp"), PNG);
+		PackFileServiceImpl reopened = open();
+		assertThat(posters.resolve("pack/.upload-crashed.tmp")).doesNotExist();
+		assertThat(read(reopened, "a.png")).isEqualTo(PNG);
+		reopened.close();
+	}
+
+}
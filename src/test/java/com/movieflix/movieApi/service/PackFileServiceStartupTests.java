@@ -0,0 +1,60 @@
+package com.movieflix.movieApi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "project.poster-store=pack")
+class PackFileServiceStartupTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+	// a pack with one poster and a spool left behind, written before the context starts
+	private static final Path POSTERS = writePack();
+
+	// looked up only after the first assertion, injecting the lazy bean would open the pack itself
+	@Autowired
+	private ApplicationContext context;
+
+	@DynamicPropertySource
+	static void posterDirectory(DynamicPropertyRegistry registry) {
+		registry.add("project.poster", POSTERS::toString);
+	}
+
+	@Test
+	void packIsOpenedOnceTheApplicationIsReady() throws IOException {
+		// opening the pack sweeps stale spools, nothing has asked for a poster yet
+		assertThat(POSTERS.resolve("pack/.upload-stale.tmp")).doesNotExist();
+
+		ByteArrayOutputStream poster = new ByteArrayOutputStream();
+		context.getBean(FileService.class).writeFile(null, "before-startup.png", poster);
+		assertThat(poster.toByteArray()).isEqualTo(PNG);
+	}
+
+	private static Path writePack() {
+		try {
+			Path posters = Files.createTempDirectory("pack-startup");
+			PackFileServiceImpl store = new PackFileServiceImpl(posters.toString(), DataSize.ofMegabytes(1), 0.5, DataSize.ofKilobytes(1));
+			store.open();
+			store.uploadFile(null, "before-startup.png", new ByteArrayInputStream(PNG));
+			store.close();
+			Files.write(posters.resolve("pack/.upload-stale.tmp"), PNG);
+			return posters;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.movieflix.movieApi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PosterCacheTests {
+
+	private final FileService fileService = mock(FileService.class);
+
+	private PosterCache posterCache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		when(fileService.getResourceFile(any(), anyString())).thenAnswer(invocation -> new ByteArrayInputStream(new byte[100]));
+		when(fileService.fileSize(any(), anyString())).thenReturn(100L);
+		// room for two posters
+		posterCache = new PosterCache(fileService, new SimpleMeterRegistry(), DataSize.ofBytes(200), DataSize.ofBytes(100));
+	}
+
+	private void serve(String fileName) throws Exception {
+		posterCache.serve("posters", fileName, new ByteArrayOutputStream());
+	}
+
+	@Test
+	void oneOffScanDoesNotFlushHotPosters() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			serve("hot-1.png");
+			serve("hot-2.png");
+		}
+		for (int i = 0; i < 20; i++) {
+			serve("scan-" + i + ".png");
+		}
+
+		clearInvocations(fileService);
+		serve("hot-1.png");
+		serve("hot-2.png");
+
+		verify(fileService, never()).getResourceFile(any(), anyString());
+		assertThat(posterCache.residentBytes()).isEqualTo(200);
+		assertThat(posterCache.hitRatio()).isGreaterThan(0);
+	}
+
+	@Test
+	void postersThatWillNotBeAdmittedAreStreamedNotBuffered() throws Exception {
+		when(fileService.fileSize(any(), eq("large.png"))).thenReturn(500L);
+		serve("large.png");
+		verify(fileService).writeFile(any(), eq("large.png"), any());
+
+		// the cache is full of posters requested more often, a newcomer is streamed until it is popular too
+		for (int i = 0; i < 3; i++) {
+			serve("hot-1.png");
+			serve("hot-2.png");
+		}
+		serve("cold.png");
+		verify(fileService).writeFile(any(), eq("cold.png"), any());
+
+		verify(fileService, never()).getResourceFile(any(), eq("large.png"));
+		verify(fileService, never()).getResourceFile(any(), eq("cold.png"));
+		assertThat(posterCache.residentBytes()).isEqualTo(200);
+	}
+
+	@Test
+	void invalidateDropsTheCachedPoster() throws Exception {
+		serve("poster.png");
+		posterCache.invalidate("poster.png");
+
+		assertThat(posterCache.residentBytes()).isZero();
+		serve("poster.png");
+		verify(fileService, times(2)).getResourceFile(any(), anyString());
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MoviePoster;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PosterReconcilerTests {
+
+	@TempDir
+	Path posters;
+
+	private final MovieRepository movieRepository = mock(MovieRepository.class);
+
+	@Test
+	void quarantinesOldOrphansAndFlagsMissingPosters() throws Exception {
+		Set<String> referenced = Set.of("kept.png", "gone.png");
+		when(movieRepository.findReferencedPosters(anyCollection())).thenAnswer(invocation -> {
+			Collection<String> names = invocation.getArgument(0);
+			return names.stream().filter(referenced::contains).collect(Collectors.toSet());
+		});
+		when(movieRepository.findPostersAfter(eq(0), any(Limit.class)))
+				.thenReturn(List.of(new MoviePoster(1, "kept.png"), new MoviePoster(2, "gone.png")));
+		when(movieRepository.findPostersAfter(eq(2), any(Limit.class))).thenReturn(List.of());
+
+		FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+		for (String name : List.of("kept.png", "orphan-a.png", "orphan-b.png", "orphan-c.png")) {
+			Files.setLastModifiedTime(Files.write(posters.resolve(name), new byte[]{1}), old);
+		}
+		Files.write(posters.resolve("fresh.png"), new byte[]{1});
+		Files.write(posters.resolve(".upload-1.tmp"), new byte[]{1});
+
+		// a batch smaller than the directory exercises the cursor across passes
+		PosterReconciler reconciler = new PosterReconciler(movieRepository, new SimpleMeterRegistry(), posters.toString(),
+				Duration.ofDays(1), Duration.ofDays(7), 2, 10_000);
+		PosterReconciler.Result result = reconciler.reconcile();
+
+		assertThat(result.quarantined()).isEqualTo(3);
+		assertThat(result.missingPosters()).containsExactly(2);
+		assertThat(posters.resolve("kept.png")).exists();
+		assertThat(posters.resolve("fresh.png")).exists();
+		assertThat(posters.resolve(".upload-1.tmp")).exists();
+		assertThat(posters.resolve(PosterReconciler.QUARANTINE).resolve("orphan-b.png")).exists();
+		assertThat(posters.resolve("orphan-b.png")).doesNotExist();
+	}
+}
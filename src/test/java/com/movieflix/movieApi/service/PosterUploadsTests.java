@@ -0,0 +1,83 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.PosterUploadStatus;
+import com.movieflix.movieApi.exceptions.InvalidRequestException;
+import com.movieflix.movieApi.exceptions.UploadLimitExceededException;
+import com.movieflix.movieApi.exceptions.UploadSessionNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PosterUploadsTests {
+
+	private static final String OWNER = "uploader@movieflix.com";
+
+	@Autowired
+	private PosterUploads posterUploads;
+
+	@Value("${project.poster}")
+	private String path;
+
+	@Test
+	void openPreallocatesThePartFileAndRejectsChunksPastTheSize() throws Exception {
+		PosterUploadStatus status = posterUploads.open(OWNER, UUID.randomUUID() + ".png", 8);
+
+		assertThat(Files.size(part(status.uploadId()))).isEqualTo(8);
+		assertThatThrownBy(() -> posterUploads.append(OWNER, status.uploadId(), 0, new ByteArrayInputStream(new byte[9])))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThat(posterUploads.status(OWNER, status.uploadId()).offset()).isZero();
+		assertThatThrownBy(() -> posterUploads.open(OWNER, "../escape.png", 8)).isInstanceOf(InvalidRequestException.class);
+	}
+
+	@Test
+	void sweepRemovesAbandonedSessionsAndTheirBytes() throws Exception {
+		PosterUploadStatus status = posterUploads.open(OWNER, UUID.randomUUID() + ".png", 8);
+		posterUploads.append(OWNER, status.uploadId(), 0, new ByteArrayInputStream(new byte[4]));
+
+		posterUploads.sweep(Instant.now());
+		assertThat(posterUploads.status(OWNER, status.uploadId()).offset()).isEqualTo(4);
+
+		assertThat(posterUploads.sweep(status.expiresAt().plus(Duration.ofDays(2)))).isGreaterThanOrEqualTo(1);
+		assertThatThrownBy(() -> posterUploads.status(OWNER, status.uploadId())).isInstanceOf(UploadSessionNotFoundException.class);
+		assertThat(part(status.uploadId())).doesNotExist();
+	}
+
+	@Test
+	void sessionsAreHiddenFromOtherUsersAndCappedPerUser() throws Exception {
+		String owner = UUID.randomUUID() + "@movieflix.com";
+		PosterUploadStatus first = posterUploads.open(owner, UUID.randomUUID() + ".png", 8);
+		for (int i = 1; i < 5; i++) {
+			posterUploads.open(owner, UUID.randomUUID() + ".png", 8);
+		}
+		assertThatThrownBy(() -> posterUploads.open(owner, UUID.randomUUID() + ".png", 8))
+				.isInstanceOf(UploadLimitExceededException.class);
+
+		String other = UUID.randomUUID() + "@movieflix.com";
+		assertThatThrownBy(() -> posterUploads.status(other, first.uploadId())).isInstanceOf(UploadSessionNotFoundException.class);
+		assertThatThrownBy(() -> posterUploads.append(other, first.uploadId(), 0, new ByteArrayInputStream(new byte[4])))
+				.isInstanceOf(UploadSessionNotFoundException.class);
+		assertThatThrownBy(() -> posterUploads.complete(other, first.uploadId())).isInstanceOf(UploadSessionNotFoundException.class);
+		assertThatThrownBy(() -> posterUploads.abort(other, first.uploadId())).isInstanceOf(UploadSessionNotFoundException.class);
+
+		// finishing or aborting one makes room for the next
+		posterUploads.abort(owner, first.uploadId());
+		assertThat(posterUploads.open(owner, UUID.randomUUID() + ".png", 8).offset()).isZero();
+	}
+
+	private Path part(String uploadId) {
+		return Paths.get(path).toAbsolutePath().normalize().resolve(PosterUploads.UPLOADS).resolve(uploadId + ".part");
+	}
+}
@@ -0,0 +1,94 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.MovieDto;
+import com.movieflix.movieApi.dto.MoviePatch;
+import com.movieflix.movieApi.dto.MovieProjection;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimilarMoviesTests {
+
+	private final MovieRepository movieRepository = mock(MovieRepository.class);
+
+	private final SimilarMovies similarMovies = new SimilarMovies(movieRepository, 5, 1000, 100, 2);
+
+	@BeforeEach
+	void setUp() {
+		when(movieRepository.findProjectionsAfter(eq(0), any(Limit.class))).thenReturn(List.of(
+				movie(1, "Inception", "Christopher Nolan", "Warner Bros", "Leonardo DiCaprio|Tom Hardy"),
+				movie(2, "Dunkirk", "Christopher Nolan", "Warner Bros", "Cillian Murphy|Tom Hardy"),
+				movie(3, "The Revenant", "Alejandro Iñárritu", "Fox", "Leonardo DiCaprio|Tom Hardy"),
+				movie(4, "Jawan", "Atlee", "Red Chillies", "Shah Rukh Khan")));
+		when(movieRepository.findProjectionsAfter(eq(4), any(Limit.class))).thenReturn(List.of());
+		similarMovies.rebuild();
+	}
+
+	@Test
+	void ranksByWeightedOverlap() {
+		// director 2 + studio 0.5 + one actor 1 shared out of 4.5 + 4.5 - 3.5
+		assertThat(similarMovies.similar(1, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(2, 3);
+		assertThat(similarMovies.similar(1, 10).get(0).score()).isCloseTo(3.5 / 5.5, within(1e-6));
+		assertThat(similarMovies.similar(4, 10)).isEmpty();
+		assertThat(similarMovies.similar(1, 1)).hasSize(1);
+	}
+
+	@Test
+	void changesRecomputeTheirNeighbourhoodOnUpdate() {
+		similarMovies.put(new MovieDto(5, "Inception 2", "Christopher Nolan", "Warner Bros",
+				Set.of("Leonardo DiCaprio", "Tom Hardy"), 2026, "inception2.png", null, null));
+		similarMovies.remove(2);
+		similarMovies.update();
+
+		assertThat(similarMovies.similar(1, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(5, 3);
+		assertThat(similarMovies.similar(1, 10).get(0).score()).isCloseTo(1.0, within(1e-6));
+		assertThat(similarMovies.similar(3, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(1, 5);
+		assertThat(similarMovies.similar(2, 10)).isEmpty();
+	}
+
+	@Test
+	void patchedDirectorsAndStudiosMoveMoviesTogether() {
+		similarMovies.patch(4, new MoviePatch(null, "Christopher Nolan", "Warner Bros", null));
+		similarMovies.update();
+
+		assertThat(similarMovies.similar(4, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(1, 2);
+		assertThat(similarMovies.similar(1, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(2, 4, 3);
+	}
+
+	@Test
+	void changesDuringARebuildAreNotBlockedAndAreReplayedAfterTheSwap() {
+		List<MovieProjection> movies = movieRepository.findProjectionsAfter(0, Limit.of(100));
+		when(movieRepository.findProjectionsAfter(eq(0), any(Limit.class))).thenAnswer(invocation -> {
+			// another request changes movies while the database is read, the rebuild must not hold it up
+			CompletableFuture.runAsync(() -> {
+				similarMovies.put(new MovieDto(5, "Inception 2", "Christopher Nolan", "Warner Bros",
+						Set.of("Leonardo DiCaprio", "Tom Hardy"), 2026, "inception2.png", null, null));
+				similarMovies.remove(2);
+			}).get(5, TimeUnit.SECONDS);
+			return movies;
+		});
+
+		similarMovies.rebuild();
+		similarMovies.update();
+
+		assertThat(similarMovies.similar(1, 10)).extracting(SimilarMovies.Neighbour::movieId).containsExactly(5, 3);
+		assertThat(similarMovies.similar(2, 10)).isEmpty();
+	}
+
+	private static MovieProjection movie(int movieId, String title, String director, String studio, String cast) {
+		return new MovieProjection(movieId, title, director, studio, 2020, title + ".png", 0L, cast);
+	}
+}
@@ -0,0 +1,55 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.config.TimedDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryDetectorTests {
+
+	@Test
+	void fingerprintsStripLiteralsAndCollapseLists() {
+		assertThat(SlowQueryDetector.fingerprint("SELECT m1_0.title FROM movie m1_0 WHERE m1_0.movie_id IN (?, ?, ?)  AND m1_0.title = 'It''s'"))
+				.isEqualTo("select m1_0.title from movie m1_0 where m1_0.movie_id in (?+) and m1_0.title = ?");
+		assertThat(SlowQueryDetector.fingerprint("select * from movie where movie_id in (?,?) limit 20"))
+				.isEqualTo(SlowQueryDetector.fingerprint("select * from movie where movie_id in (?) limit 5"));
+		assertThat(SlowQueryDetector.fingerprint("insert into movie_person (movie_id,person_id) values (?,?), (?,?),(?,?)"))
+				.isEqualTo("insert into movie_person (movie_id,person_id) values (?+)");
+	}
+
+	@Test
+	void histogramBucketsBoundTheirValues() {
+		for (long micros : new long[]{0, 7, 8, 9, 15, 1_000, 123_456, 9_999_999}) {
+			long upper = SlowQueryDetector.Stats.upperBound(SlowQueryDetector.Stats.bucket(micros));
+			assertThat(upper).isGreaterThanOrEqualTo(micros).isLessThanOrEqualTo(Math.max(micros + micros / 4, 7));
+		}
+	}
+
+	@Test
+	void statementsThroughTheWrapperAreTimedWithRowCountsAndCallers() {
+		SlowQueryDetector detector = new SlowQueryDetector(new SimpleMeterRegistry(), Duration.ZERO, 100);
+		JdbcTemplate jdbc = new JdbcTemplate(new TimedDataSource(
+				new DriverManagerDataSource("jdbc:h2:mem:slow-queries;DB_CLOSE_DELAY=-1", "sa", ""), () -> detector));
+
+		jdbc.execute("create table sample (id integer)");
+		jdbc.update("insert into sample values (1), (2), (3)");
+		for (int id = 1; id <= 3; id++) {
+			jdbc.queryForList("select id from sample where id >= ?", Integer.class, id);
+		}
+
+		List<SlowQueryDetector.Entry> top = detector.top(10, "total");
+		SlowQueryDetector.Entry select = top.stream().filter(entry -> entry.fingerprint().startsWith("select")).findFirst().orElseThrow();
+		assertThat(select.fingerprint()).isEqualTo("select id from sample where id >= ?");
+		assertThat(select.count()).isEqualTo(3);
+		assertThat(select.rows()).isEqualTo(3 + 2 + 1);
+		assertThat(select.p99Micros()).isLessThanOrEqualTo(select.maxMicros());
+		assertThat(select.lastSlowCaller()).isEqualTo("SlowQueryDetectorTests.statementsThroughTheWrapperAreTimedWithRowCountsAndCallers");
+		assertThat(top).extracting(SlowQueryDetector.Entry::fingerprint).contains("insert into sample values (?+)");
+	}
+}
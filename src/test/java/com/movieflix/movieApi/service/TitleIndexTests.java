@@ -0,0 +1,66 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.dto.TitleSuggestion;
+import com.movieflix.movieApi.repositories.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TitleIndexTests {
+
+	private final MovieRepository movieRepository = mock(MovieRepository.class);
+
+	private final ViewCounter viewCounter = mock(ViewCounter.class);
+
+	private final TitleIndex titleIndex = new TitleIndex(movieRepository, viewCounter, 100);
+
+	@BeforeEach
+	void setUp() {
+		when(movieRepository.findTitlesAfter(eq(0), any(Limit.class))).thenReturn(List.of(
+				new TitleSuggestion(1, "Amélie"),
+				new TitleSuggestion(2, "Star Wars"),
+				new TitleSuggestion(3, "Starship Troopers"),
+				new TitleSuggestion(4, "Star Trek: Generations")));
+		when(movieRepository.findTitlesAfter(eq(4), any(Limit.class))).thenReturn(List.of());
+		titleIndex.reload();
+	}
+
+	@Test
+	void foldsCaseDiacriticsAndPunctuation() {
+		assertThat(titleIndex.suggest("AME", 5)).extracting(TitleSuggestion::title).containsExactly("Amélie");
+		assertThat(titleIndex.suggest("star trek generations", 5)).extracting(TitleSuggestion::movieId).containsExactly(4);
+		assertThat(titleIndex.suggest("star ", 5)).extracting(TitleSuggestion::movieId).containsExactly(4, 2);
+		assertThat(titleIndex.suggest("x", 5)).isEmpty();
+	}
+
+	@Test
+	void ranksByPopularityAfterRebuild() {
+		when(viewCounter.views(3)).thenReturn(1L);
+		when(viewCounter.views(2)).thenReturn(2L);
+		when(viewCounter.flushes()).thenReturn(1L);
+		titleIndex.rebuild();
+
+		assertThat(titleIndex.suggest("star", 2)).extracting(TitleSuggestion::movieId).containsExactly(2, 3);
+	}
+
+	@Test
+	void appliesChangesBeforeTheNextRebuild() {
+		titleIndex.put(2, "Solaris");
+		titleIndex.put(5, "Stalker");
+		titleIndex.remove(3);
+
+		assertThat(titleIndex.suggest("st", 5)).extracting(TitleSuggestion::movieId).containsExactlyInAnyOrder(4, 5);
+		assertThat(titleIndex.suggest("sol", 5)).extracting(TitleSuggestion::movieId).containsExactly(2);
+
+		titleIndex.rebuild();
+		assertThat(titleIndex.suggest("st", 5)).extracting(TitleSuggestion::movieId).containsExactly(5, 4);
+	}
+}
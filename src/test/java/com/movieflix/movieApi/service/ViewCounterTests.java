@@ -0,0 +1,63 @@
+package com.movieflix.movieApi.service;
+
+import com.movieflix.movieApi.repositories.MovieStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ViewCounterTests {
+
+	@Autowired
+	private ViewCounter viewCounter;
+
+	@Autowired
+	private MovieStatsRepository statsRepository;
+
+	@Value("${project.views.half-life:PT6H}")
+	private Duration halfLife;
+
+	@Test
+	void newerViewsOutrankOlderOnesAfterDecay() {
+		Instant now = Instant.now();
+		record(900_001, 10);
+		viewCounter.flush(now);
+		record(900_002, 6);
+		viewCounter.flush(now.plus(halfLife));
+
+		// ten views one half-life ago count as five, six fresh ones win
+		List<Integer> ranked = viewCounter.trending(100, now.plus(halfLife)).stream().map(ViewCounter.Trending::movieId).toList();
+		assertThat(ranked).containsSubsequence(900_002, 900_001);
+		ViewCounter.Trending older = viewCounter.trending(100, now.plus(halfLife)).stream()
+				.filter(trending -> trending.movieId() == 900_001).findFirst().orElseThrow();
+		assertThat(older.score()).isCloseTo(5.0, within(0.01));
+	}
+
+	@Test
+	void flushesAddToTheStoredCounts() {
+		Instant now = Instant.now();
+		record(900_003, 2);
+		viewCounter.flush(now);
+		record(900_003, 3);
+		viewCounter.flush(now);
+
+		assertThat(statsRepository.findById(900_003).orElseThrow().getViews()).isEqualTo(5);
+		assertThat(viewCounter.views(900_003)).isEqualTo(5);
+		assertThat(viewCounter.trending(100, now)).filteredOn(trending -> trending.movieId() == 900_003)
+				.singleElement().satisfies(trending -> assertThat(trending.score()).isCloseTo(5.0, within(0.01)));
+	}
+
+	private void record(int movieId, int views) {
+		for (int i = 0; i < views; i++) {
+			viewCounter.recordView(movieId);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.movieflix.movieApi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimitTests {
+
+	private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final AdaptiveLimit limit = new AdaptiveLimit(20, 2, 100, 2.0, 0.5, WINDOW, TimeUnit.MINUTES.toNanos(5));
+
+	private long now = System.nanoTime();
+
+	@Test
+	void growsWhileLatencyStaysNearTheMinimumAndShrinksWhenRequestsQueue() {
+		for (int i = 0; i < 20; i++) {
+			window(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		int grown = limit.limit();
+		assertThat(grown).isGreaterThan(20);
+
+		// ten times the unloaded latency is a queue, not a slower query mix
+		for (int i = 0; i < 5; i++) {
+			window(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+		assertThat(limit.limit()).isLessThan(grown / 2);
+
+		for (int i = 0; i < 50; i++) {
+			window(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+		// the square root headroom settles a fully saturated limit at 4, where it keeps probing
+		assertThat(limit.limit()).isBetween(2, 4);
+	}
+
+	@Test
+	void lowerSharesAreShedFirst() {
+		for (int i = 0; i < 16; i++) {
+			assertThat(limit.tryAcquire(0.8)).isTrue();
+		}
+		assertThat(limit.tryAcquire(0.8)).isFalse();
+		for (int i = 0; i < 4; i++) {
+			assertThat(limit.tryAcquire(1.0)).isTrue();
+		}
+		assertThat(limit.tryAcquire(1.0)).isFalse();
+
+		limit.release(TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(limit.inFlight()).isEqualTo(19);
+		assertThat(limit.tryAcquire(1.0)).isTrue();
+	}
+
+	// one full window of samples at the current limit
+	private void window(long rtt) {
+		now += WINDOW;
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(rtt, limit.limit(), now);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.movieflix.movieApi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+	@Test
+	void neverMissesAnAddedValueAndRarelyMatchesOthers() {
+		BloomFilter filter = new BloomFilter(10_000, 0.001);
+		String[] added = new String[10_000];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = UUID.randomUUID().toString();
+			filter.put(added[i]);
+		}
+		for (String value : added) {
+			assertThat(filter.mightContain(value)).isTrue();
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if(filter.mightContain(UUID.randomUUID().toString())){
+				falsePositives++;
+			}
+		}
+		// 0.1% expected at full capacity, allow some slack for the random sample
+		assertThat(falsePositives).isLessThan(300);
+	}
+}